@@ -21,6 +21,10 @@ public class CmdParameters {
 	public static final String PARAM_NAME_MARK_FLAG = "mf";
 	public static final String PARAM_VALUE_LIST_DONE = "ld";
 	public static final String PARAM_VALUE_LIST_ALL = "la";
-	public static final String PARAM_VALUE_LIST_PRIORITY = "lp";
 	public static final String PARAM_VALUE_MARK_UNMARK = "um";
+	//@@author A0076510M
+	public static final String PARAM_NAME_FREE_DURATION = "fd";
+	public static final String PARAM_NAME_LIST_DUEFROM = "ldf";
+	public static final String PARAM_NAME_LIST_DUEBY = "ldb";
+	public static final String PARAM_VALUE_LIST_NEXT = "ln";
 }
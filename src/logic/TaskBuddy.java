@@ -8,6 +8,8 @@
 package logic;
 
 import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.logging.Logger;
 
 import logger.LogHandler;
@@ -18,6 +20,8 @@ import ui.UIHelper;
 import util.TimeUtil;
 import parser.LanguageProcessor;
 import storage.SettingsFileHandler;
+import storage.TaskStorageWriter;
+import storage.TaskStore;
 import taskCollections.Task;
 import taskCollections.Task.FLAG_TYPE;
 import taskCollections.TaskTree;
@@ -31,13 +35,33 @@ public class TaskBuddy {
 	private static final String MSG_INVALIDCMD = "Please enter a valid command. For more info, enter help";
 	private static final String MSG_TASKFILE_NOTFOUND = "Please enter the name or location of file to open or create. File name should end with '.xml'";
 	private static final String MSG_TASKFILE_REPROMPT = "Please enter another file name";
+	private static final int INITIAL_PULL_SIZE = 500;
+	private static final String MSG_STORAGE_FAILED = "Some changes could not be saved to the task file";
+	private static final String MSG_LOAD_FAILED = "Some tasks could not be read from the task file, please check the task list";
+	private static final String MSG_SEPARATOR = ". ";
+	private static final long DAY = 24 * 60 * 60 * 1000L;
+	private static final String MSG_TASKS_ARCHIVED = "Archived [%1$s] done tasks which ended over %2$s days ago. "
+			+ "Enter \"list -all\" to see them";
+	private static final String MSG_ARCHIVE_FAILED = "Unable to archive done tasks which ended over %1$s days ago";
+	private static final long REFRESH_INTERVAL = 60 * 1000; // 1 minute, the precision of end times
+	private static final String REFRESH_THREAD_NAME = "TaskBuddy refresh";
+	private static final int BACKGROUND_PULL_SIZE = 5000;
+	private static final String PULL_THREAD_NAME = "TaskBuddy pull";
 	/*
 	 * Global variables
 	 */
 	private static Logger _log;
 	private static LanguageProcessor _lp;
 	private static String _taskFileName;
+	private static TaskStore.TYPE _taskStoreType;
+	private static int _archiveDays;
+	private static TaskStorageWriter.MODE _storageMode = TaskStorageWriter.MODE.SYNC;
+	private static long _commitInterval;
 	private static TaskTree _taskTree;
+	// Held while the task tree is used, as the refresh timer uses it too
+	private static final Object _taskTreeLock = new Object();
+	// Set once a command was entered, after which the task list is left as it is
+	private static boolean _hasRunCommand = false;
 
 	public static void main(String[] args) {
 
@@ -68,6 +92,15 @@ public class TaskBuddy {
 		initTaskTree(_taskFileName); // Load the tasks to task collection
 		Command.init(); // Init the logic component
 		displayTaskList(); // Display the task list on the UI
+		
+		if (_taskTree.hasPendingTasks()) {
+			// Read the rest of a large task file while commands are entered
+			startPullThread();
+		} else {
+			archiveDoneTasks(); // Keep done tasks which ended long ago out of the task file
+		}
+
+		startRefreshTimer(); // Show tasks as overdue once they end
 	}
 
 	/**
@@ -98,10 +131,16 @@ public class TaskBuddy {
 		}
 		
 		_taskFileName = settings.getTaskFile(); // Get the final task file name
+		_taskStoreType = settings.getTaskStoreType(); // Get the kind of storage to keep it in
+		_archiveDays = settings.getArchiveDays(); // Get the age of done tasks to archive
+		// SYNC unless set otherwise, so that each command reports a failed write
+		_storageMode = settings.getStorageMode();
+		_commitInterval = settings.getCommitInterval();
 	}
 
 	private static void initTaskTree(String filePath) {
-		_taskTree = TaskTree.newTaskTree(filePath);
+		_taskTree = TaskTree.newTaskTree(filePath, TaskStore.newTaskStore(_taskStoreType), INITIAL_PULL_SIZE,
+				_storageMode, _commitInterval);
 	}
 	
 	private static String ensureCorrectFileNameFormat(String filePath){
@@ -116,21 +155,104 @@ public class TaskBuddy {
 	 */
 	private static void runCommands() {
 		do {
-			setUITasksCount(); // Display the list of statuses of tasks
+			refreshUITasksCount(); // Display the list of statuses of tasks
 			String in = getInput(); // Get the input from user
-			Command toExecute = _lp.resolveCmd(in); // Parse the command
-			
-			if (toExecute == null) {
-				// Unable to parse command
-				UIHelper.setOutputMsg(MSG_INVALIDCMD);
-				continue;
-			}
 
-			// Perform relevant actions from the executed command
-			resolveCmdAction(toExecute.execute(), toExecute);
+			synchronized (_taskTreeLock) {
+				//@@author A0076510M
+				// Commands see every task, so the rest is read now if still pending
+				_taskTree.pullPendingTasks();
+				//@@author A0125496X
+				Command toExecute = _lp.resolveCmd(in); // Parse the command
+
+				if (toExecute == null) {
+					// Unable to parse command
+					UIHelper.setOutputMsg(MSG_INVALIDCMD);
+					continue;
+				}
+
+				// Perform relevant actions from the executed command
+				resolveCmdAction(toExecute.execute(), toExecute);
+				//@@author A0076510M
+				_hasRunCommand = true;
+				//@@author A0125496X
+			}
 		} while (true);
 	}
 
+	//@@author A0076510M
+	/**
+	 * Archives the done tasks which ended more days ago than set in the
+	 * settings file, unless archiving is turned off, and tells the user how
+	 * many were archived. The task file is only written if there are any.
+	 */
+	private static void archiveDoneTasks() {
+		if (_archiveDays == 0) {
+			return;
+		}
+
+		int archivedCount = _taskTree.archiveDoneTasks(System.currentTimeMillis() - _archiveDays * DAY);
+		if (archivedCount > 0) {
+			UIHelper.setOutputMsg(String.format(MSG_TASKS_ARCHIVED, archivedCount, _archiveDays));
+		} else if (archivedCount < 0) {
+			UIHelper.setOutputMsg(String.format(MSG_ARCHIVE_FAILED, _archiveDays));
+		}
+	}
+
+	/**
+	 * Pulls the rest of a large task file in the background, a part at a
+	 * time, while the first command is being entered. A command entered
+	 * before the last part reads the rest at once. Once every task is read,
+	 * the task list is displayed again unless a command was entered, and
+	 * done tasks are archived. A task which cannot be read makes the task
+	 * file be read again, which is reported with the next task list shown.
+	 */
+	private static void startPullThread() {
+		Thread thread = new Thread(PULL_THREAD_NAME) {
+			@Override
+			public void run() {
+				boolean hasPendingTasks = true;
+				while (hasPendingTasks) {
+					synchronized (_taskTreeLock) {
+						hasPendingTasks = _taskTree.pullPendingTasks(BACKGROUND_PULL_SIZE);
+					}
+				}
+
+				synchronized (_taskTreeLock) {
+					if (!_hasRunCommand) {
+						displayTaskList();
+					}
+					archiveDoneTasks();
+					setUITasksCount();
+				}
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Refreshes the task counts at the start of every minute, so that tasks
+	 * are counted as overdue once they end while waiting for input
+	 */
+	private static void startRefreshTimer() {
+		Timer timer = new Timer(REFRESH_THREAD_NAME, true);
+		long delay = REFRESH_INTERVAL - System.currentTimeMillis() % REFRESH_INTERVAL;
+
+		timer.scheduleAtFixedRate(new TimerTask() {
+			@Override
+			public void run() {
+				refreshUITasksCount();
+			}
+		}, delay, REFRESH_INTERVAL);
+	}
+
+	private static void refreshUITasksCount() {
+		synchronized (_taskTreeLock) {
+			setUITasksCount();
+		}
+	}
+
 	//@@author A0126394B
 	/**
 	 * Displays the number of task counts for overdue, pending, and completed
@@ -155,6 +277,14 @@ public class TaskBuddy {
 	private static void resolveCmdAction(CommandAction action, Command executed) {
 		String outputMsg = action.getOutput();
 		List<Task> tasksToDisplay = action.getTaskList();
+		//@@author A0076510M
+		if (_taskTree.pollStorageFailure()) { // A change written since the last command failed
+			outputMsg = outputMsg == null ? MSG_STORAGE_FAILED : outputMsg + MSG_SEPARATOR + MSG_STORAGE_FAILED;
+		}
+		if (_taskTree.pollLoadFailure()) { // Pulling tasks found a corrupt record of the task file
+			outputMsg = outputMsg == null ? MSG_LOAD_FAILED : outputMsg + MSG_SEPARATOR + MSG_LOAD_FAILED;
+		}
+		//@@author A0126394B
 
 		if (outputMsg != null) { // Display the message to display after executing a cmd
 			UIHelper.setOutputMsg(outputMsg);
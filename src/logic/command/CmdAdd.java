@@ -9,7 +9,6 @@ package logic.command;
 import constants.CmdParameters;
 import parser.ParserConstants;
 import taskCollections.Task;
-import taskCollections.Task.FLAG_TYPE;
 import taskCollections.Task.PRIORITY_TYPE;
 import util.TimeUtil;
 
@@ -68,7 +67,7 @@ public class CmdAdd extends Command {
 
 			// Ensure the dates given are valid
 			if (!isValidTime(taskStartTimeL, taskEndTimeL)) {
-				return new CommandAction(MSG_STARTAFTEREND, false, _taskTree.searchFlag(FLAG_TYPE.NULL));
+				return new CommandAction(MSG_STARTAFTEREND, false, getNextDueTasks());
 			}
 
 			// Convert the priority to a format we can use for storing
@@ -79,7 +78,8 @@ public class CmdAdd extends Command {
 
 		_taskTree.add(addTask); // Add the task to the collection
 
-		return new CommandAction(String.format(MSG_TASKADDED, taskName), true, _taskTree.searchFlag(FLAG_TYPE.NULL));
+		String outputMsg = String.format(MSG_TASKADDED, taskName) + getConflictMsg(addTask);
+		return new CommandAction(outputMsg, true, getNextDueTasks());
 	}
 
 	@Override
@@ -11,7 +11,6 @@ import java.util.logging.Level;
 import constants.CmdParameters;
 import logger.LogHandler;
 import taskCollections.Task;
-import taskCollections.Task.FLAG_TYPE;
 
 public class CmdDelete extends Command {
 
@@ -165,7 +164,7 @@ public class CmdDelete extends Command {
 		}
 
 		return new CommandAction(String.format(MSG_TASKDELETED, _task.getName()), true,
-				_taskTree.searchFlag(FLAG_TYPE.NULL));
+				getNextDueTasks());
 	}
 
 }
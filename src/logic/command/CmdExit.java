@@ -12,12 +12,13 @@ public class CmdExit extends Command {
 	private static final String HELP_INFO_EXIT = "Just exit...";
 
 	/**
-	 * Exits TaskBuddy
+	 * Exits TaskBuddy once all changes are written to the task file
 	 * 
 	 * @return a CommandAction
 	 */
 	@Override
 	public CommandAction execute() {
+		_taskTree.flushStorage();
 		System.exit(0);
 		return new CommandAction("", false, null);
 	}
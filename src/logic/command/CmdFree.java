@@ -0,0 +1,124 @@
+//@@author A0076510M
+
+/**
+ * Command to find the first free slots of at least a given number of minutes
+ * between the pending {@code Task} with start and end times
+ */
+
+package logic.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+import constants.CmdParameters;
+import parser.ParserConstants;
+import parser.TimeProcessor;
+
+import taskCollections.Task;
+import taskCollections.Task.FLAG_TYPE;
+import taskCollections.TimeSlot;
+import util.TimeUtil;
+
+public class CmdFree extends Command {
+
+	/*
+	 * Constants
+	 */
+	// Message constants
+	private static final String MSG_FREE_SLOTS = "Free for %1$s min: %2$s";
+	private static final String MSG_NO_FREE_SLOT = "No free slot of %1$s min found";
+	private static final String MSG_STARTAFTEREND = "Specified start time should be before end time";
+	private static final String SLOT_DELIMITER = ", ";
+
+	// Help Info
+	private static final String HELP_INFO_FREE = "<minutes> [%1$s <start_time>] [%2$s <end_time>]";
+
+	// Variable constants
+	private static final long MINUTE = 60 * 1000;
+	private static final long DEFAULT_RANGE = 7 * 24 * 60 * MINUTE;
+	private static final int MAX_SLOTS_SHOWN = 5;
+
+	public CmdFree() {
+
+	}
+
+	/**
+	 * Finds the first free slots from the start time, or now, to the end
+	 * time, or a week after the start time. The pending tasks in that range
+	 * are listed.
+	 *
+	 * @return a CommandAction
+	 */
+	@Override
+	public CommandAction execute() {
+		int duration = Integer.parseInt(getParameterValue(CmdParameters.PARAM_NAME_FREE_DURATION));
+		String startTime = getParameterValue(CmdParameters.PARAM_NAME_TASK_STARTTIME);
+		String endTime = getParameterValue(CmdParameters.PARAM_NAME_TASK_ENDTIME);
+
+		long fromTime = startTime == null ? System.currentTimeMillis() : TimeUtil.sysStringToLongTime(startTime);
+		long toTime = endTime == null ? fromTime + DEFAULT_RANGE : TimeUtil.sysStringToLongTime(endTime);
+
+		if (toTime <= fromTime) {
+			return new CommandAction(MSG_STARTAFTEREND, false, null);
+		}
+
+		List<TimeSlot> slots = _taskTree.queryFreeSlots(fromTime, toTime, duration * MINUTE, MAX_SLOTS_SHOWN);
+		return new CommandAction(getOutputMsg(slots, duration), false, getPendingTasks(fromTime, toTime));
+	}
+
+	@Override
+	public CommandAction undo() {
+		// do nothing (Free should not have undo)
+		return null;
+	}
+
+	@Override
+	public String[] getRequiredFields() {
+		return new String[] { CmdParameters.PARAM_NAME_FREE_DURATION };
+	}
+
+	@Override
+	public String[] getOptionalFields() {
+		return new String[] { CmdParameters.PARAM_NAME_TASK_STARTTIME, CmdParameters.PARAM_NAME_TASK_ENDTIME };
+	}
+
+	/**
+	 * Returns a syntax message for free command
+	 *
+	 * @return a syntax message for free command
+	 */
+	@Override
+	public String getHelpInfo() {
+		return String.format(HELP_INFO_FREE, ParserConstants.TASK_SPECIFIER_STARTTIME,
+				ParserConstants.TASK_SPECIFIER_ENDTIME);
+	}
+
+	/**
+	 * Returns the pending tasks which take up any time in a range, to be
+	 * shown around the free slots
+	 */
+	private List<Task> getPendingTasks(long fromTime, long toTime) {
+		List<Task> taskList = new ArrayList<Task>();
+		for (Task t : _taskTree.queryOverlap(fromTime, toTime)) {
+			if (t.getFlag() == FLAG_TYPE.NULL) {
+				taskList.add(t);
+			}
+		}
+		return taskList;
+	}
+
+	private String getOutputMsg(List<TimeSlot> slots, int duration) {
+		if (slots.isEmpty()) {
+			return String.format(MSG_NO_FREE_SLOT, duration);
+		}
+
+		TimeProcessor timeP = TimeProcessor.getInstance();
+		StringJoiner slotList = new StringJoiner(SLOT_DELIMITER);
+		for (TimeSlot slot : slots) {
+			slotList.add(timeP.getFormattedDate(slot.getStartTime(), slot.getEndTime()));
+		}
+		return String.format(MSG_FREE_SLOTS, duration, slotList);
+	}
+
+}
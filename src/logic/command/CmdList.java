@@ -6,14 +6,16 @@
 
 package logic.command;
 
-import java.util.List;
-
 import constants.CmdParameters;
 import parser.ParserConstants;
 
+import taskCollections.Attributes.TYPE;
 import taskCollections.Task;
 import taskCollections.Task.PRIORITY_TYPE;
 import taskCollections.Task.FLAG_TYPE;
+import taskCollections.TaskPage;
+import taskCollections.TaskQuery;
+import util.TimeUtil;
 
 public class CmdList extends Command {
 
@@ -23,12 +25,24 @@ public class CmdList extends Command {
 	// Message constants
 	private static final String MSG_EMPTY_TASKTREE = "No tasks to display";
 	private static final String MSG_TOTAL_TASK = "Total tasks in list: [%1$s]";
+	//@@author A0076510M
+	private static final String MSG_MORE_TASK = "Tasks in list: [%1$s], enter \"list %2$s\" for more";
+	private static final String MSG_LAST_TASK = "Last tasks in list: [%1$s]";
+	private static final String MSG_NO_MORE_TASK = "No more tasks to display";
+	//@@author A0125574A
 
 	// Help Info
-	private static final String HELP_INFO_LIST = "[%1$s or %2$s or %3$s <high/normal/low/h/n/l>]";
+	private static final String HELP_INFO_LIST = "[%1$s or %2$s or %3$s] [%4$s <high/normal/low/h/n/l>] "
+			+ "[%5$s <due_from>] [%6$s <due_by>] [%7$s <name>]";
 
 	// Variable constants
 	private static final int EMPTY_LIST = 0;
+	//@@author A0076510M
+	private static final int LIST_PAGE_SIZE = 100;
+
+	// The page last listed, which the next list continues from
+	private static TaskPage _lastPage;
+	//@@author A0125574A
 
 	public CmdList() {
 
@@ -42,13 +56,19 @@ public class CmdList extends Command {
 	@Override
 	public CommandAction execute() {
 
-		if (isEmptyTaskList()) {
+		//@@author A0076510M
+		String optionalParameter = getParameterValue(CmdParameters.PARAM_NAME_LIST_FLAG);
+		// Archived tasks are not counted, but are listed with all or done tasks
+		if (isEmptyTaskList() && !isArchiveListed(optionalParameter)) {
 			return new CommandAction(MSG_EMPTY_TASKTREE, false, _taskTree.getList());
 		}
 
-		String optionalParameter = getParameterValue(CmdParameters.PARAM_NAME_LIST_FLAG);
-		List<Task> taskList = proccessParameter(optionalParameter);
-		return new CommandAction(String.format(MSG_TOTAL_TASK, taskList.size()), false, taskList);
+		if (CmdParameters.PARAM_VALUE_LIST_NEXT.equals(optionalParameter)) {
+			return listNextPage();
+		}
+		_lastPage = proccessParameter(optionalParameter);
+		return new CommandAction(getPageMsg(MSG_TOTAL_TASK, _lastPage), false, _lastPage);
+		//@@author A0125574A
 
 	}
 
@@ -65,7 +85,9 @@ public class CmdList extends Command {
 
 	@Override
 	public String[] getOptionalFields() {
-		return new String[] { CmdParameters.PARAM_NAME_LIST_FLAG, CmdParameters.PARAM_NAME_TASK_PRIORITY };
+		return new String[] { CmdParameters.PARAM_NAME_LIST_FLAG, CmdParameters.PARAM_NAME_TASK_PRIORITY,
+				CmdParameters.PARAM_NAME_LIST_DUEFROM, CmdParameters.PARAM_NAME_LIST_DUEBY,
+				CmdParameters.PARAM_NAME_TASK_SNAME };
 	}
 
 	/**
@@ -76,7 +98,8 @@ public class CmdList extends Command {
 	@Override
 	public String getHelpInfo() {
 		return String.format(HELP_INFO_LIST, ParserConstants.TASK_FILTER_ALL, ParserConstants.TASK_FILTER_DONE,
-				ParserConstants.TASK_SPECIFIER_PRIORITY);
+				ParserConstants.TASK_FILTER_NEXT, ParserConstants.TASK_SPECIFIER_PRIORITY, ParserConstants.TASK_SPECIFIER_DUEFROM,
+				ParserConstants.TASK_SPECIFIER_DUEBY, ParserConstants.TASK_SPECIFIER_TASKNAME);
 	}
 
 	/**
@@ -95,37 +118,17 @@ public class CmdList extends Command {
 	}
 
 	/**
-	 * Returns a list of undone {@code Task}
-	 * 
-	 * @return a list of undone {@code Task}
-	 */
-	private List<Task> getUndoneTask() {
-		assert _taskTree != null;
-		return _taskTree.searchFlag(FLAG_TYPE.NULL);
-	}
-
-	/**
-	 * Returns a list of completed {@code Task}
-	 * 
-	 * @return a list of completed {@code Task}
-	 */
-	private List<Task> getDoneTask() {
-		assert _taskTree != null;
-		return _taskTree.searchFlag(FLAG_TYPE.DONE);
-	}
-
-	/**
-	 * Returns a list of {@code Task} with specified priority
+	 * Returns the priority type of a priority parameter
 	 * 
 	 * @param priority
-	 *            priority type to be listed
+	 *            priority parameter to be converted
 	 * 
-	 * @return a list of {@code Task} with specified priority
+	 * @return the priority type, or null if no priority is given
 	 */
-	private List<Task> getPriorityTask(String priority) {
+	private PRIORITY_TYPE getPriorityType(String priority) {
 
 		if (priority == null) {
-			priority = "";
+			return null;
 		}
 		PRIORITY_TYPE priorityType;
 		switch (priority) {
@@ -143,55 +146,109 @@ public class CmdList extends Command {
 				break;
 		}
 
-		assert _taskTree != null;
-		return _taskTree.searchPriority(priorityType);
+		return priorityType;
+
+	}
 
+	//@@author A0076510M
+	/**
+	 * @return true if archived tasks are listed with the given list flag
+	 */
+	private static boolean isArchiveListed(String parameter) {
+		return CmdParameters.PARAM_VALUE_LIST_ALL.equals(parameter)
+				|| CmdParameters.PARAM_VALUE_LIST_DONE.equals(parameter);
 	}
 
 	/**
-	 * Returns a list of all existing {@code Task}
+	 * Forgets the page last listed, so that no next page is listed from it,
+	 * such as once the tasks have new IDs which the page no longer matches
+	 */
+	static void clearLastPage() {
+		_lastPage = null;
+	}
+
+	/**
+	 * Lists the tasks following the page last listed, with the same
+	 * parameters
 	 * 
-	 * @return a list of all existing {@code Task}
+	 * @return a CommandAction
 	 */
-	private List<Task> getAllTask() {
-		assert _taskTree != null;
-		return _taskTree.getList();
+	private CommandAction listNextPage() {
+		if (_lastPage == null || !_lastPage.hasMore()) {
+			return new CommandAction(MSG_NO_MORE_TASK, false, null);
+		}
+
+		_lastPage = _taskTree.getNextPage(_lastPage);
+		if (_lastPage.isEmpty()) {
+			return new CommandAction(MSG_NO_MORE_TASK, false, null);
+		}
+		return new CommandAction(getPageMsg(MSG_LAST_TASK, _lastPage), false, _lastPage);
 	}
 
 	/**
-	 * Process given parameter and return a list of {@code Task} based on the
-	 * given parameter
+	 * Returns the message of a page of tasks, which asks for the next page if
+	 * more tasks follow
+	 * 
+	 * @param lastMsg
+	 *            message if no more tasks follow
+	 * @param taskPage
+	 *            page of tasks listed
+	 * 
+	 * @return the message of the page
+	 */
+	private String getPageMsg(String lastMsg, TaskPage taskPage) {
+		if (taskPage.hasMore()) {
+			return String.format(MSG_MORE_TASK, taskPage.size(), ParserConstants.TASK_FILTER_NEXT);
+		}
+		return String.format(lastMsg, taskPage.size());
+	}
+
+	/**
+	 * Process given parameters and return the first page of {@code Task}
+	 * meeting all of them, in the order they are created. Undone tasks are
+	 * listed unless all or done tasks are asked for, which includes archived
+	 * ones.
 	 * 
 	 * @param parameter
-	 *            parameter to be processed
+	 *            list flag to be processed
 	 * 
-	 * @return a list of {@code Task} based on given parameter
+	 * @return the first page of {@code Task} based on given parameters
 	 */
-	private List<Task> proccessParameter(String parameter) {
+	private TaskPage proccessParameter(String parameter) {
 
 		if (parameter == null) {
 			parameter = "";
 		}
 
-		List<Task> taskList;
+		TaskQuery query = new TaskQuery();
 
 		switch (parameter) {
 			case CmdParameters.PARAM_VALUE_LIST_ALL:
-				taskList = getAllTask();
+				_taskTree.pullArchivedTasks();
 				break;
 			case CmdParameters.PARAM_VALUE_LIST_DONE:
-				taskList = getDoneTask();
-				break;
-			case CmdParameters.PARAM_VALUE_LIST_PRIORITY:
-				String paramPriority = getParameterValue(CmdParameters.PARAM_NAME_TASK_PRIORITY);
-				taskList = getPriorityTask(paramPriority);
+				_taskTree.pullArchivedTasks();
+				query.setFlag(FLAG_TYPE.DONE);
 				break;
 			default:
-				taskList = getUndoneTask();
+				query.setFlag(FLAG_TYPE.NULL);
 				break;
 		}
 
-		return taskList;
+		query.setPriority(getPriorityType(getParameterValue(CmdParameters.PARAM_NAME_TASK_PRIORITY)));
+		query.setNameTerm(getParameterValue(CmdParameters.PARAM_NAME_TASK_SNAME));
+
+		// Tasks whose end time is from the due from time to the due by time
+		String fromTime = getParameterValue(CmdParameters.PARAM_NAME_LIST_DUEFROM);
+		String toTime = getParameterValue(CmdParameters.PARAM_NAME_LIST_DUEBY);
+		if (fromTime != null || toTime != null) {
+			long fromTimeL = fromTime == null ? Task.DATE_START : TimeUtil.sysStringToLongTime(fromTime);
+			long toTimeL = toTime == null ? Long.MAX_VALUE : TimeUtil.sysStringToLongTime(toTime);
+			query.setEndTimeRange(fromTimeL, toTimeL);
+		}
+
+		assert _taskTree != null;
+		return _taskTree.getFirstPage(TYPE.ID, query, LIST_PAGE_SIZE);
 	}
 
 }
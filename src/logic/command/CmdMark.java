@@ -184,11 +184,11 @@ public class CmdMark extends Command {
 
 		if (isMarked(task)) {
 			return new CommandAction(String.format(MSG_TASKALREADYMARKED, _task.getName()), false,
-					_taskTree.searchFlag(FLAG_TYPE.NULL));
+					getNextDueTasks());
 		} else {
 			_taskTree.updateFlag(task, FLAG_TYPE.DONE);
 			return new CommandAction(String.format(MSG_TASKMARKED, task.getName()), true,
-					_taskTree.searchFlag(FLAG_TYPE.NULL));
+					getNextDueTasks());
 		}
 	}
 
@@ -206,11 +206,11 @@ public class CmdMark extends Command {
 		if (isMarked(task)) {
 			_taskTree.updateFlag(task, FLAG_TYPE.NULL);
 			return new CommandAction(String.format(MSG_TASKUNMARKED, task.getName()), true,
-					_taskTree.searchFlag(FLAG_TYPE.NULL));
+					getNextDueTasks());
 		} else {
 
 			return new CommandAction(String.format(MSG_TASKALREADYUNMARKED, _task.getName()), false,
-					_taskTree.searchFlag(FLAG_TYPE.NULL));
+					getNextDueTasks());
 		}
 	}
 
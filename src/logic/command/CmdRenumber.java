@@ -0,0 +1,71 @@
+//@@author A0076510M
+
+/**
+ * Command to give all {@code Task} new ids in the order they were created,
+ * starting from 0
+ */
+
+package logic.command;
+
+public class CmdRenumber extends Command {
+
+	/*
+	 * Constants
+	 */
+	// Message constants
+	private static final String MSG_RENUMBERED = "Renumbered tasks in list: [%1$s]";
+	private static final String MSG_RENUMBER_FAILED = "Tasks renumbered but could not be saved";
+
+	// Help Info (renumber takes no parameters)
+	private static final String HELP_INFO_RENUMBER = "";
+
+	public CmdRenumber() {
+
+	}
+
+	/**
+	 * Renumbers all tasks and saves them. Commands executed before refer to
+	 * the old ids, so they can no longer be undone.
+	 *
+	 * @return a CommandAction
+	 */
+	@Override
+	public CommandAction execute() {
+		boolean isSaved = _taskTree.renumber();
+		clearHistory();
+		// The last page listed continues from an old ID
+		CmdList.clearLastPage();
+
+		if (!isSaved) {
+			return new CommandAction(MSG_RENUMBER_FAILED, false, getNextDueTasks());
+		}
+		return new CommandAction(String.format(MSG_RENUMBERED, _taskTree.size()), false, getNextDueTasks());
+	}
+
+	@Override
+	public CommandAction undo() {
+		// do nothing (Renumber should not have undo)
+		return null;
+	}
+
+	@Override
+	public String[] getRequiredFields() {
+		return new String[] {};
+	}
+
+	@Override
+	public String[] getOptionalFields() {
+		return new String[] {};
+	}
+
+	/**
+	 * Returns a syntax message for renumber command
+	 *
+	 * @return a syntax message for renumber command
+	 */
+	@Override
+	public String getHelpInfo() {
+		return HELP_INFO_RENUMBER;
+	}
+
+}
@@ -9,6 +9,7 @@ package logic.command;
 import java.util.List;
 
 import constants.CmdParameters;
+import parser.ParserConstants;
 
 import taskCollections.Task;
 
@@ -20,6 +21,10 @@ public class CmdSearch extends Command {
 	// Message constants
 	private static final String MSG_KEYWORD_UNSPECIFIED = "Please specify a keyword to search";
 	private static final String MSG_KEYWORD_NOTFOUND = "Specified keyword \"%1$s\" not found";
+	//@@author A0076510M
+	private static final String MSG_KEYWORD_NOTFOUND_ARCHIVE = MSG_KEYWORD_NOTFOUND
+			+ ", enter \"list %2$s %3$s %1$s\" to search archived tasks as well";
+	//@@author A0125574A
 	private static final String MSG_TASKFOUND = "Task \"%1$s\" found";
 	private static final String MSG_ISNTANCEFOUND = "[%1$s] instances of \"%2$s\" found";
 
@@ -102,8 +107,11 @@ public class CmdSearch extends Command {
 		return new CommandAction(outputMsg, false, taskList);
 	}
 
+	//@@author A0076510M
 	/**
-	 * Returns a List of {@code Task} with task name containing the keyword
+	 * Returns a List of {@code Task} with task name containing the keyword.
+	 * Archived tasks are never searched, even once they are listed, so that
+	 * searching does not read the archive of the task file.
 	 * 
 	 * @param keyword
 	 *            keyword to be searched
@@ -112,9 +120,13 @@ public class CmdSearch extends Command {
 	 */
 	private List<Task> getTaskList(String keyword) {
 		assert keyword != null && !keyword.equals("");
-		return _taskTree.searchName(keyword);
+		List<Task> taskList = _taskTree.searchName(keyword);
+		taskList.removeIf(task -> _taskTree.isArchived(task));
+		return taskList;
 	}
 
+	//@@author A0125574A
+
 	/**
 	 * Returns an appropriate output message based on size of given taskList
 	 * 
@@ -129,7 +141,8 @@ public class CmdSearch extends Command {
 
 		// Case 1 : List isEmpty
 		if (taskList.isEmpty()) {
-			return String.format(MSG_KEYWORD_NOTFOUND, _keyword);
+			return String.format(MSG_KEYWORD_NOTFOUND_ARCHIVE, _keyword, ParserConstants.TASK_FILTER_ALL,
+					ParserConstants.TASK_SPECIFIER_TASKNAME);
 		}
 
 		// Case 2 : List.size > 1 (Since ID is unique)
@@ -14,7 +14,6 @@ import constants.CmdParameters;
 import parser.ParserConstants;
 
 import taskCollections.Task;
-import taskCollections.Task.FLAG_TYPE;
 import taskCollections.Task.PRIORITY_TYPE;
 
 import logger.LogHandler;
@@ -390,7 +389,12 @@ public class CmdUpdate extends Command {
 		_taskTree.updateEndTime(task, newEndTime);
 		_taskTree.updatePriority(task, newPriority);
 
-		return new CommandAction(String.format(MSG_TASKUPDATED, _taskID), true, _taskTree.searchFlag(FLAG_TYPE.NULL));
+		String outputMsg = String.format(MSG_TASKUPDATED, _taskID);
+		// Report conflicts only when the task was given a new time
+		if (newStartTime != _prevStartTime || newEndTime != _prevEndTime) {
+			outputMsg += getConflictMsg(task);
+		}
+		return new CommandAction(outputMsg, true, getNextDueTasks());
 	}
 
 }
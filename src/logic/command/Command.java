@@ -9,13 +9,26 @@
 package logic.command;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Stack;
+import java.util.StringJoiner;
 
 import taskCollections.Task;
 import taskCollections.TaskTree;
 
 public abstract class Command {
 
+//@@author A0076510M
+	/*
+	 * Constants
+	 */
+	private static final String MSG_CONFLICTS = " (conflicts with ID: %1$s)";
+	private static final String MSG_MORE_CONFLICTS = " and %1$s more";
+	private static final String CONFLICT_DELIMITER = ", ";
+	private static final int MAX_CONFLICTS_SHOWN = 5;
+	private static final int NEXT_DUE_COUNT = 50;
+
+//@@author A0125496X
 	/*
 	 * List of data structures to be used by command and its subclasses
 	 */
@@ -125,7 +138,51 @@ public abstract class Command {
 		}							
 	}
 
+	/**
+	 * Removes all commands from the list of history, so that none of them can be
+	 * undone
+	 */
+	protected static void clearHistory(){
+		history.clear();
+	}
+
 	public static void init(){
 		_taskTree = TaskTree.getTaskTree();
 	}
+
+//@@author A0076510M
+	/**
+	 * Returns a message listing the IDs of the pending tasks whose time
+	 * overlaps the time of a task, to be added to the output of a command
+	 * @param t
+	 * 				The task which was added or given a new time
+	 * @return The message, empty if the task conflicts with no task
+	 */
+	protected static String getConflictMsg(Task t){
+		List<Task> conflicts = _taskTree.queryConflicts(t);
+		if (conflicts.isEmpty()) {
+			return "";
+		}
+
+		StringJoiner ids = new StringJoiner(CONFLICT_DELIMITER);
+		for (int i = 0; i < conflicts.size() && i < MAX_CONFLICTS_SHOWN; i++) {
+			ids.add(Integer.toString(conflicts.get(i).getId()));
+		}
+		String idList = ids.toString();
+		if (conflicts.size() > MAX_CONFLICTS_SHOWN) {
+			idList += String.format(MSG_MORE_CONFLICTS, conflicts.size() - MAX_CONFLICTS_SHOWN);
+		}
+		return String.format(MSG_CONFLICTS, idList);
+	}
+
+	/**
+	 * Returns the pending tasks to be done next, to be displayed after a
+	 * command changes a task. Only about as many tasks as are displayed are
+	 * read, however many there are.
+	 * @return The pending tasks due soonest, then the floating tasks of the
+	 * 				highest priority
+	 */
+	protected static List<Task> getNextDueTasks(){
+		return _taskTree.nextDue(NEXT_DUE_COUNT);
+	}
 }
@@ -22,9 +22,11 @@ public class CommandProcessor {
 	public static final String CONFIG_CMD_ADD = "add";
 	public static final String CONFIG_CMD_DELETE = "delete";
 	public static final String CONFIG_CMD_EXIT = "exit";
+	public static final String CONFIG_CMD_FREE = "free";
 	public static final String CONFIG_CMD_HELP = "help";
 	public static final String CONFIG_CMD_LIST = "list";
 	public static final String CONFIG_CMD_MARK = "mark";
+	public static final String CONFIG_CMD_RENUMBER = "renumber";
 	public static final String CONFIG_CMD_SEARCH = "search";
 	public static final String CONFIG_CMD_UNDO = "undo";
 	public static final String CONFIG_CMD_UPDATE = "update";
@@ -92,12 +94,16 @@ public class CommandProcessor {
 				return new CmdDelete();
 			case CONFIG_CMD_EXIT:
 				return new CmdExit();
+			case CONFIG_CMD_FREE:
+				return new CmdFree();
 			case CONFIG_CMD_HELP:
 				return new CmdHelp();
 			case CONFIG_CMD_LIST:
 				return new CmdList();
 			case CONFIG_CMD_MARK:
 				return new CmdMark();
+			case CONFIG_CMD_RENUMBER:
+				return new CmdRenumber();
 			case CONFIG_CMD_SEARCH:
 				return new CmdSearch();
 			case CONFIG_CMD_UNDO:
@@ -117,9 +123,11 @@ public class CommandProcessor {
 		cmdTable.put(CONFIG_CMD_DELETE, CONFIG_CMD_DELETE);
 		cmdTable.put(CONFIG_CMD_ADD, CONFIG_CMD_ADD);
 		cmdTable.put(CONFIG_CMD_EXIT, CONFIG_CMD_EXIT);
+		cmdTable.put(CONFIG_CMD_FREE, CONFIG_CMD_FREE);
 		cmdTable.put(CONFIG_CMD_HELP, CONFIG_CMD_HELP);
 		cmdTable.put(CONFIG_CMD_LIST, CONFIG_CMD_LIST);
 		cmdTable.put(CONFIG_CMD_MARK, CONFIG_CMD_MARK);
+		cmdTable.put(CONFIG_CMD_RENUMBER, CONFIG_CMD_RENUMBER);
 		cmdTable.put(CONFIG_CMD_SEARCH, CONFIG_CMD_SEARCH);
 		cmdTable.put(CONFIG_CMD_UNDO, CONFIG_CMD_UNDO);
 		cmdTable.put(CONFIG_CMD_UPDATE, CONFIG_CMD_UPDATE);
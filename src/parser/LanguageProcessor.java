@@ -120,6 +120,30 @@ public class LanguageProcessor {
 		return null; // Unable to find task ID
 	}
 
+	//@@author A0076510M
+	/**
+	 * Extracts the duration in minutes from an input, which is the first word
+	 * in the parameters
+	 * 
+	 * @param userCmd
+	 *            The string to extract from
+	 * @return The extracted duration
+	 */
+	private String getDuration(String userCmd) {
+		String duration = StringUtil.getFirstWord(userCmd);
+
+		if (duration != null) { // Duration is found
+			try {
+				// Only a positive number of minutes is a duration
+				return Integer.parseInt(duration) > 0 ? duration : FIELD_INVALID;
+			} catch (NumberFormatException e) {
+				return FIELD_INVALID; // This field is invalid for sure
+			}
+		}
+		return null; // Unable to find duration
+	}
+
+	//@@author A0125496X
 	/**
 	 * Extracts the search term from an input, which is the entire parameter
 	 * 
@@ -216,6 +240,7 @@ public class LanguageProcessor {
 		}
 	}
 
+	//@@author A0076510M
 	/**
 	 * Get the list flags
 	 * @param userCmd
@@ -225,20 +250,46 @@ public class LanguageProcessor {
 	private String getListOption(String userCmd) {
 		String flag = StringUtil.getFirstWord(userCmd);
 
+		// Words must follow a flag which takes them
 		if (flag == null || flag.isEmpty()) {
 			return null;
-		} else if (StringUtil.getStringAfter(userCmd, flag, "") != null) {
+		} else if (StringUtil.getStringAfter(userCmd, "", REGEX_LIMIT) != null) {
 			return FIELD_INVALID;
 		} else if (flag.equals(ParserConstants.TASK_FILTER_ALL)) {
-			return CmdParameters.PARAM_VALUE_LIST_ALL;
+			return getListFlag(userCmd, flag, CmdParameters.PARAM_VALUE_LIST_ALL);
 		} else if (flag.equals(ParserConstants.TASK_FILTER_DONE)) {
-			return CmdParameters.PARAM_VALUE_LIST_DONE;
-		} else if (flag.equals(ParserConstants.TASK_SPECIFIER_PRIORITY)) {
-			return CmdParameters.PARAM_VALUE_LIST_PRIORITY;
+			return getListFlag(userCmd, flag, CmdParameters.PARAM_VALUE_LIST_DONE);
+		} else if (flag.equals(ParserConstants.TASK_FILTER_NEXT)) {
+			return getListFlag(userCmd, flag, CmdParameters.PARAM_VALUE_LIST_NEXT);
 		} else {
+			return null; // Only filtered by the other flags
+		}
+	}
+
+	/**
+	 * Returns the list flag, unless words follow it
+	 */
+	private String getListFlag(String userCmd, String flag, String listFlag) {
+		if (StringUtil.getStringAfter(userCmd, flag, REGEX_LIMIT) != null) {
 			return FIELD_INVALID;
 		}
+		return listFlag;
+	}
+
+	/**
+	 * Extracts the time of a due time flag of the list command, which is the
+	 * string after the flag to the next flag
+	 * @param userCmd
+	 * 			The string to extract from
+	 * @param flag
+	 * 			The due time flag
+	 * @return The extracted time
+	 */
+	private String getDueTime(String userCmd, String flag) {
+		userCmd = StringUtil.getStringAfter(userCmd, flag, REGEX_LIMIT);
+		return StringUtil.trim(userCmd);
 	}
+	//@@author A0125496X
 
 	/**
 	 * Resolves a user input command to a command instance
@@ -360,6 +411,17 @@ public class LanguageProcessor {
 			case CmdParameters.PARAM_NAME_LIST_FLAG:
 				paramValue = getListOption(fullParam);
 				break;
+			//@@author A0076510M
+			case CmdParameters.PARAM_NAME_FREE_DURATION:
+				paramValue = getDuration(fullParam);
+				break;
+			case CmdParameters.PARAM_NAME_LIST_DUEFROM:
+				paramValue = resolveTime(getDueTime(fullParam, ParserConstants.TASK_SPECIFIER_DUEFROM));
+				break;
+			case CmdParameters.PARAM_NAME_LIST_DUEBY:
+				paramValue = resolveTime(getDueTime(fullParam, ParserConstants.TASK_SPECIFIER_DUEBY));
+				break;
+			//@@author A0125496X
 		}
 
 		return paramValue;
@@ -403,9 +465,18 @@ public class LanguageProcessor {
 			case CmdParameters.PARAM_NAME_TASK_PRIORITY:
 				return new String[] { ParserConstants.TASK_SPECIFIER_PRIORITY };
 			case CmdParameters.PARAM_NAME_LIST_FLAG:
-				return new String[] { ParserConstants.TASK_FILTER_ALL, ParserConstants.TASK_FILTER_DONE };
+				//@@author A0076510M
+				return new String[] { ParserConstants.TASK_FILTER_ALL, ParserConstants.TASK_FILTER_DONE,
+						ParserConstants.TASK_FILTER_NEXT };
+				//@@author A0125496X
 			case CmdParameters.PARAM_NAME_MARK_FLAG:
 				return new String[] { ParserConstants.TASK_MARK_UNMARK };
+			//@@author A0076510M
+			case CmdParameters.PARAM_NAME_LIST_DUEFROM:
+				return new String[] { ParserConstants.TASK_SPECIFIER_DUEFROM };
+			case CmdParameters.PARAM_NAME_LIST_DUEBY:
+				return new String[] { ParserConstants.TASK_SPECIFIER_DUEBY };
+			//@@author A0125496X
 		}
 
 		return null;
@@ -22,6 +22,12 @@ public class ParserConstants {
 		public static final String TASK_SETTING_OPENFILE = DELIMITER_TOKEN + "of";
 		
 		public static final String TASK_MARK_UNMARK = DELIMITER_TOKEN + "um";
+
+//@@author A0076510M
+		public static final String TASK_SPECIFIER_DUEFROM = DELIMITER_TOKEN + "from";
+		public static final String TASK_SPECIFIER_DUEBY = DELIMITER_TOKEN + "by";
+		public static final String TASK_FILTER_NEXT = DELIMITER_TOKEN + "next";
+//@@author A0125496X
 		
 		public static final String[] TASK_PRIORITY_HIGH = {"high","h"};
 		public static final String[] TASK_PRIORITY_NORM = {"norm","normal","n"};
@@ -0,0 +1,155 @@
+//@@author A0076510M
+package storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.logging.Level;
+
+import logger.LogHandler;
+import taskCollections.Task;
+
+/**
+ * Provides read-only access to the records of a version 2 binary snapshot.
+ * A task is only decoded when it is requested, so opening a snapshot that
+ * was mapped into memory only touches the pages holding the header, and
+ * each later request touches the pages of one record and its name.
+ *
+ * Every call to {@code get} returns a new {@code Task} object.
+ * @author Zandercx
+ */
+
+public class MappedTaskSnapshot extends AbstractList<Task> implements RandomAccess {
+
+	private static final int OFFSET_ID = 0;
+	private static final int OFFSET_START_TIME = 4;
+	private static final int OFFSET_END_TIME = 12;
+	private static final int OFFSET_PACKED = 20;
+	private static final int OFFSET_NAME = 21;
+	private static final int OFFSET_NAME_LENGTH = 25;
+
+	private static final String EXCEPTION_IO = "IO Exception: %1$s";
+	private static final String MSG_INVALID = "Invalid binary task file: %1$s";
+	private static final String MSG_MAPPED = "Mapped %1$s tasks from %2$s.";
+
+	private ByteBuffer _records;
+	private int _size;
+	private int _nameArea;
+	private String _generation;
+
+	/**
+	 * @param records
+	 * 		buffer starting at the first record of the snapshot
+	 * @param size
+	 * 		number of records
+	 */
+	MappedTaskSnapshot(ByteBuffer records, int size) {
+		if (size < 0 || (long) size * TaskBinaryWriter.RECORD_SIZE > records.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		_records = records;
+		_size = size;
+		_nameArea = size * TaskBinaryWriter.RECORD_SIZE;
+		_generation = "";
+	}
+
+	/**
+	 * Maps a version 2 binary snapshot into memory
+	 * @return
+	 * 		the snapshot, null if the file could not be mapped or is invalid
+	 */
+	public static MappedTaskSnapshot open(File file) {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					(String.format(EXCEPTION_IO, e)));
+			return null;
+		}
+
+		try {
+			if (buffer.getInt() != TaskBinaryWriter.MAGIC
+					|| buffer.getShort() != TaskBinaryWriter.VERSION) {
+				LogHandler.getLog().log(Level.SEVERE, String.format(MSG_INVALID, file));
+				return null;
+			}
+			String generation = TaskBinaryReader.readString(buffer);
+			int size = buffer.getInt();
+
+			MappedTaskSnapshot snapshot = new MappedTaskSnapshot(buffer.slice(), size);
+			snapshot._generation = generation;
+			LogHandler.getLog().log(Level.INFO, String.format(MSG_MAPPED, size, file));
+			return snapshot;
+		} catch (BufferUnderflowException e) {
+			LogHandler.getLog().log(Level.SEVERE, String.format(MSG_INVALID, file));
+			return null;
+		}
+	}
+
+	/**
+	 * Decodes the task stored in a record. A corrupt record is reported 
+	 * apart from a missing one, as a list iterated by a stream reports 
+	 * the latter as a concurrent modification.
+	 * @param index
+	 * 		position of the record in the snapshot
+	 * @throws IndexOutOfBoundsException
+	 * 		if there is no such record
+	 * @throws BufferUnderflowException
+	 * 		if the record points outside the file or holds no valid flag 
+	 * 		and priority
+	 */
+	@Override
+	public Task get(int index) {
+		if (index < 0 || index >= _size) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+
+		int record = index * TaskBinaryWriter.RECORD_SIZE;
+		int id = _records.getInt(record + OFFSET_ID);
+		long startTime = _records.getLong(record + OFFSET_START_TIME);
+		long endTime = _records.getLong(record + OFFSET_END_TIME);
+		int packed = _records.get(record + OFFSET_PACKED);
+		int nameOffset = _records.getInt(record + OFFSET_NAME);
+		int nameLength = _records.getInt(record + OFFSET_NAME_LENGTH);
+
+		try {
+			return new Task(id, readName(nameOffset, nameLength), startTime, endTime,
+					TaskBinaryReader.unpackFlag(packed), TaskBinaryReader.unpackPriority(packed));
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new BufferUnderflowException();
+		}
+	}
+
+	@Override
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * @return generation of the journal the file belongs to, empty if none
+	 */
+	public String getGeneration() {
+		return _generation;
+	}
+
+	private String readName(int offset, int length) {
+		if (offset < 0 || length < 0
+				|| (long) _nameArea + offset + length > _records.limit()) {
+			throw new BufferUnderflowException();
+		}
+
+		byte[] bytes = new byte[length];
+		ByteBuffer name = _records.duplicate();
+		name.position(_nameArea + offset);
+		name.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,130 @@
+//@@author A0076510M
+package storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import taskCollections.Task;
+
+/**
+ * Keeps tasks in memory only, so that nothing is read from or written to
+ * disk. Used to measure and test the task collections without any file
+ * access.
+ * @author Zandercx
+ */
+
+public class MemoryTaskStore implements TaskStore {
+
+	private LinkedHashMap<Integer, Task> _tasks;
+	private LinkedHashMap<Integer, Task> _archivedTasks;
+
+	public MemoryTaskStore() {
+		_tasks = new LinkedHashMap<>();
+		_archivedTasks = new LinkedHashMap<>();
+	}
+
+	/**
+	 * @param tasks
+	 * 		tasks the store starts with
+	 */
+	public MemoryTaskStore(Collection<Task> tasks) {
+		this();
+		replaceTasks(tasks);
+	}
+
+	/**
+	 * Keeps the tasks the store started with, as there is no file to load
+	 * @return
+	 * 		true
+	 */
+	@Override
+	public boolean loadTaskFile(String fileName) {
+		return true;
+	}
+
+	@Override
+	public List<Task> retrieveTasks() {
+		return new ArrayList<>(_tasks.values());
+	}
+
+	@Override
+	public boolean add(Task t) {
+		assert t != null;
+
+		_tasks.put(t.getId(), t);
+		return true;
+	}
+
+	@Override
+	public boolean delete(int id) {
+		return _tasks.remove(id) != null || _archivedTasks.remove(id) != null;
+	}
+
+	@Override
+	public boolean update(Task t) {
+		assert t != null;
+
+		if (_archivedTasks.remove(t.getId()) != null) {
+			_tasks.put(t.getId(), t);
+			return true;
+		}
+		return _tasks.replace(t.getId(), t) != null;
+	}
+
+	@Override
+	public boolean replaceTasks(Collection<Task> tasks) {
+		assert tasks != null;
+
+		_tasks.clear();
+		_archivedTasks.clear();
+		for (Task t : tasks) {
+			_tasks.put(t.getId(), t);
+		}
+		return true;
+	}
+
+	@Override
+	public void beginBatch() {
+	}
+
+	@Override
+	public boolean endBatch() {
+		return true;
+	}
+
+	@Override
+	public void copyTasks() {
+		for (Map.Entry<Integer, Task> entry : _tasks.entrySet()) {
+			entry.setValue(TaskFileHandler.copyTask(entry.getValue()));
+		}
+	}
+
+	@Override
+	public boolean reloadTaskFile() {
+		return true;
+	}
+
+	@Override
+	public boolean checkpointIfDue() {
+		return false;
+	}
+
+	@Override
+	public boolean archiveTasks(Collection<Task> tasks) {
+		assert tasks != null;
+
+		for (Task t : tasks) {
+			_tasks.remove(t.getId());
+			_archivedTasks.put(t.getId(), t);
+		}
+		return true;
+	}
+
+	@Override
+	public List<Task> retrieveArchivedTasks() {
+		return new ArrayList<>(_archivedTasks.values());
+	}
+}
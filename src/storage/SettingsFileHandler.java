@@ -14,7 +14,8 @@ import java.util.logging.Level;
 import logger.LogHandler;
 
 /**
- * Provides methods for retrieving and modifying the file path of tasks file.
+ * Provides methods for retrieving and modifying the file path of tasks file,
+ * and the kind of {@code TaskStore} which keeps it.
  * @author Zandercx
  */
 
@@ -22,6 +23,17 @@ public class SettingsFileHandler {
 
 	private static final String EMPTY_STRING = "";
 	private static final String FILE_PATH_TEXT = "FILE_PATH: ";
+	private static final String TASK_STORE_TEXT = "TASK_STORE: ";
+	private static final TaskStore.TYPE DEFAULT_TASK_STORE = TaskStore.TYPE.JOURNAL;
+	private static final String MSG_INVALID_TASK_STORE = "Unknown task store %1$s, using %2$s.";
+	private static final String ARCHIVE_DAYS_TEXT = "ARCHIVE_AFTER_DAYS: ";
+	private static final int DEFAULT_ARCHIVE_DAYS = 30;
+	private static final String MSG_INVALID_ARCHIVE_DAYS = "Invalid number of days %1$s to archive after, using %2$s.";
+	private static final String STORAGE_MODE_TEXT = "STORAGE_MODE: ";
+	private static final TaskStorageWriter.MODE DEFAULT_STORAGE_MODE = TaskStorageWriter.MODE.SYNC;
+	private static final String MSG_INVALID_STORAGE_MODE = "Unknown storage mode %1$s, using %2$s.";
+	private static final String COMMIT_INTERVAL_TEXT = "GROUP_COMMIT_INTERVAL: ";
+	private static final String MSG_INVALID_COMMIT_INTERVAL = "Invalid group commit interval %1$s, using %2$s.";
 	
 	private static final String EXCEPTION_FILENOTFOUND = "File Not Found Exception: %1$s";
 	private static final String EXCEPTION_IO = "IO Exception: %1$s";
@@ -29,6 +41,10 @@ public class SettingsFileHandler {
 	
 	private String _fileName = "settings.cfg";
 	private String _taskFileLocation;
+	private TaskStore.TYPE _taskStoreType = DEFAULT_TASK_STORE;
+	private int _archiveDays = DEFAULT_ARCHIVE_DAYS;
+	private TaskStorageWriter.MODE _storageMode = DEFAULT_STORAGE_MODE;
+	private long _commitInterval = TaskStorageWriter.GROUP_COMMIT_INTERVAL;
 	private File _settingsFile;
 	private static SettingsFileHandler s;
 
@@ -60,6 +76,7 @@ public class SettingsFileHandler {
 				if (input.contains(FILE_PATH_TEXT)) {
 					input = input.replace(FILE_PATH_TEXT, EMPTY_STRING);
 					_taskFileLocation = input;
+					readSettings(br);
 					br.close();
 					return true;
 				} else {
@@ -95,6 +112,10 @@ public class SettingsFileHandler {
 			PrintWriter pw = new PrintWriter(_fileName);
 			_taskFileLocation = taskFileLocation;
 			pw.println(FILE_PATH_TEXT + _taskFileLocation);
+			pw.println(TASK_STORE_TEXT + _taskStoreType);
+			pw.println(ARCHIVE_DAYS_TEXT + _archiveDays);
+			pw.println(STORAGE_MODE_TEXT + _storageMode);
+			pw.println(COMMIT_INTERVAL_TEXT + _commitInterval);
 			pw.close();
 			return true;
 		} catch (FileNotFoundException e) {
@@ -134,6 +155,108 @@ public class SettingsFileHandler {
 		}
 	}
 
+	/**
+	 * Reads the kind of task store, the age of done tasks to archive and when
+	 * changes are written from the lines after the file path
+	 */
+	private void readSettings(BufferedReader br) throws IOException {
+		String input;
+		while ((input = br.readLine()) != null) {
+			if (input.startsWith(TASK_STORE_TEXT)) {
+				readTaskStore(input.replace(TASK_STORE_TEXT, EMPTY_STRING).trim());
+			} else if (input.startsWith(ARCHIVE_DAYS_TEXT)) {
+				readArchiveDays(input.replace(ARCHIVE_DAYS_TEXT, EMPTY_STRING).trim());
+			} else if (input.startsWith(STORAGE_MODE_TEXT)) {
+				readStorageMode(input.replace(STORAGE_MODE_TEXT, EMPTY_STRING).trim());
+			} else if (input.startsWith(COMMIT_INTERVAL_TEXT)) {
+				readCommitInterval(input.replace(COMMIT_INTERVAL_TEXT, EMPTY_STRING).trim());
+			}
+		}
+	}
+
+	private void readTaskStore(String input) {
+		try {
+			_taskStoreType = TaskStore.TYPE.valueOf(input.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			LogHandler.getLog().log(Level.WARNING, 
+					String.format(MSG_INVALID_TASK_STORE, input, DEFAULT_TASK_STORE));
+			_taskStoreType = DEFAULT_TASK_STORE;
+		}
+	}
+
+	private void readArchiveDays(String input) {
+		try {
+			_archiveDays = Math.max(0, Integer.parseInt(input));
+		} catch (NumberFormatException e) {
+			LogHandler.getLog().log(Level.WARNING, 
+					String.format(MSG_INVALID_ARCHIVE_DAYS, input, DEFAULT_ARCHIVE_DAYS));
+			_archiveDays = DEFAULT_ARCHIVE_DAYS;
+		}
+	}
+
+	private void readStorageMode(String input) {
+		try {
+			_storageMode = TaskStorageWriter.MODE.valueOf(input.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			LogHandler.getLog().log(Level.WARNING, 
+					String.format(MSG_INVALID_STORAGE_MODE, input, DEFAULT_STORAGE_MODE));
+			_storageMode = DEFAULT_STORAGE_MODE;
+		}
+	}
+
+	private void readCommitInterval(String input) {
+		try {
+			_commitInterval = Math.max(0, Long.parseLong(input));
+		} catch (NumberFormatException e) {
+			LogHandler.getLog().log(Level.WARNING, 
+					String.format(MSG_INVALID_COMMIT_INTERVAL, input, TaskStorageWriter.GROUP_COMMIT_INTERVAL));
+			_commitInterval = TaskStorageWriter.GROUP_COMMIT_INTERVAL;
+		}
+	}
+
+	/**
+	 * Get the kind of task store set in the settings file
+	 * @return 
+	 * 		kind of task store, the journal if none is set
+	 */
+	public TaskStore.TYPE getTaskStoreType() {
+		return _taskStoreType;
+	}
+
+	/**
+	 * Get the number of days after which done tasks are archived, set in the
+	 * settings file
+	 * @return 
+	 * 		number of days after the end of a done task, 30 if none is set, 
+	 * 		or 0 if done tasks are never archived
+	 */
+	public int getArchiveDays() {
+		return _archiveDays;
+	}
+
+	/**
+	 * Get when changes are written to the task file, set in the settings
+	 * file. In SYNC mode, the default, each command waits for its change to
+	 * be written and reports a failed write at once. ASYNC and GROUP_COMMIT
+	 * modes have to be set to be used, as commands return before their
+	 * change is written, so a failed write is only found out afterwards.
+	 * @return 
+	 * 		storage mode, SYNC if none is set
+	 */
+	public TaskStorageWriter.MODE getStorageMode() {
+		return _storageMode;
+	}
+
+	/**
+	 * Get the milliseconds changes are collected for before being written
+	 * in GROUP_COMMIT mode, set in the settings file
+	 * @return 
+	 * 		group commit interval, 50 if none is set
+	 */
+	public long getCommitInterval() {
+		return _commitInterval;
+	}
+
 	private boolean taskFileCheck() {
 		File taskFile = new File(_taskFileLocation);
 		return (taskFile.exists());
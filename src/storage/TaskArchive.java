@@ -0,0 +1,256 @@
+//@@author A0076510M
+package storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import logger.LogHandler;
+import taskCollections.Task;
+import util.IntHashMap;
+
+/**
+ * Keeps tasks which are no longer part of the tasks file in a compressed
+ * file next to it, so that they are neither loaded nor written with the
+ * tasks file. The archive is only read when its tasks are requested.
+ *
+ * Layout, compressed with gzip, all numbers big-endian:
+ * <pre>
+ * int    magic "TBAR"
+ * short  version
+ * int    id after the highest id ever archived
+ * int    number of tasks
+ * per task:
+ *   int  id
+ *   long start time
+ *   long end time
+ *   byte flag in the high four bits, priority in the low four bits
+ *   int  length of name, followed by its UTF-8 bytes
+ * </pre>
+ * @author Zandercx
+ */
+
+public class TaskArchive {
+
+	static final int MAGIC = 0x54424152;
+	static final short VERSION = 1;
+
+	private static final String ARCHIVE_EXTENSION = ".archive.gz";
+	private static final String TEMP_EXTENSION = ".tmp";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final String EXCEPTION_IO = "IO Exception: %1$s";
+	private static final String MSG_INVALID = "Invalid task archive: %1$s";
+
+	private File _file;
+
+	/**
+	 * @param taskFileName
+	 * 		name of the tasks file the archive belongs to
+	 */
+	public TaskArchive(String taskFileName) {
+		assert taskFileName != null;
+
+		_file = new File(taskFileName + ARCHIVE_EXTENSION);
+	}
+
+	public File getFile() {
+		return _file;
+	}
+
+	public boolean exists() {
+		return _file.exists();
+	}
+
+	/**
+	 * Reads only the start of the archive
+	 * @return
+	 * 		id after the highest id ever archived, 0 if there is no archive
+	 * 		or it cannot be read
+	 */
+	public int readNextId() {
+		if (!exists()) {
+			return 0;
+		}
+
+		try (DataInputStream in = openInput()) {
+			return readHeader(in);
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			return 0;
+		}
+	}
+
+	/**
+	 * Reads all archived tasks
+	 * @return
+	 * 		archived tasks, empty if there is no archive, null if reading
+	 * 		failed
+	 */
+	public ArrayList<Task> read() {
+		if (!exists()) {
+			return new ArrayList<>();
+		}
+
+		try (DataInputStream in = openInput()) {
+			readHeader(in);
+			int count = in.readInt();
+			ArrayList<Task> tasks = new ArrayList<>(count);
+
+			for (int i = 0; i < count; i++) {
+				int id = in.readInt();
+				long startTime = in.readLong();
+				long endTime = in.readLong();
+				int packed = in.readByte();
+				byte[] name = new byte[in.readInt()];
+				in.readFully(name);
+
+				tasks.add(new Task(id, new String(name, StandardCharsets.UTF_8), startTime, endTime,
+						TaskBinaryReader.unpackFlag(packed), TaskBinaryReader.unpackPriority(packed)));
+			}
+			return tasks;
+		} catch (IOException | RuntimeException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			return null;
+		}
+	}
+
+	/**
+	 * Adds tasks to the archive, replacing archived tasks of the same id
+	 * @return
+	 * 		true if succeeded, false if failed
+	 */
+	public boolean add(Collection<Task> tasks) {
+		assert tasks != null;
+
+		ArrayList<Task> archived = read();
+		if (archived == null) {
+			return false;
+		}
+
+		IntHashMap<Task> added = new IntHashMap<>(tasks.size());
+		for (Task t : tasks) {
+			added.put(t.getId(), t);
+		}
+
+		ArrayList<Task> kept = new ArrayList<>(archived.size() + tasks.size());
+		for (Task t : archived) {
+			if (!added.containsKey(t.getId())) {
+				kept.add(t);
+			}
+		}
+		kept.addAll(tasks);
+		return write(kept, Math.max(readNextId(), nextIdOf(tasks)));
+	}
+
+	/**
+	 * Removes a task from the archive, such as when it was deleted or is
+	 * kept in the tasks file again
+	 * @return
+	 * 		true if succeeded or the task was not archived, false if failed
+	 */
+	public boolean remove(int id) {
+		ArrayList<Task> archived = read();
+		if (archived == null) {
+			return false;
+		}
+
+		ArrayList<Task> kept = new ArrayList<>(archived.size());
+		for (Task t : archived) {
+			if (t.getId() != id) {
+				kept.add(t);
+			}
+		}
+		if (kept.size() == archived.size()) {
+			return true;
+		}
+		return write(kept, readNextId());
+	}
+
+	/**
+	 * Deletes the archive, such as when all tasks were replaced
+	 */
+	public void discard() {
+		try {
+			Files.deleteIfExists(_file.toPath());
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+		}
+	}
+
+	/**
+	 * Writes the tasks to a temporary file which then replaces the archive,
+	 * see {@code TaskFileHandler.replaceFile}
+	 */
+	private boolean write(Collection<Task> tasks, int nextId) {
+		File temp = new File(_file.getPath() + TEMP_EXTENSION);
+
+		try (FileOutputStream file = new FileOutputStream(temp)) {
+			GZIPOutputStream gzip = new GZIPOutputStream(file, BUFFER_SIZE);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, BUFFER_SIZE));
+
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeInt(nextId);
+			out.writeInt(tasks.size());
+
+			for (Task t : tasks) {
+				byte[] name = t.getName().getBytes(StandardCharsets.UTF_8);
+
+				out.writeInt(t.getId());
+				out.writeLong(t.getStartTime());
+				out.writeLong(t.getEndTime());
+				out.writeByte(TaskBinaryWriter.pack(t));
+				out.writeInt(name.length);
+				out.write(name);
+			}
+			out.flush();
+			gzip.finish();
+			file.getFD().sync();
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			temp.delete();
+			return false;
+		}
+		return TaskFileHandler.replaceFile(temp, _file);
+	}
+
+	private DataInputStream openInput() throws IOException {
+		return new DataInputStream(new BufferedInputStream(
+				new GZIPInputStream(new FileInputStream(_file), BUFFER_SIZE), BUFFER_SIZE));
+	}
+
+	/**
+	 * @return id after the highest id ever archived
+	 */
+	private int readHeader(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+			throw new IOException(String.format(MSG_INVALID, _file));
+		}
+		return in.readInt();
+	}
+
+	private static int nextIdOf(Collection<Task> tasks) {
+		int nextId = 0;
+		for (Task t : tasks) {
+			nextId = Math.max(nextId, t.getId() + 1);
+		}
+		return nextId;
+	}
+}
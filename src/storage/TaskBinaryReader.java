@@ -0,0 +1,165 @@
+//@@author A0076510M
+package storage;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.logging.Level;
+
+import logger.LogHandler;
+import taskCollections.Task;
+import taskCollections.Task.FLAG_TYPE;
+import taskCollections.Task.PRIORITY_TYPE;
+
+/**
+ * Reads all tasks of a binary snapshot written by {@code TaskBinaryWriter}
+ * into memory.
+ * @author Zandercx
+ */
+
+public class TaskBinaryReader {
+
+	private static final String EXCEPTION_IO = "IO Exception: %1$s";
+	private static final String MSG_INVALID = "Invalid binary task file: %1$s";
+
+	private File _file;
+	private ArrayList<Task> _tasks;
+	private String _generation;
+
+	public TaskBinaryReader(File file) {
+		assert file != null;
+
+		_file = file;
+	}
+
+	/**
+	 * Checks whether a file starts with the binary snapshot header
+	 * @return
+	 * 		true if the file is a binary snapshot
+	 */
+	public static boolean isBinaryFile(File file) {
+		if (file.length() < Integer.BYTES) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			return in.readInt() == TaskBinaryWriter.MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads all tasks of the file
+	 * @return
+	 * 		true if every task could be read, false if failed
+	 */
+	public boolean read() {
+		_tasks = new ArrayList<>();
+		_generation = "";
+
+		ByteBuffer buffer;
+		try {
+			buffer = ByteBuffer.wrap(Files.readAllBytes(_file.toPath()));
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					(String.format(EXCEPTION_IO, e)));
+			return false;
+		}
+
+		try {
+			if (buffer.getInt() != TaskBinaryWriter.MAGIC) {
+				LogHandler.getLog().log(Level.SEVERE, String.format(MSG_INVALID, _file));
+				return false;
+			}
+
+			short version = buffer.getShort();
+			_generation = readString(buffer);
+			int count = buffer.getInt();
+			_tasks.ensureCapacity(count);
+
+			switch (version) {
+				case TaskBinaryWriter.VERSION_1:
+					readRecordsV1(buffer, count);
+					return true;
+				case TaskBinaryWriter.VERSION:
+					MappedTaskSnapshot records = new MappedTaskSnapshot(buffer.slice(), count);
+					_tasks.addAll(records);
+					return true;
+				default:
+					LogHandler.getLog().log(Level.SEVERE, String.format(MSG_INVALID, _file));
+					return false;
+			}
+		} catch (BufferUnderflowException | IllegalArgumentException
+				| IndexOutOfBoundsException e) {
+			LogHandler.getLog().log(Level.SEVERE, String.format(MSG_INVALID, e));
+			return false;
+		}
+	}
+
+	/**
+	 * @return tasks in the order they appear in the file
+	 */
+	public ArrayList<Task> getTasks() {
+		return _tasks;
+	}
+
+	/**
+	 * @return generation of the journal the file belongs to, empty if none
+	 */
+	public String getGeneration() {
+		return _generation;
+	}
+
+	/**
+	 * Reads the header of a binary snapshot
+	 * @return
+	 * 		the version of the file, -1 if it is not a binary snapshot
+	 */
+	public static int getVersion(File file) {
+		if (file.length() < Integer.BYTES + Short.BYTES) {
+			return -1;
+		}
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			return in.readInt() == TaskBinaryWriter.MAGIC ? in.readShort() : -1;
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+
+	private void readRecordsV1(ByteBuffer buffer, int count) {
+		for (int i = 0; i < count; i++) {
+			int id = buffer.getInt();
+			long startTime = buffer.getLong();
+			long endTime = buffer.getLong();
+			int packed = buffer.get();
+			String name = readString(buffer);
+
+			_tasks.add(new Task(id, name, startTime, endTime,
+					unpackFlag(packed), unpackPriority(packed)));
+		}
+	}
+
+	static FLAG_TYPE unpackFlag(int packed) {
+		return FLAG_TYPE.values()[(packed & 0xFF) >>> TaskBinaryWriter.FLAG_SHIFT];
+	}
+
+	static PRIORITY_TYPE unpackPriority(int packed) {
+		return PRIORITY_TYPE.values()[packed & TaskBinaryWriter.PRIORITY_MASK];
+	}
+
+	static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
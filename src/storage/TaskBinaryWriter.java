@@ -0,0 +1,127 @@
+//@@author A0076510M
+package storage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.logging.Level;
+
+import logger.LogHandler;
+import taskCollections.Task;
+
+/**
+ * Writes tasks to a compact binary snapshot. Times are stored as epoch
+ * milliseconds, so no date has to be formatted or parsed.
+ *
+ * Layout of version 2, all numbers big-endian:
+ * <pre>
+ * int    magic "TBSN"
+ * short  version
+ * int    length of generation, followed by its UTF-8 bytes (0 if none)
+ * int    number of tasks
+ * per task, a record of fixed size:
+ *   int  id
+ *   long start time
+ *   long end time
+ *   byte flag in the high four bits, priority in the low four bits
+ *   int  offset of name in the name area
+ *   int  length of name
+ * name area with the UTF-8 bytes of all names
+ * </pre>
+ * As every record has the same size, a single task can be read without
+ * reading the ones before it, see {@code MappedTaskSnapshot}. Version 1
+ * stored each name right after its record and can still be read.
+ * @author Zandercx
+ */
+
+public class TaskBinaryWriter {
+
+	static final int MAGIC = 0x5442534E;
+	static final short VERSION_1 = 1;
+	static final short VERSION = 2;
+	static final int RECORD_SIZE = Integer.BYTES + Long.BYTES + Long.BYTES 
+			+ Byte.BYTES + Integer.BYTES + Integer.BYTES;
+	static final int FLAG_SHIFT = 4;
+	static final int PRIORITY_MASK = 0x0F;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String EXCEPTION_IO = "IO Exception: %1$s";
+
+	private File _file;
+
+	public TaskBinaryWriter(File file) {
+		assert file != null;
+
+		_file = file;
+	}
+
+	/**
+	 * Replaces the content of the file with the tasks, and forces it to disk
+	 * @param tasks
+	 * 		tasks to be written, in order
+	 * @param generation
+	 * 		generation of the journal the file belongs to, null if none
+	 * @return
+	 * 		true if succeeded, false if failed
+	 */
+	public boolean write(Collection<Task> tasks, String generation) {
+		assert tasks != null;
+
+		try (FileChannel channel = FileChannel.open(_file.toPath(), StandardOpenOption.WRITE,
+						StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+						Channels.newOutputStream(channel), BUFFER_SIZE))) {
+
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			writeString(out, generation == null ? "" : generation);
+			out.writeInt(tasks.size());
+
+			ArrayList<byte[]> names = new ArrayList<>(tasks.size());
+			int nameOffset = 0;
+			for (Task t : tasks) {
+				byte[] name = t.getName().getBytes(StandardCharsets.UTF_8);
+				names.add(name);
+
+				out.writeInt(t.getId());
+				out.writeLong(t.getStartTime());
+				out.writeLong(t.getEndTime());
+				out.writeByte(pack(t));
+				out.writeInt(nameOffset);
+				out.writeInt(name.length);
+				nameOffset += name.length;
+			}
+
+			for (byte[] name : names) {
+				out.write(name);
+			}
+			out.flush();
+			channel.force(true);
+			return true;
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					(String.format(EXCEPTION_IO, e)));
+			return false;
+		}
+	}
+
+	/**
+	 * Packs flag and priority of a task into one byte
+	 */
+	static int pack(Task t) {
+		return (t.getFlag().ordinal() << FLAG_SHIFT) | t.getPriority().ordinal();
+	}
+
+	private void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
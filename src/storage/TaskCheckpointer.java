@@ -0,0 +1,153 @@
+//@@author A0076510M
+package storage;
+
+import java.io.File;
+import java.util.List;
+import java.util.logging.Level;
+
+import logger.LogHandler;
+import taskCollections.Task;
+
+/**
+ * Writes a full snapshot of the tasks in the background once the journal has
+ * grown past its size or time threshold, and then drops the journal entries
+ * the snapshot covers. The snapshot is built on the background thread from
+ * the tasks file and the journal entries it lacks, so the caller only notes
+ * the size of the journal and the command loop never waits on the tasks.
+ *
+ * The snapshot keeps the generation of the journal. If a full save replaces
+ * the generation while the snapshot is being written, the snapshot is thrown
+ * away.
+ * @author Zandercx
+ */
+
+public class TaskCheckpointer {
+
+	private static final long SIZE_THRESHOLD = 256 * 1024;
+	private static final long TIME_THRESHOLD = 10 * 60 * 1000;
+	private static final String SNAPSHOT_EXTENSION = ".snapshot";
+	private static final String THREAD_NAME = "TaskCheckpointer";
+
+	private static final String MSG_START = "Checkpoint of %1$s journal bytes started.";
+	private static final String MSG_DONE = "Checkpoint completed.";
+	private static final String MSG_STALE = "Checkpoint discarded, tasks file was rewritten.";
+	private static final String MSG_FAILED = "Checkpoint failed.";
+
+	private File _taskFile;
+	private File _snapshotFile;
+	private TaskJournal _journal;
+	private boolean _isBinary;
+	private volatile boolean _isRunning;
+	private volatile long _lastCheckpoint;
+
+	/**
+	 * @param isBinary
+	 * 		true if the tasks file is a binary snapshot
+	 */
+	public TaskCheckpointer(File taskFile, TaskJournal journal, boolean isBinary) {
+		assert taskFile != null;
+		assert journal != null;
+
+		_taskFile = taskFile;
+		_snapshotFile = new File(taskFile.getPath() + SNAPSHOT_EXTENSION);
+		_journal = journal;
+		_isBinary = isBinary;
+		_lastCheckpoint = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return true if the journal is large or old enough to be checkpointed
+	 * 		and no checkpoint is in progress
+	 */
+	public boolean isDue() {
+		if (_isRunning || _journal.isEmpty()) {
+			return false;
+		}
+		return _journal.size() >= SIZE_THRESHOLD
+				|| System.currentTimeMillis() - _lastCheckpoint >= TIME_THRESHOLD;
+	}
+
+	/**
+	 * Starts writing a snapshot of the tasks on a background thread, with
+	 * every change appended to the journal so far.
+	 * @return
+	 * 		true if a checkpoint was started, false if one is still running
+	 */
+	public boolean checkpoint() {
+		if (_isRunning) {
+			return false;
+		}
+
+		final String generation;
+		final long mark;
+		synchronized (_journal) {
+			generation = _journal.getGeneration();
+			mark = _journal.size();
+		}
+		if (generation == null) {
+			return false;
+		}
+
+		_isRunning = true;
+		_lastCheckpoint = System.currentTimeMillis();
+		LogHandler.getLog().log(Level.INFO, String.format(MSG_START, mark));
+
+		Thread writer = new Thread(THREAD_NAME) {
+			@Override
+			public void run() {
+				try {
+					writeCheckpoint(generation, mark);
+				} finally {
+					_isRunning = false;
+				}
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+		return true;
+	}
+
+	/**
+	 * @return true if a checkpoint is being written
+	 */
+	public boolean isRunning() {
+		return _isRunning;
+	}
+
+	private void writeCheckpoint(String generation, long mark) {
+		List<Task> tasks = TaskFileHandler.readCheckpoint(_taskFile, _journal, generation, mark);
+		if (tasks == null) {
+			if (generation.equals(_journal.getGeneration())) {
+				LogHandler.getLog().log(Level.WARNING, MSG_FAILED);
+			} else {
+				LogHandler.getLog().log(Level.INFO, MSG_STALE);
+			}
+			return;
+		}
+
+		if (!TaskFileHandler.writeSnapshot(tasks, generation, _snapshotFile, _isBinary)) {
+			LogHandler.getLog().log(Level.WARNING, MSG_FAILED);
+			_snapshotFile.delete();
+			return;
+		}
+
+		synchronized (_journal) {
+			if (!generation.equals(_journal.getGeneration())) {
+				LogHandler.getLog().log(Level.INFO, MSG_STALE);
+				_snapshotFile.delete();
+				return;
+			}
+
+			if (!TaskFileHandler.replaceFile(_snapshotFile, _taskFile)) {
+				LogHandler.getLog().log(Level.WARNING, MSG_FAILED);
+				return;
+			}
+
+			// Entries before the mark are in the snapshot now. Should this
+			// fail, replaying them again is harmless as each holds a full task.
+			if (_journal.truncate(mark)) {
+				LogHandler.getLog().log(Level.INFO, MSG_DONE);
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+//@@author A0076510M
+package storage;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.logging.Level;
+
+import logger.LogHandler;
+import taskCollections.Task;
+
+/**
+ * Converts a tasks file between the XML and the binary snapshot format. The
+ * journal generation is carried over, so a file converted in place keeps
+ * its journal. The converted file replaces the target as a save does, see
+ * {@code TaskFileHandler.replaceFile}, so the target is never left half
+ * written.
+ * @author Zandercx
+ */
+
+public class TaskFileConverter {
+
+	private static final String MSG_CONVERT = "Converted %1$s tasks from %2$s to %3$s.";
+	private static final String TEMP_EXTENSION = ".tmp";
+
+	/**
+	 * Converts an XML tasks file to a binary snapshot
+	 * @return
+	 * 		true if succeeded, false if failed
+	 */
+	public static boolean toBinary(String xmlFileName, String binaryFileName) {
+		TaskXmlReader reader = new TaskXmlReader(new File(xmlFileName));
+		if (!reader.read()) {
+			return false;
+		}
+
+		ArrayList<Task> tasks = reader.getTasks();
+		if (!write(tasks, toGeneration(reader.getGeneration()), binaryFileName, true)) {
+			return false;
+		}
+
+		LogHandler.getLog().log(Level.INFO,
+				String.format(MSG_CONVERT, tasks.size(), xmlFileName, binaryFileName));
+		return true;
+	}
+
+	/**
+	 * Converts a binary snapshot to an XML tasks file
+	 * @return
+	 * 		true if succeeded, false if failed
+	 */
+	public static boolean toXml(String binaryFileName, String xmlFileName) {
+		TaskBinaryReader reader = new TaskBinaryReader(new File(binaryFileName));
+		if (!reader.read()) {
+			return false;
+		}
+
+		ArrayList<Task> tasks = reader.getTasks();
+		if (!write(tasks, toGeneration(reader.getGeneration()), xmlFileName, false)) {
+			return false;
+		}
+
+		LogHandler.getLog().log(Level.INFO,
+				String.format(MSG_CONVERT, tasks.size(), binaryFileName, xmlFileName));
+		return true;
+	}
+
+	/**
+	 * Writes the tasks to a temporary file which then replaces the target
+	 */
+	private static boolean write(ArrayList<Task> tasks, String generation, String fileName, boolean isBinary) {
+		File target = new File(fileName);
+		File temp = new File(target.getPath() + TEMP_EXTENSION);
+		if (!TaskFileHandler.writeSnapshot(tasks, generation, temp, isBinary)) {
+			temp.delete();
+			return false;
+		}
+		return TaskFileHandler.replaceFile(temp, target);
+	}
+
+	private static String toGeneration(String s) {
+		return s.isEmpty() ? null : s;
+	}
+}
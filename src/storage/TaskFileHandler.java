@@ -3,113 +3,188 @@ package storage;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 import java.util.logging.Level;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
 import logger.LogHandler;
 import taskCollections.Task;
-import taskCollections.Task.FLAG_TYPE;
-import taskCollections.Task.PRIORITY_TYPE;
-import util.TimeUtil;
+import util.IntIntHashMap;
 
 /**
- * Provides methods for retrieving and manipulating the tasks file.
+ * Provides methods for retrieving and manipulating the tasks file. Backs the
+ * XML, journal and binary kinds of {@code TaskStore}.
  * @author Zandercx
  */
 
-public class TaskFileHandler {
-
-	private static final int XML_INDENTAMT = 4;
-	private static final String EMPTY_STRING = "";
-	private static final String PRIORITY_HIGH = "HIGH";
-	private static final String PRIORITY_NORMAL = "NORMAL";
-	private static final String PRIORITY_LOW = "LOW";
-	private static final String MARKED_TASK = "DONE";
-	private static final String UNMARKED_TASK = "NULL";	
-	private static final String TAG_TASK = "task";
-	private static final String TAG_ID = "id";
-	private static final String TAG_TITLE = "title";
-	private static final String TAG_STARTTIME = "startTime";
-	private static final String TAG_ENDTIME = "endTime";
-	private static final String TAG_FLAG = "flag";
-	private static final String TAG_PRIORITY = "priority";
+public class TaskFileHandler implements TaskStore {
 
-	private static final String EXCEPTION_PARSER = "Parser Config Exception: %1$s";
-	private static final String EXCEPTION_SAX = "SAX Exception: %1$s";
-	private static final String EXCEPTION_IO = "IO Exception: %1$s";
-	private static final String EXCEPTION_TRANSFORMER = "Transformer Exception: %1$s";
-	private static final String EXCEPTION_TRANSFORMERCFG = "Transformer Config Exception: %1$s";
-	
 	private static final String MSG_ADD = "Add Entry to XML File Success.";
 	private static final String MSG_IMPORT = "Successful Retrieval from XML File.";
 	private static final String MSG_REMOVE = "Remove Entry from XML File Success.";
 	private static final String MSG_UPDATE = "Updating Entry to XML File Success.";
+	private static final String MSG_JOURNAL = "Appending Entry to Journal Success.";
+	private static final String MSG_REPLACE = "Replacing Entries of XML File Success.";
+	private static final String MSG_RECOVER = "Tasks file unreadable, loading backup %1$s.";
+	private static final String MSG_RELOAD = "Mapped task unreadable, reading %1$s in full.";
+	private static final String MSG_SALVAGE = "Tasks file and backup unreadable, kept %1$s of %2$s mapped tasks.";
+	private static final String MSG_ARCHIVE = "Moving %1$s Entries to Archive Success.";
+	private static final String EXCEPTION_IO = "IO Exception: %1$s";
+	private static final String TEMP_EXTENSION = ".tmp";
+	private static final String BACKUP_EXTENSION = ".bak";
+	private static final int MISSING_INDEX = -1;
 	
-	private ArrayList<Task> _tasks;
-	private Document _doc;
-	private Element _root;
+	private List<Task> _tasks;
+	// Position of each task in _tasks by id, MISSING_INDEX if absent
+	private IntIntHashMap _index;
+	private int _deletedCount;
 	private File _xmlFile;
+	private TaskJournal _journal;
+	private TaskCheckpointer _checkpointer;
+	private TaskArchive _archive;
+	private ArrayList<Integer> _unarchivedIds = new ArrayList<>();
+	private boolean _isJournalMode;
+	private boolean _isBinary;
+	private boolean _isBinaryRequested;
+	private boolean _isMapped;
+	private boolean _isBatching;
+	private boolean _isDirty;
+	private boolean _isUnforced;
 
 	
 	public TaskFileHandler() {
-		
+		this(false);
 	}
 	
 	/**
-	 * Attempts to load XML File into ArrayList of Task Objects
+	 * @param isJournalMode
+	 * 		true to append each change to a journal instead of rewriting
+	 * 		the whole XML file
+	 */
+	public TaskFileHandler(boolean isJournalMode) {
+		this(isJournalMode, false);
+	}
+	
+	/**
+	 * @param isJournalMode
+	 * 		true to append each change to a journal instead of rewriting
+	 * 		the whole XML file
+	 * @param isBinary
+	 * 		true to save the tasks file as a binary snapshot, even if it 
+	 * 		was loaded from XML
+	 */
+	public TaskFileHandler(boolean isJournalMode, boolean isBinary) {
+		_isJournalMode = isJournalMode;
+		_isBinaryRequested = isBinary;
+	}
+	
+	/**
+	 * Attempts to load XML File into ArrayList of Task Objects. Changes 
+	 * recorded in the journal of the file are replayed on top of it.
+	 * A binary snapshot is recognised by its header, and is saved in the
+	 * same format it was loaded in, or as binary if that was requested. A snapshot with fixed-size records is 
+	 * mapped into memory and its tasks are only read when requested.
+	 * The file is not rewritten, except once for a file from before 
+	 * journals were kept, when in journal mode. If the file cannot be 
+	 * read, the copy kept by the last save is loaded and put back instead.
+	 * Archived tasks are not read, but new tasks get ids above theirs.
 	 * @return 
 	 * 		true if loading succeeded, false if failed.
 	 */
+	@Override
 	public boolean loadTaskFile(String fileName) {
+		return loadTaskFile(fileName, true);
+	}
+	
+	/**
+	 * Reads the tasks file again without mapping it, once a mapped task 
+	 * could not be decoded, or the backup if the file cannot be read in 
+	 * full either, as {@code loadTaskFile} does. If neither can be read, 
+	 * the mapped tasks which can still be decoded are kept, and are 
+	 * written in place of the file on the next save.
+	 * @return 
+	 * 		true if the file or its backup was read, false if only the 
+	 * 		readable mapped tasks were kept
+	 */
+	@Override
+	public boolean reloadTaskFile() {
+		LogHandler.getLog().log(Level.WARNING, String.format(MSG_RELOAD, _xmlFile));
+		
+		List<Task> mapped = _tasks;
+		boolean isBinary = _isBinary;
+		if (!_isMapped || loadTaskFile(_xmlFile.getPath(), false)) {
+			return true;
+		}
+		
+		ArrayList<Task> tasks = new ArrayList<>(mapped.size());
+		for (int i = 0; i < mapped.size(); i++) {
+			try {
+				tasks.add(mapped.get(i));
+			} catch (BufferUnderflowException e) {
+				// The record is left out
+			}
+		}
+		LogHandler.getLog().log(Level.SEVERE, String.format(MSG_SALVAGE, tasks.size(), mapped.size()));
+		
+		_tasks = tasks;
+		_isBinary = isBinary;
+		_isMapped = false;
+		indexTasks();
+		return false;
+	}
+	
+	/**
+	 * Loads the tasks file, or its backup if it cannot be read
+	 * @param isMappable
+	 * 		true to map a snapshot with fixed-size records instead of 
+	 * 		reading all of its tasks
+	 */
+	private boolean loadTaskFile(String fileName, boolean isMappable) {
 		assert fileName != null;
 		assert !fileName.isEmpty();
 		
-		DocumentBuilderFactory dbFactory;
-		DocumentBuilder dBuilder;
-		
 		_xmlFile = new File(fileName);
-			
-		dbFactory = DocumentBuilderFactory.newInstance();
-			try {
-				dBuilder = dbFactory.newDocumentBuilder();
-				_doc = dBuilder.parse(_xmlFile);
-			} catch (ParserConfigurationException e) {
-				LogHandler.getLog().log(Level.SEVERE,  
-						(String.format(EXCEPTION_PARSER, e)));
-				return false;
-			} catch (SAXException e) {
-				LogHandler.getLog().log(Level.SEVERE,  
-						(String.format(EXCEPTION_SAX, e)));
+		String generation = readTaskFile(_xmlFile, isMappable);
+		
+		if (generation == null) {
+			File backup = new File(fileName + BACKUP_EXTENSION);
+			if (!backup.exists()) {
 				return false;
-			} catch (IOException e) {
-				LogHandler.getLog().log(Level.SEVERE,  
-						(String.format(EXCEPTION_IO, e)));
+			}
+			
+			LogHandler.getLog().log(Level.WARNING, String.format(MSG_RECOVER, backup));
+			generation = readTaskFile(backup, isMappable);
+			if (generation == null || !restoreBackup(backup, _xmlFile)) {
 				return false;
 			}
+		}
+		_isBinary |= _isBinaryRequested;
+		_deletedCount = 0;
+		if (!_isMapped) {
+			indexTasks();
+		}
 		
-		_doc.getDocumentElement().normalize();
-		_root = _doc.getDocumentElement();
+		_archive = new TaskArchive(fileName);
+		Task.reserveTaskClassId(_archive.readNextId());
 		
-		return importAllTasks();
+		// A journal still open from an earlier load is appended to again
+		if (_journal != null) {
+			_journal.close();
+		}
+		_journal = new TaskJournal(fileName);
+		if (_isJournalMode) {
+			_checkpointer = new TaskCheckpointer(_xmlFile, _journal, _isBinary);
+		}
+		replayJournal(generation);
+		startJournal(generation);
+		return true;
 	}
 
 	/**
@@ -119,6 +194,21 @@ public class TaskFileHandler {
 	 */
 	public ArrayList<Task> retrieveTaskList() {
 		LogHandler.getLog().log(Level.INFO, MSG_IMPORT);
+		loadMappedTasks();
+		compactTasks();
+		return (ArrayList<Task>) _tasks;
+	}
+	
+	/**
+	 * Returns the tasks without reading a mapped snapshot up front. Tasks
+	 * of a mapped snapshot are read from the file as they are requested.
+	 * @return 
+	 * 		List<Task> : List of Tasks
+	 */
+	@Override
+	public List<Task> retrieveTasks() {
+		LogHandler.getLog().log(Level.INFO, MSG_IMPORT);
+		compactTasks();
 		return _tasks;
 	}
 
@@ -129,23 +219,19 @@ public class TaskFileHandler {
 	 * @return 
 	 * 		true if operation succeeded, false if failed.
 	 */
+	@Override
 	public boolean add(Task t) {
 		assert t != null;
 		
-		int id = t.getId();
-		String[] headers = { TAG_TITLE, TAG_STARTTIME, TAG_ENDTIME, TAG_FLAG, TAG_PRIORITY };
-	
-		Element newTask = _doc.createElement(TAG_TASK);
-		newTask.setAttribute(TAG_ID, String.valueOf(id));
-	
-		_root.appendChild(newTask);
-	
-		for (int i = 0; i < headers.length; i++) {
-			Element e = addElement(headers[i], t);
-			newTask.appendChild(e);
+		loadMappedTasks();
+		_tasks.add(t);
+		_index.put(t.getId(), _tasks.size() - 1);
+		
+		if (_isJournalMode) {
+			return logJournal(_journal.appendAdd(t));
 		}
 		
-		boolean flag = genXML();
+		boolean flag = saveChange();
 		
 		if (flag) {
 			LogHandler.getLog().log(Level.INFO, MSG_ADD);
@@ -155,19 +241,27 @@ public class TaskFileHandler {
 	}
 	
 	/**
-	 * Delete task from XML file
+	 * Delete task from XML file, or from the archive if it is archived
 	 * @param id 
 	 * 		ID number of Task
 	 * @return 
 	 * 		true if operation succeeded, false if failed.
 	 */
+	@Override
 	public boolean delete(int id) {
 		assert id >= 0; //there must always be a non-negative id number
 		
-		Element e = locateID(id);
-		_root.removeChild(e);
+		loadMappedTasks();
+		if (locateID(id) < 0) {
+			return _archive.remove(id);
+		}
+		removeTask(id);
 		
-		boolean flag = genXML();
+		if (_isJournalMode) {
+			return logJournal(_journal.appendDelete(id));
+		}
+		
+		boolean flag = saveChange();
 		
 		if (flag) {
 			LogHandler.getLog().log(Level.INFO, MSG_REMOVE);
@@ -177,277 +271,571 @@ public class TaskFileHandler {
 	}
 	
 	/**
-	 * Update task to XML file
+	 * Update task to XML file. An archived task is added to the file again,
+	 * and removed from the archive once the file has it.
 	 * @param t 
 	 * 		Task Object
 	 * @returns 
 	 * 		true if operation succeeded, false if failed.
 	 */
+	@Override
 	public boolean update(Task t) {
 		assert t != null;
 		
-		Element e = locateID(t.getId());
+		loadMappedTasks();
+		int index = locateID(t.getId());
+		boolean isArchived = index < 0;
 		
-		NodeList nl = e.getChildNodes();
+		if (isArchived) {
+			_tasks.add(t);
+			_index.put(t.getId(), _tasks.size() - 1);
+			_unarchivedIds.add(t.getId());
+		} else {
+			_tasks.set(index, t);
+		}
 		
-		for (int i = 0; i < nl.getLength(); i++) {
-			switch (i) {
-				case 0:
-					String taskName = t.getName();
-					nl.item(i).setTextContent(taskName);
-					break;
-				case 1:
-					String startTime = TimeUtil.getFormattedDate(t.getStartTime());
-					nl.item(i).setTextContent(startTime);
-					break;
-				case 2:
-					String endTime = TimeUtil.getFormattedDate(t.getEndTime());
-					nl.item(i).setTextContent(endTime);
-					break;
-				case 3:
-					String markStatus = t.getFlag().toString();
-					nl.item(i).setTextContent(markStatus);
-					break;
-				case 4:
-					String priorityString = t.getPriority().toString();
-					nl.item(i).setTextContent(priorityString);
-					break;
+		boolean flag;
+		if (_isJournalMode) {
+			flag = logJournal(_journal.appendUpdate(t));
+		} else {
+			flag = saveChange();
+			
+			if (flag) {
+				LogHandler.getLog().log(Level.INFO, MSG_UPDATE);
 			}
 		}
 		
+		if (isArchived && flag && !_isBatching) {
+			flag = removeUnarchived();
+		}
+		return flag;
+	}
+	
+	/**
+	 * Replaces all tasks and rewrites the file with them, such as after 
+	 * the tasks were given new ids. The archive is deleted once the file 
+	 * is written, even in a batch.
+	 * @param tasks 
+	 * 		all tasks, in order
+	 * @return 
+	 * 		true if operation succeeded, false if failed.
+	 */
+	@Override
+	public boolean replaceTasks(Collection<Task> tasks) {
+		assert tasks != null;
+		
+		_tasks = new ArrayList<>(tasks);
+		_isMapped = false;
+		_deletedCount = 0;
+		_unarchivedIds.clear();
+		indexTasks();
+		
 		boolean flag = genXML();
 		
 		if (flag) {
-			LogHandler.getLog().log(Level.INFO, MSG_UPDATE);
+			_archive.discard();
+			LogHandler.getLog().log(Level.INFO, MSG_REPLACE);
 		}
 		
 		return flag;
 	}
 	
 	/**
-	 * Returns an element of specified tag to the new task
-	 * @param s 
-	 * 			Type of Tag
-	 * @param t 
-	 * 			Task object
-	 * @return Element
+	 * Adds tasks to the archive, and then rewrites the file without them, 
+	 * even in a batch, so that the file becomes smaller
+	 * @param tasks 
+	 * 		loaded tasks to be archived
+	 * @return 
+	 * 		true if operation succeeded, false if failed.
 	 */
-	private Element addElement(String s, Task t) {
-		assert s != null;
-		assert !s.isEmpty();
+	@Override
+	public boolean archiveTasks(Collection<Task> tasks) {
+		assert tasks != null;
 		
-		assert t != null;
-				
-		Element e = _doc.createElement(s);
-		switch (s) {
-			case TAG_TITLE:
-				String taskName = t.getName();
-				e.appendChild(_doc.createTextNode(taskName));
-				break;
-			case TAG_STARTTIME:
-				String startTime = TimeUtil.getFormattedDate(t.getStartTime());
-				e.appendChild(_doc.createTextNode(startTime));
-				break;
-			case TAG_ENDTIME:
-				String endTime = TimeUtil.getFormattedDate(t.getEndTime());
-				e.appendChild(_doc.createTextNode(endTime));
-				break;
-			case TAG_FLAG:
-				String markStatus = t.getFlag().toString();
-				e.appendChild(_doc.createTextNode(markStatus));
-				break;
-			case TAG_PRIORITY:
-				String priorityString = t.getPriority().toString();
-				e.appendChild(_doc.createTextNode(priorityString));
-				break;
-		}
-		return e;
-	}
-
-	private FLAG_TYPE detFlag(String s) {
-		switch (s) {
-			case UNMARKED_TASK:
-				return FLAG_TYPE.NULL;
-			case MARKED_TASK:
-				return FLAG_TYPE.DONE;
-			default:
-				return null;
+		loadMappedTasks();
+		if (!_archive.add(tasks)) {
+			return false;
+		}
+		
+		for (Task t : tasks) {
+			if (locateID(t.getId()) >= 0) {
+				removeTask(t.getId());
 			}
+		}
+		
+		boolean flag = genXML();
+		
+		if (flag) {
+			LogHandler.getLog().log(Level.INFO, String.format(MSG_ARCHIVE, tasks.size()));
+		}
+		
+		return flag;
 	}
-
-	private PRIORITY_TYPE detPriority(String s) {
-		switch (s) {
-			case PRIORITY_HIGH:
-				return PRIORITY_TYPE.HIGH;
-			case PRIORITY_NORMAL:
-				return PRIORITY_TYPE.NORMAL;
-			case PRIORITY_LOW:
-				return PRIORITY_TYPE.LOW;
-			default:
-				return null;
-			}
+	
+	/**
+	 * Reads the archive. Does not use the loaded tasks.
+	 * @return 
+	 * 		List<Task> : archived tasks, null if reading failed
+	 */
+	@Override
+	public List<Task> retrieveArchivedTasks() {
+		return _archive.read();
+	}
+	
+	/**
+	 * Holds back rewriting the file after each change until 
+	 * {@link #endBatch()}, so that a group of changes is written at once.
+	 * Changes are still appended to the journal one by one in journal mode,
+	 * and forced to disk together.
+	 */
+	@Override
+	public void beginBatch() {
+		_isBatching = true;
 	}
 	
 	/**
-	 * Writes data to XML file with the parameters.
+	 * Forces the journal to disk and rewrites the file once if it was 
+	 * changed since {@link #beginBatch()}. Archived tasks updated in the 
+	 * batch are removed from the archive afterwards.
 	 * @return 
-	 * 		true if succeeded, false if failed
+	 * 		true if succeeded or nothing had to be written, false if failed
 	 */
-	private boolean genXML() {
-		return printFile(_doc, XML_INDENTAMT);
+	@Override
+	public boolean endBatch() {
+		_isBatching = false;
+		boolean flag = true;
+		
+		if (_isUnforced) {
+			_isUnforced = false;
+			flag &= _journal.force();
+		}
+		if (_isDirty) {
+			_isDirty = false;
+			flag &= genXML();
+		}
+		if (flag && !_unarchivedIds.isEmpty()) {
+			flag = removeUnarchived();
+		}
+		return flag;
 	}
-
+	
+	/**
+	 * @return 
+	 * 		true if every change passed so far is on disk, false while a 
+	 * 		batch holds some back
+	 */
+	public boolean isSaved() {
+		return !_isDirty && (!_isJournalMode || _journal.isForced());
+	}
+	
 	/**
-	 * Read data from XML file and stores them in arrayList
+	 * Replaces the tasks in memory by copies, so that the tasks handed out 
+	 * before can be changed without changing the ones of this handler. 
+	 * Tasks of a mapped snapshot are new objects on every read already.
+	 */
+	@Override
+	public void copyTasks() {
+		if (_isMapped) {
+			return;
+		}
+		
+		compactTasks();
+		ArrayList<Task> copies = new ArrayList<>(_tasks.size());
+		for (Task t : _tasks) {
+			copies.add(copyTask(t));
+		}
+		_tasks = copies;
+	}
+	
+	/**
+	 * Starts a snapshot of the tasks in the background if the journal has 
+	 * grown past its thresholds. Does nothing outside journal mode. The 
+	 * tasks in memory are not used, see {@link #readCheckpoint}.
+	 * @return
+	 * 		true if a snapshot was started
+	 */
+	@Override
+	public boolean checkpointIfDue() {
+		if (!_isJournalMode || _checkpointer == null || !_checkpointer.isDue()) {
+			return false;
+		}
+		return _checkpointer.checkpoint();
+	}
+	
+	/**
+	 * Reads the tasks of a tasks file with the journal entries written 
+	 * before {@code mark} applied, which are the tasks a checkpoint writes. 
+	 * The file is read in full rather than mapped. Only uses its arguments, 
+	 * so it is safe to call from the checkpoint thread.
+	 * @param generation 
+	 * 		generation the file and the journal must both have
+	 * @param mark 
+	 * 		size of the journal when the checkpoint was started
 	 * @return 
-	 * 		true if operation succeeded, false if failed
+	 * 		the tasks, null if the file or the journal could not be read or 
+	 * 		is of another generation
 	 */
-	private boolean importAllTasks() {
-		_tasks = new ArrayList<>();
-		optimizeID();
+	static List<Task> readCheckpoint(File file, TaskJournal journal, String generation, long mark) {
+		TaskFileHandler handler = new TaskFileHandler();
+		if (!generation.equals(handler.readTaskFile(file, false))) {
+			return null;
+		}
 		
-		Element eElement;
-		Node nNode;
-		NodeList nList = _doc.getElementsByTagName(TAG_TASK);
-		Task t;
+		List<TaskJournal.Entry> entries = journal.readEntries(generation, mark);
+		if (entries == null) {
+			return null;
+		}
+		handler.indexTasks();
+		handler.applyEntries(entries);
+		handler.compactTasks();
+		return handler._tasks;
+	}
+	
+	static Task copyTask(Task t) {
+		return new Task(t.getId(), t.getName(), t.getStartTime(), t.getEndTime(), 
+				t.getFlag(), t.getPriority());
+	}
+	
+	/**
+	 * Moves a newly written tasks file in place of the current one in a 
+	 * single rename, so that the tasks file is always complete. The current
+	 * file is kept as a backup first, and both are forced to disk with the 
+	 * directory. Only uses its arguments, so it is safe to call from the 
+	 * checkpoint thread.
+	 * @param source 
+	 * 		new tasks file, forced to disk
+	 * @param target 
+	 * 		tasks file to be replaced
+	 * @return 
+	 * 		true if succeeded, false if failed
+	 */
+	static boolean replaceFile(File source, File target) {
+		File backup = new File(target.getPath() + BACKUP_EXTENSION);
 		
 		try {
-			for (int i = 0; i < nList.getLength(); i++) {
-				nNode = nList.item(i);
-	
-				if (nNode.getNodeType() == Node.ELEMENT_NODE) {
-					eElement = (Element) nNode;
-				
-					int id = Integer.parseInt(eElement.getAttribute(TAG_ID));
-				
-					String title = retrieveElement(eElement, TAG_TITLE);
-					
-					long startTime = TimeUtil.getLongTime(
-							retrieveElement(eElement, TAG_STARTTIME));
-					
-					long endTime = TimeUtil.getLongTime(
-							retrieveElement(eElement, TAG_ENDTIME));
-					
-					if (startTime == -1 || endTime == -1) {
-						return false;
-					}
-					
-					FLAG_TYPE flag = detFlag(retrieveElement(
-							eElement, TAG_FLAG));
-					
-					PRIORITY_TYPE priority = detPriority(retrieveElement(
-							eElement, TAG_PRIORITY));
-				
-					if (flag == null || priority == null) {
-						return false;
-					}
-					
-					t = new Task(id, title, startTime, endTime, flag, priority);
-					_tasks.add(t);
+			if (target.exists()) {
+				Files.deleteIfExists(backup.toPath());
+				try {
+					// A link keeps the current file without copying it
+					Files.createLink(backup.toPath(), target.toPath());
+				} catch (UnsupportedOperationException | IOException e) {
+					Files.copy(target.toPath(), backup.toPath(), StandardCopyOption.REPLACE_EXISTING);
 				}
 			}
-		} catch (Exception e) {
+			Files.move(source.toPath(), target.toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			forceDirectory(target);
+			return true;
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			source.delete();
 			return false;
 		}
-		return true;
 	}
-
+	
 	/**
-	 * Locate and returns the element in the document list
-	 * @param 
-	 * 		id
-	 * 			the id number of task entry
-	 * @return 
-	 * 		the task element with the corresponding id
+	 * Forces the directory of a file to disk, so that the file renamed or 
+	 * linked into it is still there after a power loss. Does nothing where 
+	 * a directory cannot be opened, such as on Windows.
+	 * @param file 
+	 * 		file in the directory that was changed
 	 */
-	private Element locateID(int id) {
+	static void forceDirectory(File file) {
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (directory == null) {
+			return;
+		}
 		
-		Element e;
-		Node nNode;
-		NodeList nList = _doc.getElementsByTagName(TAG_TASK);
+		try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Not allowed on this platform, the rename is still atomic
+		}
+	}
+	
+	/**
+	 * Writes the tasks as a new tasks file, and forces it to disk. Only uses
+	 * its arguments, so it is safe to call from the checkpoint thread.
+	 * @param tasks 
+	 * 		tasks to be written
+	 * @param generation 
+	 * 		generation of the journal the file belongs to, null if none
+	 * @param target 
+	 * 		file to be written
+	 * @param isBinary 
+	 * 		true to write a binary snapshot instead of XML
+	 * @return 
+	 * 		true if succeeded, false if failed
+	 */
+	static boolean writeSnapshot(Collection<Task> tasks, String generation, File target,
+			boolean isBinary) {
+		if (isBinary) {
+			return new TaskBinaryWriter(target).write(tasks, generation);
+		}
+		return new TaskXmlWriter(target).write(tasks, generation);
+	}
+	
+	/**
+	 * Reads the tasks of a tasks file into the task list, in the format 
+	 * recognised by its header
+	 * @param isMappable 
+	 * 		true to map a snapshot with fixed-size records instead of 
+	 * 		reading it
+	 * @return 
+	 * 		generation of the file, empty if none, null if reading failed
+	 */
+	private String readTaskFile(File file, boolean isMappable) {
+		int version = TaskBinaryReader.getVersion(file);
+		_isBinary = version != -1;
+		_isMapped = isMappable && version == TaskBinaryWriter.VERSION;
 		
-		for (int i = 0; i < nList.getLength(); i++) {
-			nNode = nList.item(i);
-			
-			if (nNode.getNodeType() == Node.ELEMENT_NODE) {
-				e = (Element)nNode;
-				if (e.getAttribute(TAG_ID).equals(String.valueOf(id))) {
-					return e;
-				}
+		if (_isMapped) {
+			MappedTaskSnapshot snapshot = MappedTaskSnapshot.open(file);
+			if (snapshot == null) {
+				return null;
 			}
+			_tasks = snapshot;
+			return snapshot.getGeneration();
+		} else if (_isBinary) {
+			TaskBinaryReader reader = new TaskBinaryReader(file);
+			if (!reader.read()) {
+				return null;
+			}
+			_tasks = reader.getTasks();
+			return reader.getGeneration();
+		} else {
+			TaskXmlReader reader = new TaskXmlReader(file);
+			if (!reader.read()) {
+				return null;
+			}
+			_tasks = reader.getTasks();
+			return reader.getGeneration();
 		}
-		return null;
 	}
 	
 	/**
-	 * Reformats the ID number in XML file to ascending order, starting from 0.
+	 * Puts a copy of the backup in place of an unreadable tasks file
+	 * @return 
+	 * 		true if succeeded, false if failed
 	 */
-	private void optimizeID() {
-		Element e;
-		Node nNode;
-		NodeList nList = _doc.getElementsByTagName(TAG_TASK);
+	private boolean restoreBackup(File backup, File target) {
+		File temp = new File(target.getPath() + TEMP_EXTENSION);
 		
-		for (int i = 0; i < nList.getLength(); i++) {
-			nNode = nList.item(i);
+		try {
+			Files.copy(backup.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+				channel.force(true);
+			}
+			Files.move(temp.toPath(), target.toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			forceDirectory(target);
+			return true;
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			temp.delete();
+			return false;
+		}
+	}
+	
+	/**
+	 * Applies the journal entries of the loaded snapshot to the task list
+	 * @param generation 
+	 * 		generation of the loaded snapshot
+	 */
+	private void replayJournal(String generation) {
+		List<TaskJournal.Entry> entries = _journal.readEntries(generation);
+		if (!entries.isEmpty()) {
+			loadMappedTasks();
+		}
+		applyEntries(entries);
+	}
+	
+	/**
+	 * Applies journal entries to the task list, which must not be mapped
+	 */
+	private void applyEntries(List<TaskJournal.Entry> entries) {
+		for (TaskJournal.Entry entry : entries) {
+			int index = locateID(entry.getId());
 			
-			if (nNode.getNodeType() == Node.ELEMENT_NODE) {
-				e = (Element) nNode;
-				e.setAttribute(TAG_ID, String.valueOf(i));
+			switch (entry.getOp()) {
+				case DELETE:
+					if (index >= 0) {
+						removeTask(entry.getId());
+					}
+					break;
+				default:
+					if (index < 0) {
+						_tasks.add(entry.getTask());
+						_index.put(entry.getId(), _tasks.size() - 1);
+					} else {
+						_tasks.set(index, entry.getTask());
+					}
+					break;
 			}
 		}
-		genXML();
 	}
-	//@@author A0076510M-reused
+	
 	/**
-	 * Remove text nodes that are used for indentation.
-	 * 
-	 * @param node 
-	 * 		A single node in XML file
+	 * Rewrites the file after a change, unless a batch is open
 	 */
-	private void removeEmptyText(Node node) {
-		Node child = node.getFirstChild();
-		while (child != null) {
-			Node sibling = child.getNextSibling();
-			if (child.getNodeType() == Node.TEXT_NODE) {
-				if (child.getTextContent().trim().isEmpty()) {
-					node.removeChild(child);
-				}
+	private boolean saveChange() {
+		if (_isBatching) {
+			_isDirty = true;
+			return true;
+		}
+		return genXML();
+	}
+	
+	/**
+	 * Removes the tasks which are in the file again from the archive
+	 */
+	private boolean removeUnarchived() {
+		boolean flag = true;
+		for (int id : _unarchivedIds) {
+			flag &= _archive.remove(id);
+		}
+		_unarchivedIds.clear();
+		return flag;
+	}
+	
+	/**
+	 * Forces an appended change to disk, unless a batch forces it together
+	 * with the others at its end
+	 */
+	private boolean logJournal(boolean flag) {
+		if (flag) {
+			LogHandler.getLog().log(Level.INFO, MSG_JOURNAL);
+		}
+		if (_isBatching) {
+			_isUnforced = true;
+		} else {
+			flag &= _journal.force();
+		}
+		return flag;
+	}
+	
+	/**
+	 * Writes data to XML file with the parameters. The tasks are written to
+	 * a temporary file which then replaces the file, see {@code replaceFile}.
+	 * In journal mode the file becomes a new snapshot and the journal is 
+	 * emptied, otherwise any journal left behind is removed. Holds the 
+	 * journal lock so that a background checkpoint cannot replace the file 
+	 * meanwhile.
+	 * @return 
+	 * 		true if succeeded, false if failed
+	 */
+	private boolean genXML() {
+		// The file is about to be replaced, so a mapping of it must not be used
+		loadMappedTasks();
+		compactTasks();
+		
+		synchronized (_journal) {
+			String generation = null;
+			
+			if (_isJournalMode) {
+				generation = UUID.randomUUID().toString();
+			}
+			
+			File temp = new File(_xmlFile.getPath() + TEMP_EXTENSION);
+			if (!writeSnapshot(_tasks, generation, temp, _isBinary)
+					|| !replaceFile(temp, _xmlFile)) {
+				return false;
+			}
+			
+			if (_isJournalMode) {
+				return _journal.reset(generation);
 			} else {
-				removeEmptyText(child);
+				_journal.discard();
+				return true;
 			}
-			child = sibling;
 		}
 	}
 
-	//@@author A0076510M
-	private String retrieveElement(Element e, String s) {
-		return e.getElementsByTagName(s).item(0).getTextContent();
+	/**
+	 * Locate and returns the position of a task in the task list
+	 * @param 
+	 * 		id
+	 * 			the id number of task entry
+	 * @return 
+	 * 		the index of the task with the corresponding id, -1 if absent
+	 */
+	private int locateID(int id) {
+		return _index.get(id);
 	}
-
-	private boolean printFile(Document document, int indent) {
-
-		removeEmptyText(document.getDocumentElement());
-
-		TransformerFactory transformerFactory = TransformerFactory.newInstance();
-		Result result = new StreamResult(_xmlFile);
-		Source source = new DOMSource(document);
-		Transformer transformer;
-		try {
-			transformer = transformerFactory.newTransformer();
-			transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-			transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", EMPTY_STRING + indent);
-			transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-			transformer.transform(source, result);
-			return true;
-		} catch (TransformerConfigurationException e) {
-			LogHandler.getLog().log(Level.SEVERE,  
-					(String.format(EXCEPTION_TRANSFORMER, e)));
-			return false;
-		} catch (TransformerException e) {
-			LogHandler.getLog().log(Level.SEVERE,
-					(String.format(EXCEPTION_TRANSFORMERCFG, e)));
-			return false;
+	
+	/**
+	 * Removes a task by leaving a gap in its place, so that the positions 
+	 * of the other tasks stay valid. Gaps are dropped once they make up 
+	 * half of the list, or before the list is written or handed out.
+	 * @param 
+	 * 		id
+	 * 			the id number of task entry
+	 */
+	private void removeTask(int id) {
+		int index = _index.remove(id);
+		_tasks.set(index, null);
+		_deletedCount++;
+		
+		if (_deletedCount * 2 > _tasks.size()) {
+			compactTasks();
+		}
+	}
+	
+	private void compactTasks() {
+		if (_deletedCount == 0) {
+			return;
+		}
+		
+		ArrayList<Task> tasks = new ArrayList<>(_tasks.size() - _deletedCount);
+		for (Task t : _tasks) {
+			if (t != null) {
+				tasks.add(t);
+			}
+		}
+		_tasks = tasks;
+		_deletedCount = 0;
+		indexTasks();
+	}
+	
+	/**
+	 * Maps the id of every task to its position in the task list
+	 */
+	private void indexTasks() {
+		_index = new IntIntHashMap(_tasks.size(), MISSING_INDEX);
+		for (int i = 0; i < _tasks.size(); i++) {
+			_index.put(_tasks.get(i).getId(), i);
+		}
+	}
+	
+	/**
+	 * Opens the journal for new entries, keeping the replayed ones, so that
+	 * the snapshot does not have to be rewritten. A snapshot without a 
+	 * generation is rewritten once to get one. Does nothing outside 
+	 * journal mode, where the next change rewrites the file.
+	 * @param generation 
+	 * 		generation of the loaded snapshot
+	 */
+	private void startJournal(String generation) {
+		if (!_isJournalMode) {
+			return;
+		}
+		
+		if (generation.isEmpty() || !_journal.resume(generation)) {
+			genXML();
+		}
+	}
+	
+	/**
+	 * Reads all tasks of a mapped snapshot into memory, so that the list 
+	 * can be changed.
+	 */
+	private void loadMappedTasks() {
+		if (_isMapped) {
+			_tasks = new ArrayList<>(_tasks);
+			_isMapped = false;
+			indexTasks();
 		}
-
 	}
 }
@@ -0,0 +1,533 @@
+//@@author A0076510M
+package storage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.logging.Level;
+
+import logger.LogHandler;
+import taskCollections.Task;
+import taskCollections.Task.FLAG_TYPE;
+import taskCollections.Task.PRIORITY_TYPE;
+
+/**
+ * Provides an append-only log of task mutations which is kept next to the
+ * tasks file. Each mutation is written as a single line, so the cost of
+ * recording a change does not depend on the size of the tasks file.
+ *
+ * The first line of the journal holds the generation of the snapshot it
+ * belongs to. Records are only replayed on top of a snapshot of the same
+ * generation. All methods are synchronized so that a background checkpoint
+ * can shorten the journal while entries are being appended.
+ * @author Zandercx
+ */
+
+public class TaskJournal {
+
+	private static final String JOURNAL_EXTENSION = ".journal";
+	private static final String TEMP_EXTENSION = ".tmp";
+	private static final String HEADER = "TASKJOURNAL";
+	private static final String FIELD_SEPARATOR = "\t";
+	private static final String LINE_SEPARATOR = "\n";
+	private static final byte LINE_END = '\n';
+	private static final char ESCAPE = '\\';
+	private static final int FIELDS_DELETE = 2;
+	private static final int FIELDS_TASK = 7;
+
+	private static final String EXCEPTION_IO = "IO Exception: %1$s";
+	private static final String MSG_REPLAY = "Replaying %1$s entries from journal.";
+	private static final String MSG_STALE = "Discarding journal of another snapshot.";
+	private static final String MSG_CORRUPT = "Ignoring corrupted journal entry: %1$s";
+
+	/**
+	 * Type of mutation recorded in the journal
+	 */
+	public enum OP {
+		ADD, UPDATE, DELETE
+	};
+
+	/**
+	 * A single mutation read back from the journal
+	 */
+	public static class Entry {
+		private final OP _op;
+		private final int _id;
+		private final Task _task;
+
+		private Entry(OP op, int id, Task task) {
+			_op = op;
+			_id = id;
+			_task = task;
+		}
+
+		public OP getOp() {
+			return _op;
+		}
+
+		public int getId() {
+			return _id;
+		}
+
+		/**
+		 * @return the task stored with this entry, null for deletions
+		 */
+		public Task getTask() {
+			return _task;
+		}
+	}
+
+	private File _journalFile;
+	private FileOutputStream _out;
+	private String _generation;
+	private long _size;
+	private long _headerSize;
+	private boolean _isForced;
+	private String _replayedGeneration;
+	private long _replayedSize;
+
+	public TaskJournal(String taskFileName) {
+		assert taskFileName != null;
+		assert !taskFileName.isEmpty();
+
+		_journalFile = new File(taskFileName + JOURNAL_EXTENSION);
+	}
+
+	/**
+	 * Reads all complete entries of the journal
+	 * @param generation
+	 * 		generation of the snapshot the entries are replayed on
+	 * @return
+	 * 		list of entries, empty if the journal is absent or belongs to
+	 * 		another snapshot
+	 */
+	public synchronized ArrayList<Entry> readEntries(String generation) {
+		ArrayList<Entry> entries = new ArrayList<>();
+		_replayedGeneration = null;
+		_replayedSize = 0;
+
+		if (generation == null || generation.isEmpty() || !_journalFile.exists()) {
+			return entries;
+		}
+
+		byte[] content;
+		try {
+			content = Files.readAllBytes(_journalFile.toPath());
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			return entries;
+		}
+
+		int end = parseEntries(content, generation, entries);
+		if (end < 0) {
+			return entries;
+		}
+
+		_replayedGeneration = generation;
+		_replayedSize = end;
+		LogHandler.getLog().log(Level.INFO, String.format(MSG_REPLAY, entries.size()));
+		return entries;
+	}
+
+	/**
+	 * Reads the entries written before {@code mark}, such as for a 
+	 * checkpoint, without changing where {@link #resume(String)} goes on 
+	 * appending from
+	 * @param generation
+	 * 		generation of the snapshot the entries are applied to
+	 * @param mark
+	 * 		size of the journal when the entries were all written
+	 * @return
+	 * 		list of entries, null if the journal could not be read or 
+	 * 		belongs to another snapshot
+	 */
+	public synchronized ArrayList<Entry> readEntries(String generation, long mark) {
+		assert generation != null;
+
+		if (!generation.equals(_generation) || mark > _size) {
+			return null;
+		}
+
+		byte[] content = new byte[(int) mark];
+		try (RandomAccessFile journal = new RandomAccessFile(_journalFile, "r")) {
+			journal.readFully(content);
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			return null;
+		}
+
+		ArrayList<Entry> entries = new ArrayList<>();
+		return parseEntries(content, generation, entries) == mark ? entries : null;
+	}
+
+	/**
+	 * Parses the complete entries of a journal of a generation
+	 * @return
+	 * 		offset after the last entry parsed, -1 if the journal is of 
+	 * 		another generation
+	 */
+	private int parseEntries(byte[] content, String generation, ArrayList<Entry> entries) {
+		// Only lines ending with a separator were written completely
+		int end = indexOfLineEnd(content, 0);
+		if (end < 0) {
+			return -1;
+		}
+		if (!decode(content, 0, end).equals(HEADER + FIELD_SEPARATOR + generation)) {
+			LogHandler.getLog().log(Level.INFO, MSG_STALE);
+			return -1;
+		}
+
+		int start = end + 1;
+		while ((end = indexOfLineEnd(content, start)) >= 0) {
+			String line = decode(content, start, end);
+			Entry entry = parseEntry(line);
+			if (entry == null) {
+				LogHandler.getLog().log(Level.WARNING, String.format(MSG_CORRUPT, line));
+				break;
+			}
+			entries.add(entry);
+			start = end + 1;
+		}
+		return start;
+	}
+
+	/**
+	 * Keeps appending to the journal that entries were last read from, so 
+	 * that the snapshot does not have to be rewritten to include them. 
+	 * Anything after the last complete entry is cut off first. If the 
+	 * journal was not read for this generation, an empty one is started.
+	 * @param generation
+	 * 		generation of the loaded snapshot
+	 * @return
+	 * 		true if operation succeeded, false if failed.
+	 */
+	public synchronized boolean resume(String generation) {
+		assert generation != null;
+
+		if (!generation.equals(_replayedGeneration)) {
+			return reset(generation);
+		}
+
+		close();
+		try (RandomAccessFile journal = new RandomAccessFile(_journalFile, "rw")) {
+			journal.setLength(_replayedSize);
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			return false;
+		}
+
+		try {
+			_out = new FileOutputStream(_journalFile, true);
+			_generation = generation;
+			_size = _replayedSize;
+			_headerSize = getHeader(generation).length;
+			_isForced = true;
+			return true;
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			return false;
+		}
+	}
+
+	/**
+	 * Empties the journal and ties it to a new snapshot
+	 * @param generation
+	 * 		generation of the snapshot that was just written
+	 * @return
+	 * 		true if operation succeeded, false if failed.
+	 */
+	public synchronized boolean reset(String generation) {
+		assert generation != null;
+
+		close();
+		_generation = generation;
+
+		byte[] header = getHeader(generation);
+		try {
+			_out = new FileOutputStream(_journalFile, false);
+			_out.write(header);
+			_size = _headerSize = header.length;
+			_isForced = true;
+			return true;
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			close();
+			return false;
+		}
+	}
+
+	/**
+	 * Drops the entries written before {@code mark}, keeping the ones 
+	 * appended after it. The shortened journal replaces the old one in a 
+	 * single rename, which is forced to disk with the directory.
+	 * @param mark
+	 * 		size of the journal when the snapshot covering the dropped 
+	 * 		entries was taken
+	 * @return
+	 * 		true if operation succeeded, false if failed.
+	 */
+	public synchronized boolean truncate(long mark) {
+		assert mark >= _headerSize && mark <= _size;
+
+		if (_out == null) {
+			return false;
+		}
+
+		File tempFile = new File(_journalFile.getPath() + TEMP_EXTENSION);
+		byte[] header = getHeader(_generation);
+		byte[] tail = new byte[(int) (_size - mark)];
+
+		try (RandomAccessFile journal = new RandomAccessFile(_journalFile, "r");
+				FileOutputStream out = new FileOutputStream(tempFile)) {
+			journal.seek(mark);
+			journal.readFully(tail);
+			out.write(header);
+			out.write(tail);
+			out.getFD().sync();
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			tempFile.delete();
+			return false;
+		}
+
+		close();
+		try {
+			Files.move(tempFile.toPath(), _journalFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			TaskFileHandler.forceDirectory(_journalFile);
+			_size = header.length + tail.length;
+			_headerSize = header.length;
+			_isForced = true;
+			_out = new FileOutputStream(_journalFile, true);
+			return true;
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			return false;
+		}
+	}
+
+	/**
+	 * Removes the journal file, used once a snapshot no longer needs it
+	 */
+	public synchronized void discard() {
+		close();
+		_generation = null;
+		_size = _headerSize = 0;
+		_journalFile.delete();
+	}
+
+	public synchronized boolean appendAdd(Task t) {
+		return append(formatTask(OP.ADD, t));
+	}
+
+	public synchronized boolean appendUpdate(Task t) {
+		return append(formatTask(OP.UPDATE, t));
+	}
+
+	public synchronized boolean appendDelete(int id) {
+		return append(OP.DELETE + FIELD_SEPARATOR + id);
+	}
+
+	/**
+	 * Forces the entries appended so far to disk
+	 * @return
+	 * 		true if operation succeeded, false if failed.
+	 */
+	public synchronized boolean force() {
+		if (_out == null) {
+			return false;
+		}
+
+		try {
+			_out.getFD().sync();
+			_isForced = true;
+			return true;
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the size of the journal in bytes
+	 * @return
+	 * 		number of bytes written since the last reset
+	 */
+	public synchronized long size() {
+		return _size;
+	}
+
+	/**
+	 * @return true if every entry appended so far was forced to disk
+	 */
+	public synchronized boolean isForced() {
+		return _isForced;
+	}
+
+	/**
+	 * @return true if no entry was appended since the last reset
+	 */
+	public synchronized boolean isEmpty() {
+		return _size <= _headerSize;
+	}
+
+	public synchronized String getGeneration() {
+		return _generation;
+	}
+
+	private byte[] getHeader(String generation) {
+		return (HEADER + FIELD_SEPARATOR + generation + LINE_SEPARATOR)
+				.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private int indexOfLineEnd(byte[] content, int from) {
+		for (int i = from; i < content.length; i++) {
+			if (content[i] == LINE_END) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private String decode(byte[] content, int start, int end) {
+		return new String(content, start, end - start, StandardCharsets.UTF_8);
+	}
+
+	private boolean append(String record) {
+		if (_out == null) {
+			return false;
+		}
+
+		byte[] bytes = (record + LINE_SEPARATOR).getBytes(StandardCharsets.UTF_8);
+		try {
+			_out.write(bytes);
+			_size += bytes.length;
+			_isForced = false;
+			return true;
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+			return false;
+		}
+	}
+
+	/**
+	 * Closes the journal file, so that it can be appended to by another
+	 * {@code TaskJournal} of the same tasks file
+	 */
+	public synchronized void close() {
+		if (_out == null) {
+			return;
+		}
+		try {
+			_out.close();
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_IO, e));
+		}
+		_out = null;
+	}
+
+	private String formatTask(OP op, Task t) {
+		assert t != null;
+
+		return op + FIELD_SEPARATOR + t.getId()
+				+ FIELD_SEPARATOR + t.getStartTime()
+				+ FIELD_SEPARATOR + t.getEndTime()
+				+ FIELD_SEPARATOR + t.getFlag()
+				+ FIELD_SEPARATOR + t.getPriority()
+				+ FIELD_SEPARATOR + escape(t.getName());
+	}
+
+	private Entry parseEntry(String line) {
+		String[] fields = line.split(FIELD_SEPARATOR, FIELDS_TASK);
+
+		try {
+			OP op = OP.valueOf(fields[0]);
+			int id = Integer.parseInt(fields[1]);
+
+			if (op == OP.DELETE) {
+				return fields.length == FIELDS_DELETE ? new Entry(op, id, null) : null;
+			}
+			if (fields.length != FIELDS_TASK) {
+				return null;
+			}
+
+			long startTime = Long.parseLong(fields[2]);
+			long endTime = Long.parseLong(fields[3]);
+			FLAG_TYPE flag = FLAG_TYPE.valueOf(fields[4]);
+			PRIORITY_TYPE priority = PRIORITY_TYPE.valueOf(fields[5]);
+			String title = unescape(fields[6]);
+
+			return new Entry(op, id, new Task(id, title, startTime, endTime, flag, priority));
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Escapes characters that would otherwise break a journal line
+	 */
+	private String escape(String s) {
+		StringBuilder sb = new StringBuilder(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case ESCAPE:
+					sb.append(ESCAPE).append(ESCAPE);
+					break;
+				case '\t':
+					sb.append(ESCAPE).append('t');
+					break;
+				case '\n':
+					sb.append(ESCAPE).append('n');
+					break;
+				case '\r':
+					sb.append(ESCAPE).append('r');
+					break;
+				default:
+					sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private String unescape(String s) {
+		StringBuilder sb = new StringBuilder(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == ESCAPE && i + 1 < s.length()) {
+				char next = s.charAt(++i);
+				switch (next) {
+					case 't':
+						sb.append('\t');
+						break;
+					case 'n':
+						sb.append('\n');
+						break;
+					case 'r':
+						sb.append('\r');
+						break;
+					default:
+						sb.append(next);
+				}
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,407 @@
+//@@author A0076510M
+package storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+import logger.LogHandler;
+import taskCollections.Task;
+
+/**
+ * Passes changes of the tasks to a {@code TaskStore}, either directly
+ * or through a bounded queue which a writer thread works off, so that the
+ * caller does not wait for the file to be written.
+ *
+ * Queued changes hold copies of the tasks, as the caller may keep changing
+ * its own. When the queue is full, the caller waits for it to have room.
+ * Failures of queued changes are reported by {@link #flush()}, or by
+ * {@link #pollFailure()} without waiting for the queue.
+ * @author Zandercx
+ */
+
+public class TaskStorageWriter {
+
+	/**
+	 * When changes are written to the file
+	 */
+	public enum MODE {
+		// Before the call returns
+		SYNC,
+		// As soon as the writer thread gets to them
+		ASYNC,
+		// In groups, collected for a fixed interval after the first change
+		GROUP_COMMIT
+	};
+
+	private enum OP {
+		ADD, UPDATE, DELETE, REPLACE, ARCHIVE, FLUSH, STOP
+	};
+
+	/**
+	 * A change waiting in the queue
+	 */
+	private static class Change {
+		private final OP _op;
+		private final int _id;
+		private final Task _task;
+		private final ArrayList<Task> _tasks;
+		private final CountDownLatch _done;
+
+		private Change(OP op, int id, Task task, ArrayList<Task> tasks, CountDownLatch done) {
+			_op = op;
+			_id = id;
+			_task = task;
+			_tasks = tasks;
+			_done = done;
+		}
+	}
+
+	public static final long GROUP_COMMIT_INTERVAL = 50;
+	private static final int QUEUE_CAPACITY = 1024;
+	private static final long FLUSH_POLL_INTERVAL = 100;
+	private static final String THREAD_NAME = "TaskStorageWriter";
+
+	private static final String EXCEPTION_INTERRUPTED = "Interrupted while waiting for writer: %1$s";
+	private static final String EXCEPTION_WRITE = "Writing queued change failed: %1$s";
+	private static final String MSG_FAILED = "Queued change could not be written: %1$s";
+
+	private TaskStore _store;
+	private MODE _mode;
+	private long _interval;
+	private BlockingQueue<Change> _queue;
+	private Thread _thread;
+	private Thread _shutdownHook;
+	private final AtomicBoolean _isFailed = new AtomicBoolean();
+	private volatile boolean _isClosed;
+
+	public TaskStorageWriter(TaskStore store, MODE mode) {
+		this(store, mode, GROUP_COMMIT_INTERVAL);
+	}
+
+	/**
+	 * Starts the writer thread unless the mode is {@code SYNC}. The store
+	 * must not be used by anyone else afterwards.
+	 * @param store
+	 * 		store of the loaded tasks
+	 * @param mode
+	 * 		when changes are written
+	 * @param interval
+	 * 		milliseconds to collect changes for in {@code GROUP_COMMIT} mode
+	 */
+	public TaskStorageWriter(TaskStore store, MODE mode, long interval) {
+		assert store != null;
+		assert mode != null;
+		assert interval >= 0;
+
+		_store = store;
+		_mode = mode;
+		_interval = interval;
+
+		if (_mode == MODE.SYNC) {
+			return;
+		}
+
+		// The caller keeps changing the tasks it was given
+		_store.copyTasks();
+		_queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+		_thread = new Thread(THREAD_NAME) {
+			@Override
+			public void run() {
+				writeChanges();
+			}
+		};
+		_thread.setDaemon(true);
+		_thread.start();
+
+		// Changes still queued when the program is closed are written first
+		_shutdownHook = new Thread() {
+			@Override
+			public void run() {
+				flush();
+			}
+		};
+		Runtime.getRuntime().addShutdownHook(_shutdownHook);
+	}
+
+	public MODE getMode() {
+		return _mode;
+	}
+
+	/**
+	 * @return
+	 * 		true if the task was added, or queued to be added
+	 */
+	public boolean add(Task t) {
+		assert t != null;
+
+		if (_mode == MODE.SYNC) {
+			return checkpoint(_store.add(t));
+		}
+		return enqueue(new Change(OP.ADD, t.getId(), TaskFileHandler.copyTask(t), null, null));
+	}
+
+	/**
+	 * @return
+	 * 		true if the task was updated, or queued to be updated
+	 */
+	public boolean update(Task t) {
+		assert t != null;
+
+		if (_mode == MODE.SYNC) {
+			return checkpoint(_store.update(t));
+		}
+		return enqueue(new Change(OP.UPDATE, t.getId(), TaskFileHandler.copyTask(t), null, null));
+	}
+
+	/**
+	 * @return
+	 * 		true if the task was deleted, or queued to be deleted
+	 */
+	public boolean delete(int id) {
+		if (_mode == MODE.SYNC) {
+			return checkpoint(_store.delete(id));
+		}
+		return enqueue(new Change(OP.DELETE, id, null, null, null));
+	}
+
+	/**
+	 * @return
+	 * 		true if the tasks were replaced, or queued to be replaced
+	 * @see TaskStore#replaceTasks(Collection)
+	 */
+	public boolean replaceTasks(Collection<Task> tasks) {
+		assert tasks != null;
+
+		if (_mode == MODE.SYNC) {
+			return _store.replaceTasks(tasks);
+		}
+
+		return enqueue(new Change(OP.REPLACE, 0, null, copyTasks(tasks), null));
+	}
+
+	/**
+	 * @return
+	 * 		true if the tasks were archived, or queued to be archived
+	 * @see TaskStore#archiveTasks(Collection)
+	 */
+	public boolean archiveTasks(Collection<Task> tasks) {
+		assert tasks != null;
+
+		if (_mode == MODE.SYNC) {
+			return _store.archiveTasks(tasks);
+		}
+		return enqueue(new Change(OP.ARCHIVE, 0, null, copyTasks(tasks), null));
+	}
+
+	/**
+	 * Waits until every change queued so far is written, as those may
+	 * archive tasks, and then reads the archived tasks
+	 * @return
+	 * 		archived tasks, null if reading failed
+	 * @see TaskStore#retrieveArchivedTasks()
+	 */
+	public List<Task> retrieveArchivedTasks() {
+		flush();
+		return _store.retrieveArchivedTasks();
+	}
+
+	/**
+	 * Waits until every change queued so far is written
+	 * @return
+	 * 		true if every queued change since the last flush was written,
+	 * 		false if any failed
+	 */
+	public boolean flush() {
+		if (_mode == MODE.SYNC) {
+			return true;
+		}
+
+		CountDownLatch done = new CountDownLatch(1);
+		if (enqueue(new Change(OP.FLUSH, 0, null, null, done))) {
+			try {
+				// The writer thread may have been stopped meanwhile
+				while (!done.await(FLUSH_POLL_INTERVAL, TimeUnit.MILLISECONDS)
+						&& _thread.isAlive()) {
+				}
+			} catch (InterruptedException e) {
+				LogHandler.getLog().log(Level.WARNING,
+						String.format(EXCEPTION_INTERRUPTED, e));
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		return !_isFailed.getAndSet(false);
+	}
+
+	/**
+	 * Checks whether a queued change failed to be written, without waiting
+	 * for the changes still queued
+	 * @return
+	 * 		true if a change failed since the last flush or the last poll
+	 */
+	public boolean pollFailure() {
+		return _isFailed.getAndSet(false);
+	}
+
+	/**
+	 * Writes every queued change and stops the writer thread. Changes
+	 * passed afterwards are not written.
+	 * @return
+	 * 		true if every queued change since the last flush was written,
+	 * 		false if any failed
+	 */
+	public boolean close() {
+		if (_mode == MODE.SYNC) {
+			return true;
+		}
+
+		boolean flag = flush();
+		synchronized (this) {
+			if (_isClosed) {
+				return flag;
+			}
+			_isClosed = true;
+		}
+
+		put(new Change(OP.STOP, 0, null, null, null));
+		try {
+			Runtime.getRuntime().removeShutdownHook(_shutdownHook);
+		} catch (IllegalStateException e) {
+			// Already shutting down, the hook has flushed the queue
+		}
+		return flag;
+	}
+
+	private static ArrayList<Task> copyTasks(Collection<Task> tasks) {
+		ArrayList<Task> copies = new ArrayList<>(tasks.size());
+		for (Task t : tasks) {
+			copies.add(TaskFileHandler.copyTask(t));
+		}
+		return copies;
+	}
+
+	private boolean checkpoint(boolean flag) {
+		_store.checkpointIfDue();
+		return flag;
+	}
+
+	private boolean enqueue(Change change) {
+		if (_isClosed) {
+			return false;
+		}
+		return put(change);
+	}
+
+	private boolean put(Change change) {
+		try {
+			_queue.put(change);
+			return true;
+		} catch (InterruptedException e) {
+			LogHandler.getLog().log(Level.WARNING,
+					String.format(EXCEPTION_INTERRUPTED, e));
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Loop of the writer thread. Changes that are queued together are
+	 * written as one batch, so the file is rewritten once per batch.
+	 */
+	private void writeChanges() {
+		ArrayList<Change> batch = new ArrayList<>();
+
+		while (true) {
+			try {
+				batch.add(_queue.take());
+				if (_mode == MODE.GROUP_COMMIT && _interval > 0) {
+					Thread.sleep(_interval);
+				}
+			} catch (InterruptedException e) {
+				LogHandler.getLog().log(Level.WARNING,
+						String.format(EXCEPTION_INTERRUPTED, e));
+				return;
+			}
+			_queue.drainTo(batch);
+
+			boolean isStopped = writeBatch(batch);
+			batch.clear();
+			if (isStopped) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return true if the writer thread should stop
+	 */
+	private boolean writeBatch(ArrayList<Change> batch) {
+		ArrayList<CountDownLatch> flushes = new ArrayList<>();
+		boolean isStopped = false;
+
+		_store.beginBatch();
+		for (Change change : batch) {
+			switch (change._op) {
+				case FLUSH:
+					flushes.add(change._done);
+					break;
+				case STOP:
+					isStopped = true;
+					break;
+				default:
+					write(change);
+					break;
+			}
+		}
+		if (!_store.endBatch()) {
+			_isFailed.set(true);
+		}
+		_store.checkpointIfDue();
+
+		for (CountDownLatch done : flushes) {
+			done.countDown();
+		}
+		return isStopped;
+	}
+
+	private void write(Change change) {
+		boolean flag;
+		try {
+			switch (change._op) {
+				case ADD:
+					flag = _store.add(change._task);
+					break;
+				case UPDATE:
+					flag = _store.update(change._task);
+					break;
+				case DELETE:
+					flag = _store.delete(change._id);
+					break;
+				case ARCHIVE:
+					flag = _store.archiveTasks(change._tasks);
+					break;
+				default:
+					flag = _store.replaceTasks(change._tasks);
+					break;
+			}
+		} catch (RuntimeException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					String.format(EXCEPTION_WRITE, e));
+			flag = false;
+		}
+
+		if (!flag) {
+			LogHandler.getLog().log(Level.SEVERE, String.format(MSG_FAILED, change._op));
+			_isFailed.set(true);
+		}
+	}
+}
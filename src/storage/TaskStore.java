@@ -0,0 +1,147 @@
+//@@author A0076510M
+package storage;
+
+import java.util.Collection;
+import java.util.List;
+
+import taskCollections.Task;
+
+/**
+ * Specifies how tasks are kept between runs of the program. Changes are
+ * passed to a store one at a time, identified by the id of the task.
+ * @author Zandercx
+ */
+
+public interface TaskStore {
+
+	/**
+	 * Kinds of stores which can be chosen in the settings file
+	 */
+	public enum TYPE {
+		// XML file, rewritten on every change
+		XML,
+		// XML file, with changes appended to a journal
+		JOURNAL,
+		// Binary file, with changes appended to a journal
+		BINARY,
+		// Nothing is kept on disk
+		MEMORY
+	};
+
+	/**
+	 * Loads the tasks kept in a file
+	 * @return
+	 * 		true if loading succeeded, false if failed.
+	 */
+	public boolean loadTaskFile(String fileName);
+
+	/**
+	 * Returns the loaded tasks, including the changes passed since
+	 * @return
+	 * 		List<Task> : List of Tasks
+	 */
+	public List<Task> retrieveTasks();
+
+	/**
+	 * Reads the loaded tasks again in full, after one of them could not be
+	 * read from the file when it was requested
+	 * @return
+	 * 		true if the tasks were read again, false if only the tasks which
+	 * 		could still be read were kept
+	 */
+	public boolean reloadTaskFile();
+
+	/**
+	 * @return
+	 * 		true if operation succeeded, false if failed.
+	 */
+	public boolean add(Task t);
+
+	/**
+	 * Deletes a task, whether it is loaded or archived
+	 * @param id
+	 * 		ID number of Task
+	 * @return
+	 * 		true if operation succeeded, false if failed.
+	 */
+	public boolean delete(int id);
+
+	/**
+	 * Updates a task, which is kept with the loaded tasks again if it was
+	 * archived
+	 * @return
+	 * 		true if operation succeeded, false if failed.
+	 */
+	public boolean update(Task t);
+
+	/**
+	 * Replaces all tasks, including archived ones, such as after the tasks
+	 * were given new ids
+	 * @param tasks
+	 * 		all tasks, in order
+	 * @return
+	 * 		true if operation succeeded, false if failed.
+	 */
+	public boolean replaceTasks(Collection<Task> tasks);
+
+	/**
+	 * Allows the changes passed until {@link #endBatch()} to be written
+	 * together
+	 */
+	public void beginBatch();
+
+	/**
+	 * Writes the changes passed since {@link #beginBatch()}
+	 * @return
+	 * 		true if succeeded or nothing had to be written, false if failed
+	 */
+	public boolean endBatch();
+
+	/**
+	 * Stops sharing task objects with the caller, so that tasks retrieved
+	 * before can be changed without changing the ones of this store
+	 */
+	public void copyTasks();
+
+	/**
+	 * Lets the store compact what it has written, if it is due
+	 * @return
+	 * 		true if compacting was started
+	 */
+	public boolean checkpointIfDue();
+
+	/**
+	 * Moves tasks out of the loaded tasks into an archive, which is neither
+	 * loaded nor written with them
+	 * @param tasks
+	 * 		loaded tasks to be archived
+	 * @return
+	 * 		true if operation succeeded, false if failed.
+	 */
+	public boolean archiveTasks(Collection<Task> tasks);
+
+	/**
+	 * Reads the archived tasks, which stay archived until they are updated
+	 * @return
+	 * 		List<Task> : archived tasks, null if reading failed
+	 */
+	public List<Task> retrieveArchivedTasks();
+
+	/**
+	 * Creates an empty store of a given type
+	 * @param type
+	 * 		kind of store to create
+	 */
+	public static TaskStore newTaskStore(TYPE type) {
+		switch (type) {
+			case XML:
+				return new TaskFileHandler(false);
+			case BINARY:
+				return new TaskFileHandler(true, true);
+			case MEMORY:
+				return new MemoryTaskStore();
+			default:
+				return new TaskFileHandler(true);
+		}
+	}
+}
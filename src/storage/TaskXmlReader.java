@@ -0,0 +1,316 @@
+//@@author A0076510M
+package storage;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import logger.LogHandler;
+import taskCollections.Task;
+import taskCollections.Task.FLAG_TYPE;
+import taskCollections.Task.PRIORITY_TYPE;
+import util.TimeUtil;
+
+/**
+ * Reads the tasks file in a single streaming pass, which only collects the
+ * text of each task element, so no document tree is kept in memory. The 
+ * collected fields are then parsed into tasks in chunks on the common 
+ * {@code ForkJoinPool}, as parsing dates is most of the work of loading.
+ * @author Zandercx
+ */
+
+public class TaskXmlReader {
+
+	private static final String PRIORITY_HIGH = "HIGH";
+	private static final String PRIORITY_NORMAL = "NORMAL";
+	private static final String PRIORITY_LOW = "LOW";
+	private static final String MARKED_TASK = "DONE";
+	private static final String UNMARKED_TASK = "NULL";
+	private static final String TAG_TASK = "task";
+	private static final String TAG_ID = "id";
+	private static final String TAG_TITLE = "title";
+	private static final String TAG_STARTTIME = "startTime";
+	private static final String TAG_ENDTIME = "endTime";
+	private static final String TAG_FLAG = "flag";
+	private static final String TAG_PRIORITY = "priority";
+	private static final String ATTR_JOURNAL = "journal";
+	private static final String EMPTY_STRING = "";
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int CHUNK_SIZE = 1024;
+
+	private static final String EXCEPTION_STREAM = "XML Stream Exception: %1$s";
+	private static final String EXCEPTION_IO = "IO Exception: %1$s";
+	private static final String MSG_INVALID = "Invalid task entry in XML File: %1$s";
+	private static final String MSG_INVALID_LINE = "Invalid task entry in XML File at line %1$s";
+
+	/**
+	 * Text of the fields of one task element, not parsed yet
+	 */
+	private static class TaskRecord {
+		private int _id;
+		private int _line;
+		private String _title;
+		private String _startTime;
+		private String _endTime;
+		private String _flag;
+		private String _priority;
+
+		/**
+		 * @return the task, or null if a field is missing or invalid
+		 */
+		private Task parse() {
+			if (_title == null || _startTime == null || _endTime == null
+					|| _flag == null || _priority == null) {
+				return null;
+			}
+
+			long start = TimeUtil.getLongTime(_startTime);
+			long end = TimeUtil.getLongTime(_endTime);
+			FLAG_TYPE flagType = detFlag(_flag);
+			PRIORITY_TYPE priorityType = detPriority(_priority);
+
+			if (start == -1 || end == -1 || flagType == null || priorityType == null) {
+				return null;
+			}
+
+			return new Task(_id, _title, start, end, flagType, priorityType);
+		}
+	}
+
+	/**
+	 * Parses a range of records, splitting it in halves until it is no 
+	 * larger than {@code CHUNK_SIZE}
+	 */
+	private static class ParseAction extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final ArrayList<TaskRecord> _records;
+		private final Task[] _tasks;
+		private final int _from;
+		private final int _to;
+
+		private ParseAction(ArrayList<TaskRecord> records, Task[] tasks, int from, int to) {
+			_records = records;
+			_tasks = tasks;
+			_from = from;
+			_to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (_to - _from <= CHUNK_SIZE) {
+				for (int i = _from; i < _to; i++) {
+					_tasks[i] = _records.get(i).parse();
+				}
+				return;
+			}
+
+			int middle = (_from + _to) >>> 1;
+			invokeAll(new ParseAction(_records, _tasks, _from, middle),
+					new ParseAction(_records, _tasks, middle, _to));
+		}
+	}
+
+	private File _xmlFile;
+	private ArrayList<Task> _tasks;
+	private String _generation;
+
+	public TaskXmlReader(File xmlFile) {
+		assert xmlFile != null;
+
+		_xmlFile = xmlFile;
+	}
+
+	/**
+	 * Reads all tasks of the file
+	 * @return
+	 * 		true if every task could be read, false if failed
+	 */
+	public boolean read() {
+		_tasks = new ArrayList<>();
+		_generation = EMPTY_STRING;
+
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+		XMLStreamReader reader = null;
+		try (InputStream in = new BufferedInputStream(new FileInputStream(_xmlFile), BUFFER_SIZE)) {
+			reader = factory.createXMLStreamReader(in);
+			return readTaskList(reader);
+		} catch (XMLStreamException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					(String.format(EXCEPTION_STREAM, e)));
+			return false;
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					(String.format(EXCEPTION_IO, e)));
+			return false;
+		} finally {
+			close(reader);
+		}
+	}
+
+	/**
+	 * @return tasks in the order they appear in the file
+	 */
+	public ArrayList<Task> getTasks() {
+		return _tasks;
+	}
+
+	/**
+	 * @return generation of the journal the file belongs to, empty if none
+	 */
+	public String getGeneration() {
+		return _generation;
+	}
+
+	private boolean readTaskList(XMLStreamReader reader) throws XMLStreamException {
+		reader.nextTag();
+		String generation = reader.getAttributeValue(null, ATTR_JOURNAL);
+		if (generation != null) {
+			_generation = generation;
+		}
+
+		ArrayList<TaskRecord> records = new ArrayList<>();
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			if (!reader.getLocalName().equals(TAG_TASK)) {
+				skipElement(reader);
+				continue;
+			}
+
+			TaskRecord record = readTask(reader);
+			if (record == null) {
+				LogHandler.getLog().log(Level.WARNING,
+						String.format(MSG_INVALID, reader.getLocation()));
+				return false;
+			}
+			records.add(record);
+		}
+		return parseTasks(records);
+	}
+
+	/**
+	 * Parses the records into the task list on the common 
+	 * {@code ForkJoinPool}, in chunks of up to {@code CHUNK_SIZE} tasks, and 
+	 * waits until every chunk is parsed. Each task keeps the place of its 
+	 * record in the file.
+	 * @return
+	 * 		true if every record is a valid task, false if any is not
+	 */
+	private boolean parseTasks(ArrayList<TaskRecord> records) {
+		Task[] tasks = new Task[records.size()];
+		ForkJoinPool.commonPool().invoke(new ParseAction(records, tasks, 0, tasks.length));
+
+		for (int i = 0; i < tasks.length; i++) {
+			if (tasks[i] == null) {
+				LogHandler.getLog().log(Level.WARNING,
+						String.format(MSG_INVALID_LINE, records.get(i)._line));
+				return false;
+			}
+		}
+		_tasks = new ArrayList<>(Arrays.asList(tasks));
+		return true;
+	}
+
+	/**
+	 * Reads the fields of one task element, leaving the reader at its end 
+	 * tag
+	 * @return
+	 * 		the fields, or null if the id is invalid
+	 */
+	private TaskRecord readTask(XMLStreamReader reader) throws XMLStreamException {
+		TaskRecord record = new TaskRecord();
+		record._line = reader.getLocation().getLineNumber();
+
+		try {
+			record._id = Integer.parseInt(reader.getAttributeValue(null, TAG_ID));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			switch (reader.getLocalName()) {
+				case TAG_TITLE:
+					record._title = reader.getElementText();
+					break;
+				case TAG_STARTTIME:
+					record._startTime = reader.getElementText();
+					break;
+				case TAG_ENDTIME:
+					record._endTime = reader.getElementText();
+					break;
+				case TAG_FLAG:
+					record._flag = reader.getElementText();
+					break;
+				case TAG_PRIORITY:
+					record._priority = reader.getElementText();
+					break;
+				default:
+					skipElement(reader);
+					break;
+			}
+		}
+		return record;
+	}
+
+	private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private void close(XMLStreamReader reader) {
+		if (reader == null) {
+			return;
+		}
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					(String.format(EXCEPTION_STREAM, e)));
+		}
+	}
+
+	private static FLAG_TYPE detFlag(String s) {
+		switch (s) {
+			case UNMARKED_TASK:
+				return FLAG_TYPE.NULL;
+			case MARKED_TASK:
+				return FLAG_TYPE.DONE;
+			default:
+				return null;
+			}
+	}
+
+	private static PRIORITY_TYPE detPriority(String s) {
+		switch (s) {
+			case PRIORITY_HIGH:
+				return PRIORITY_TYPE.HIGH;
+			case PRIORITY_NORMAL:
+				return PRIORITY_TYPE.NORMAL;
+			case PRIORITY_LOW:
+				return PRIORITY_TYPE.LOW;
+			default:
+				return null;
+			}
+	}
+}
@@ -0,0 +1,141 @@
+//@@author A0076510M
+package storage;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.logging.Level;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import logger.LogHandler;
+import taskCollections.Task;
+import util.TimeUtil;
+
+/**
+ * Writes tasks to the tasks file as a stream, one element at a time, in the
+ * same layout as files written through a DOM transform. Files written by
+ * either can be read by {@code TaskXmlReader}. The file is forced to disk
+ * before {@code write} returns.
+ * @author Zandercx
+ */
+
+public class TaskXmlWriter {
+
+	private static final String ENCODING = "UTF-8";
+	private static final String DECLARATION =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+	private static final String INDENT = "    ";
+	private static final String NEWLINE = System.lineSeparator();
+	private static final String TAG_ROOT = "tasklist";
+	private static final String TAG_TASK = "task";
+	private static final String TAG_ID = "id";
+	private static final String TAG_TITLE = "title";
+	private static final String TAG_STARTTIME = "startTime";
+	private static final String TAG_ENDTIME = "endTime";
+	private static final String TAG_FLAG = "flag";
+	private static final String TAG_PRIORITY = "priority";
+	private static final String ATTR_JOURNAL = "journal";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final String EXCEPTION_STREAM = "XML Stream Exception: %1$s";
+	private static final String EXCEPTION_IO = "IO Exception: %1$s";
+
+	private File _xmlFile;
+
+	public TaskXmlWriter(File xmlFile) {
+		assert xmlFile != null;
+
+		_xmlFile = xmlFile;
+	}
+
+	/**
+	 * Replaces the content of the file with the tasks
+	 * @param tasks
+	 * 		tasks to be written, in order
+	 * @param generation
+	 * 		generation of the journal the file belongs to, null if none
+	 * @return
+	 * 		true if succeeded, false if failed
+	 */
+	public boolean write(Collection<Task> tasks, String generation) {
+		assert tasks != null;
+
+		XMLOutputFactory factory = XMLOutputFactory.newInstance();
+
+		try (FileChannel channel = FileChannel.open(_xmlFile.toPath(), StandardOpenOption.WRITE,
+						StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+				OutputStream out = new BufferedOutputStream(
+						Channels.newOutputStream(channel), BUFFER_SIZE)) {
+
+			out.write((DECLARATION + NEWLINE).getBytes(StandardCharsets.UTF_8));
+			XMLStreamWriter writer = factory.createXMLStreamWriter(out, ENCODING);
+
+			if (tasks.isEmpty()) {
+				writer.writeEmptyElement(TAG_ROOT);
+				writeGeneration(writer, generation);
+			} else {
+				writer.writeStartElement(TAG_ROOT);
+				writeGeneration(writer, generation);
+				for (Task t : tasks) {
+					writeTask(writer, t);
+				}
+				writer.writeCharacters(NEWLINE);
+				writer.writeEndElement();
+			}
+			writer.writeCharacters(NEWLINE);
+			writer.close();
+			out.flush();
+			channel.force(true);
+			return true;
+		} catch (XMLStreamException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					(String.format(EXCEPTION_STREAM, e)));
+			return false;
+		} catch (IOException e) {
+			LogHandler.getLog().log(Level.SEVERE,
+					(String.format(EXCEPTION_IO, e)));
+			return false;
+		}
+	}
+
+	private void writeGeneration(XMLStreamWriter writer, String generation) throws XMLStreamException {
+		if (generation != null) {
+			writer.writeAttribute(ATTR_JOURNAL, generation);
+		}
+	}
+
+	private void writeTask(XMLStreamWriter writer, Task t) throws XMLStreamException {
+		writer.writeCharacters(NEWLINE + INDENT);
+		writer.writeStartElement(TAG_TASK);
+		writer.writeAttribute(TAG_ID, String.valueOf(t.getId()));
+
+		writeField(writer, TAG_TITLE, t.getName());
+		writeField(writer, TAG_STARTTIME, TimeUtil.getFormattedDate(t.getStartTime()));
+		writeField(writer, TAG_ENDTIME, TimeUtil.getFormattedDate(t.getEndTime()));
+		writeField(writer, TAG_FLAG, t.getFlag().toString());
+		writeField(writer, TAG_PRIORITY, t.getPriority().toString());
+
+		writer.writeCharacters(NEWLINE + INDENT);
+		writer.writeEndElement();
+	}
+
+	private void writeField(XMLStreamWriter writer, String tag, String value) throws XMLStreamException {
+		writer.writeCharacters(NEWLINE + INDENT + INDENT);
+		if (value.isEmpty()) {
+			writer.writeEmptyElement(tag);
+		} else {
+			writer.writeStartElement(tag);
+			writer.writeCharacters(value);
+			writer.writeEndElement();
+		}
+	}
+}
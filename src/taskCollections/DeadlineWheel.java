@@ -0,0 +1,243 @@
+//@@author A0076510M
+package taskCollections;
+
+import java.util.IdentityHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel which holds tasks until their end time passes.
+ * Adding, removing and expiring a task costs constant time, however many
+ * tasks are held and however far their end times are.
+ *
+ * Time is counted in ticks of a minute, the precision of end times entered
+ * by the user. The lowest wheel has a slot per tick for the next
+ * {@code SLOTS_PER_WHEEL} ticks, and each higher wheel has slots as wide as
+ * a whole turn of the wheel below it. When a wheel completes a turn, the
+ * next slot of the wheel above is emptied into the lower wheels. Tasks
+ * beyond the highest wheel wait in an overflow list, which is sorted into
+ * the wheels whenever the highest wheel completes a turn.
+ *
+ * Tasks are held by identity, as tasks of equal attributes are still
+ * different tasks.
+ *
+ * @author Zandercx
+ */
+class DeadlineWheel {
+
+	private static final long TICK = 60 * 1000;
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS_PER_WHEEL = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS_PER_WHEEL - 1;
+	private static final int NUM_OF_WHEELS = 4;
+	private static final int OVERFLOW = NUM_OF_WHEELS;
+
+	/**
+	 * Task in a slot, linked to the other tasks of the slot
+	 */
+	private static class Entry {
+		private final Task _task;
+		private final long _time;
+		private int _wheel;
+		private int _slot;
+		private Entry _prev;
+		private Entry _next;
+
+		private Entry(Task task, long time) {
+			_task = task;
+			_time = time;
+		}
+	}
+
+	// First entry of each slot, with the overflow list as the last wheel
+	private Entry[][] _slots;
+	private int[] _wheelSizes;
+	private IdentityHashMap<Task, Entry> _entries;
+	private long _currentTick;
+	private long _time;
+
+	/**
+	 * @param time
+	 *            time the wheel starts at, before which no task may end
+	 */
+	DeadlineWheel(long time) {
+		_slots = new Entry[NUM_OF_WHEELS + 1][SLOTS_PER_WHEEL];
+		_wheelSizes = new int[NUM_OF_WHEELS + 1];
+		_entries = new IdentityHashMap<Task, Entry>();
+		_currentTick = toTick(time);
+		_time = time;
+	}
+
+	/**
+	 * @return time the wheel was last advanced to
+	 */
+	long getTime() {
+		return _time;
+	}
+
+	int size() {
+		return _entries.size();
+	}
+
+	/**
+	 * Holds a task until the wheel is advanced past its end time
+	 *
+	 * @param task
+	 *            task which ends at or after the time of the wheel, and is not
+	 *            held yet
+	 */
+	void schedule(Task task) {
+		assert task.getEndTime() >= _time;
+		assert !_entries.containsKey(task);
+
+		Entry entry = new Entry(task, task.getEndTime());
+		_entries.put(task, entry);
+		insert(entry);
+	}
+
+	/**
+	 * Stops holding a task, which must still have the end time it was
+	 * scheduled with
+	 *
+	 * @return true if the task was held
+	 */
+	boolean cancel(Task task) {
+		Entry entry = _entries.remove(task);
+		if (entry == null) {
+			return false;
+		}
+		unlink(entry);
+		return true;
+	}
+
+	/**
+	 * Stops holding every task, and starts again at a time
+	 */
+	void clear(long time) {
+		_slots = new Entry[NUM_OF_WHEELS + 1][SLOTS_PER_WHEEL];
+		_wheelSizes = new int[NUM_OF_WHEELS + 1];
+		_entries.clear();
+		_currentTick = toTick(time);
+		_time = time;
+	}
+
+	/**
+	 * Advances the wheel, passing on every held task which ended before a
+	 * time. Tasks are passed on in no particular order, and are no longer
+	 * held.
+	 *
+	 * @param time
+	 *            time not earlier than the time of the wheel
+	 * @param onExpiry
+	 *            receives the tasks which ended before {@code time}
+	 */
+	void advanceTo(long time, Consumer<Task> onExpiry) {
+		assert time >= _time;
+
+		long tick = toTick(time);
+		if (_entries.isEmpty()) {
+			// Nothing to be moved down on the way
+			_currentTick = tick;
+		}
+
+		while (true) {
+			expire(time, onExpiry);
+			if (_currentTick >= tick) {
+				break;
+			}
+			_currentTick = getNextTick(tick);
+			cascade();
+		}
+		_time = time;
+	}
+
+	/**
+	 * Returns the next tick at which a task may expire or be moved down.
+	 * Empty lower wheels are skipped up to the next turn of the wheel above.
+	 */
+	private long getNextTick(long maxTick) {
+		long nextTick = _currentTick + 1;
+		for (int wheel = 0; wheel < NUM_OF_WHEELS && _wheelSizes[wheel] == 0; wheel++) {
+			long turn = 1L << (SLOT_BITS * (wheel + 1));
+			nextTick = (Math.floorDiv(_currentTick, turn) + 1) * turn;
+		}
+		return Math.min(nextTick, maxTick);
+	}
+
+	/**
+	 * Passes on the tasks of the slot of the current tick which ended before
+	 * a time. Tasks of earlier ticks were passed on already.
+	 */
+	private void expire(long time, Consumer<Task> onExpiry) {
+		Entry entry = _slots[0][(int) (_currentTick & SLOT_MASK)];
+		while (entry != null) {
+			Entry next = entry._next;
+			if (entry._time < time) {
+				unlink(entry);
+				_entries.remove(entry._task);
+				onExpiry.accept(entry._task);
+			}
+			entry = next;
+		}
+	}
+
+	/**
+	 * Moves the tasks of the slots that the current tick has reached down
+	 * into lower wheels
+	 */
+	private void cascade() {
+		for (int wheel = 1; wheel <= NUM_OF_WHEELS; wheel++) {
+			int shift = SLOT_BITS * (wheel - 1);
+			if (((_currentTick >> shift) & SLOT_MASK) != 0) {
+				return;
+			}
+			int slot = wheel == OVERFLOW ? 0 : (int) ((_currentTick >> (shift + SLOT_BITS)) & SLOT_MASK);
+			Entry entry = _slots[wheel][slot];
+			_slots[wheel][slot] = null;
+			while (entry != null) {
+				Entry next = entry._next;
+				_wheelSizes[wheel]--;
+				insert(entry);
+				entry = next;
+			}
+		}
+	}
+
+	private void insert(Entry entry) {
+		long tick = Math.max(toTick(entry._time), _currentTick);
+		long delta = tick - _currentTick;
+
+		int wheel = 0;
+		while (wheel < NUM_OF_WHEELS && delta >= 1L << (SLOT_BITS * (wheel + 1))) {
+			wheel++;
+		}
+		int slot = wheel == OVERFLOW ? 0 : (int) ((tick >> (SLOT_BITS * wheel)) & SLOT_MASK);
+
+		entry._wheel = wheel;
+		entry._slot = slot;
+		_wheelSizes[wheel]++;
+		entry._prev = null;
+		entry._next = _slots[wheel][slot];
+		if (entry._next != null) {
+			entry._next._prev = entry;
+		}
+		_slots[wheel][slot] = entry;
+	}
+
+	private void unlink(Entry entry) {
+		_wheelSizes[entry._wheel]--;
+		if (entry._prev != null) {
+			entry._prev._next = entry._next;
+		} else {
+			_slots[entry._wheel][entry._slot] = entry._next;
+		}
+		if (entry._next != null) {
+			entry._next._prev = entry._prev;
+		}
+		entry._prev = null;
+		entry._next = null;
+	}
+
+	private static long toTick(long time) {
+		return Math.floorDiv(time, TICK);
+	}
+}
@@ -171,10 +171,7 @@ public class Task implements Comparable<Task> {
 			PRIORITY_TYPE priority) {
 
 		this.id = id;
-		if (id >= taskNumber) {
-			taskNumber = id;
-			taskNumber++;
-		}
+		reserveTaskClassId(id + 1);
 
 		this.name = name;
 		this.description = description;
@@ -463,9 +460,7 @@ public class Task implements Comparable<Task> {
 	 *         argument starting time.
 	 */
 	public int compareStartTimeTo(Task rhs) {
-		Long startTimeLongThis = new Long(this.startTime);
-		Long startTimeLongRhs = new Long(rhs.startTime);
-		int result = startTimeLongThis.compareTo(startTimeLongRhs);
+		int result = Long.compare(this.startTime, rhs.startTime);
 		return handleDuplicatedAttributes(this, rhs, result);
 	}
 
@@ -482,9 +477,7 @@ public class Task implements Comparable<Task> {
 	 *         argument ending time.
 	 */
 	public int compareEndTimeTo(Task rhs) {
-		Long endTimeLongThis = new Long(this.endTime);
-		Long endTimeLongRhs = new Long(rhs.endTime);
-		int result = endTimeLongThis.compareTo(endTimeLongRhs);
+		int result = Long.compare(this.endTime, rhs.endTime);
 		return handleDuplicatedAttributes(this, rhs, result);
 	}
 
@@ -502,17 +495,17 @@ public class Task implements Comparable<Task> {
 	 */
 	public int compareTimeTo(Task rhs) {
 
-		Long thisTime = this.getStartTime();
+		long thisTime = this.getStartTime();
 		if (thisTime == Task.DATE_NULL) {
 			thisTime = this.getEndTime();
 		}
 
-		Long rhsTime = rhs.getStartTime();
+		long rhsTime = rhs.getStartTime();
 		if (rhsTime == Task.DATE_NULL) {
 			rhsTime = rhs.getEndTime();
 		}
 
-		int result = thisTime.compareTo(rhsTime);
+		int result = Long.compare(thisTime, rhsTime);
 		return handleDuplicatedAttributes(this, rhs, result);
 	}
 
@@ -586,7 +579,7 @@ public class Task implements Comparable<Task> {
 
 	/**
 	 * Allow Task class ID to be reset to a desired ID. This method is intended
-	 * for internal testing only.
+	 * for internal testing and for renumbering all tasks only.
 	 *
 	 * @param resetCountId
 	 *            ID to be reset to
@@ -604,6 +597,20 @@ public class Task implements Comparable<Task> {
 		resetTaskClassId(0);
 	}
 
+	/**
+	 * Makes sure that new tasks get an ID of at least {@code nextId}, such as
+	 * when tasks with lower IDs are kept in storage but not loaded. Safe to
+	 * call from several threads, such as when tasks are loaded in parallel.
+	 *
+	 * @param nextId
+	 *            lowest ID a new task may get
+	 */
+	public static synchronized void reserveTaskClassId(int nextId) {
+		if (nextId > taskNumber) {
+			taskNumber = nextId;
+		}
+	}
+
 	/**
 	 * Represent this {@code Task} into a {@code String} format
 	 *
@@ -0,0 +1,180 @@
+//@@author A0076510M
+package taskCollections;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of task ids kept as bits, so that sets are combined a word of 64 ids
+ * at a time.
+ *
+ * Bits are kept in chunks of {@code CHUNK_SIZE} ids, and a chunk without any
+ * id takes no memory. Ids of tasks are dense, except where tasks were
+ * deleted, so most chunks are either full of ids or not kept at all.
+ *
+ * @author Zandercx
+ */
+class TaskBitmap {
+
+	private static final int WORD_SHIFT = 6;
+	private static final int CHUNK_SHIFT = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final int WORDS_PER_CHUNK = CHUNK_SIZE >> WORD_SHIFT;
+
+	private long[][] _chunks;
+	private int[] _chunkCardinalities;
+	private int _cardinality;
+
+	TaskBitmap() {
+		_chunks = new long[0][];
+		_chunkCardinalities = new int[0];
+		_cardinality = 0;
+	}
+
+	/**
+	 * @return number of ids in this set
+	 */
+	int cardinality() {
+		return _cardinality;
+	}
+
+	boolean contains(int id) {
+		int chunk = id >>> CHUNK_SHIFT;
+		if (chunk >= _chunks.length || _chunks[chunk] == null) {
+			return false;
+		}
+		return (_chunks[chunk][(id & CHUNK_MASK) >>> WORD_SHIFT] & (1L << id)) != 0;
+	}
+
+	/**
+	 * @param id
+	 *            id which is not negative
+	 * @return true if the id was not in this set
+	 */
+	boolean add(int id) {
+		assert id >= 0;
+
+		int chunk = id >>> CHUNK_SHIFT;
+		if (chunk >= _chunks.length) {
+			int newLength = Math.max(chunk + 1, _chunks.length * 2);
+			_chunks = Arrays.copyOf(_chunks, newLength);
+			_chunkCardinalities = Arrays.copyOf(_chunkCardinalities, newLength);
+		}
+		if (_chunks[chunk] == null) {
+			_chunks[chunk] = new long[WORDS_PER_CHUNK];
+		}
+
+		long[] words = _chunks[chunk];
+		int word = (id & CHUNK_MASK) >>> WORD_SHIFT;
+		long bit = 1L << id;
+		if ((words[word] & bit) != 0) {
+			return false;
+		}
+		words[word] |= bit;
+		_chunkCardinalities[chunk]++;
+		_cardinality++;
+		return true;
+	}
+
+	/**
+	 * @return true if the id was in this set
+	 */
+	boolean remove(int id) {
+		if (!contains(id)) {
+			return false;
+		}
+
+		int chunk = id >>> CHUNK_SHIFT;
+		_chunks[chunk][(id & CHUNK_MASK) >>> WORD_SHIFT] &= ~(1L << id);
+		_cardinality--;
+		if (--_chunkCardinalities[chunk] == 0) {
+			_chunks[chunk] = null;
+		}
+		return true;
+	}
+
+	void clear() {
+		_chunks = new long[0][];
+		_chunkCardinalities = new int[0];
+		_cardinality = 0;
+	}
+
+	/**
+	 * @return a new set of the ids in both this set and {@code rhs}
+	 */
+	TaskBitmap and(TaskBitmap rhs) {
+		TaskBitmap result = new TaskBitmap();
+		int length = Math.min(_chunks.length, rhs._chunks.length);
+		result._chunks = new long[length][];
+		result._chunkCardinalities = new int[length];
+
+		for (int chunk = 0; chunk < length; chunk++) {
+			long[] lhsWords = _chunks[chunk];
+			long[] rhsWords = rhs._chunks[chunk];
+			if (lhsWords == null || rhsWords == null) {
+				continue;
+			}
+
+			long[] words = new long[WORDS_PER_CHUNK];
+			int chunkCardinality = 0;
+			for (int i = 0; i < WORDS_PER_CHUNK; i++) {
+				words[i] = lhsWords[i] & rhsWords[i];
+				chunkCardinality += Long.bitCount(words[i]);
+			}
+			if (chunkCardinality > 0) {
+				result._chunks[chunk] = words;
+				result._chunkCardinalities[chunk] = chunkCardinality;
+				result._cardinality += chunkCardinality;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param fromId
+	 *            id which is not negative
+	 * @return the least id of this set from {@code fromId} on, or -1 if there
+	 *         is none
+	 */
+	int nextId(int fromId) {
+		assert fromId >= 0;
+
+		int chunk = fromId >>> CHUNK_SHIFT;
+		int i = (fromId & CHUNK_MASK) >>> WORD_SHIFT;
+		long mask = -1L << fromId;
+		for (; chunk < _chunks.length; chunk++, i = 0, mask = -1L) {
+			long[] words = _chunks[chunk];
+			if (words == null) {
+				continue;
+			}
+			for (; i < WORDS_PER_CHUNK; i++, mask = -1L) {
+				long word = words[i] & mask;
+				if (word != 0) {
+					return (chunk << CHUNK_SHIFT) + (i << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Passes on every id of this set in ascending order
+	 */
+	void forEach(IntConsumer action) {
+		for (int chunk = 0; chunk < _chunks.length; chunk++) {
+			long[] words = _chunks[chunk];
+			if (words == null) {
+				continue;
+			}
+			int chunkStart = chunk << CHUNK_SHIFT;
+			for (int i = 0; i < WORDS_PER_CHUNK; i++) {
+				long word = words[i];
+				while (word != 0) {
+					action.accept(chunkStart + (i << WORD_SHIFT) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,67 @@
+//@@author A0076510M
+package taskCollections;
+
+import taskCollections.Task.FLAG_TYPE;
+import taskCollections.Task.PRIORITY_TYPE;
+
+/**
+ * Indexes the ids of the tasks of a {@code TaskTree} by flag and by
+ * priority, with a bitmap per value. Each attribute has only a few values,
+ * so a bitmap per value is smaller than a tree of tasks, and conditions on
+ * both are combined by word instead of by task.
+ *
+ * @author Zandercx
+ */
+class TaskBitmapIndex {
+
+	private TaskBitmap[] _flagBitmaps;
+	private TaskBitmap[] _priorityBitmaps;
+
+	TaskBitmapIndex() {
+		_flagBitmaps = new TaskBitmap[FLAG_TYPE.values().length];
+		for (int i = 0; i < _flagBitmaps.length; i++) {
+			_flagBitmaps[i] = new TaskBitmap();
+		}
+		_priorityBitmaps = new TaskBitmap[PRIORITY_TYPE.values().length];
+		for (int i = 0; i < _priorityBitmaps.length; i++) {
+			_priorityBitmaps[i] = new TaskBitmap();
+		}
+	}
+
+	void add(Task task) {
+		_flagBitmaps[task.getFlag().getValue()].add(task.getId());
+		_priorityBitmaps[task.getPriority().getValue()].add(task.getId());
+	}
+
+	/**
+	 * Removes a task, which must still have the flag, priority and id it was
+	 * added with
+	 */
+	void remove(Task task) {
+		_flagBitmaps[task.getFlag().getValue()].remove(task.getId());
+		_priorityBitmaps[task.getPriority().getValue()].remove(task.getId());
+	}
+
+	void clear() {
+		for (TaskBitmap bitmap : _flagBitmaps) {
+			bitmap.clear();
+		}
+		for (TaskBitmap bitmap : _priorityBitmaps) {
+			bitmap.clear();
+		}
+	}
+
+	/**
+	 * @return ids of the tasks of a flag, which must not be changed
+	 */
+	TaskBitmap getFlagBitmap(FLAG_TYPE flag) {
+		return _flagBitmaps[flag.getValue()];
+	}
+
+	/**
+	 * @return ids of the tasks of a priority, which must not be changed
+	 */
+	TaskBitmap getPriorityBitmap(PRIORITY_TYPE priority) {
+		return _priorityBitmaps[priority.getValue()];
+	}
+}
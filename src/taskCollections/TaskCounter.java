@@ -0,0 +1,88 @@
+//@@author A0076510M
+package taskCollections;
+
+import java.util.Collection;
+
+import taskCollections.Task.FLAG_TYPE;
+
+/**
+ * Counts the pending tasks of a {@code TaskTree} which are overdue, as tasks
+ * are added, removed and changed, so that the count is read without going
+ * through the tasks. Counts per flag and per priority are those of the
+ * bitmaps of {@code TaskBitmapIndex}.
+ *
+ * Tasks become overdue as time passes, so only the tasks which ended before
+ * the time of {@code _deadlines} are counted as overdue. The pending tasks
+ * which end later are held in {@code _deadlines} until their end time
+ * passes, so moving to a later time only looks at the tasks which ended in
+ * between.
+ *
+ * @author Zandercx
+ */
+class TaskCounter {
+
+	private int _overdueCount;
+	private DeadlineWheel _deadlines;
+
+	/**
+	 * @param time
+	 *            time before which pending tasks are counted as overdue
+	 */
+	TaskCounter(long time) {
+		_overdueCount = 0;
+		_deadlines = new DeadlineWheel(time);
+	}
+
+	void add(Task task) {
+		countDeadline(task, 1);
+	}
+
+	/**
+	 * Removes a task, which must still have the attributes it was added with
+	 */
+	void remove(Task task) {
+		countDeadline(task, -1);
+	}
+
+	/**
+	 * Returns the number of pending tasks which ended before a time. Going
+	 * back in time sorts every counted task again.
+	 *
+	 * @param tasks
+	 *            every counted task, only looked at when going back in time
+	 * @param time
+	 *            time the tasks must have ended before, usually now
+	 * @return number of overdue tasks
+	 */
+	int getOverdueCount(Collection<Task> tasks, long time) {
+		if (time < _deadlines.getTime()) {
+			_overdueCount = 0;
+			_deadlines.clear(time);
+			for (Task task : tasks) {
+				countDeadline(task, 1);
+			}
+		} else {
+			_deadlines.advanceTo(time, task -> _overdueCount++);
+		}
+		return _overdueCount;
+	}
+
+	/**
+	 * Counts a pending task as overdue if it has ended, or holds it until
+	 * it does
+	 */
+	private void countDeadline(Task task, int change) {
+		long endTime = task.getEndTime();
+		if (task.getFlag() != FLAG_TYPE.NULL || endTime < Task.DATE_START) {
+			return;
+		}
+
+		if (endTime < _deadlines.getTime()) {
+			_overdueCount += change;
+		} else if (change > 0) {
+			_deadlines.schedule(task);
+		} else {
+			_deadlines.cancel(task);
+		}
+	}
+}
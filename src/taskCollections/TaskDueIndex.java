@@ -0,0 +1,101 @@
+//@@author A0076510M
+package taskCollections;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+import taskCollections.Task.FLAG_TYPE;
+import taskCollections.comparators.EndTimeComparator;
+import taskCollections.comparators.PriorityComparator;
+
+/**
+ * Orders the pending tasks of a {@code TaskTree} by how soon they are to be
+ * done, so that the next few are read without going through done tasks.
+ *
+ * Pending tasks with an end time are ordered by end time, and pending tasks
+ * without one by priority, each then by id as in the comparators of
+ * {@code Task}. Done tasks are not indexed.
+ *
+ * @author Zandercx
+ */
+class TaskDueIndex {
+
+	private final TreeSet<Task> _datedTasks;
+	private final TreeSet<Task> _floatingTasks;
+
+	TaskDueIndex() {
+		_datedTasks = new TreeSet<Task>(new EndTimeComparator());
+		_floatingTasks = new TreeSet<Task>(new PriorityComparator());
+	}
+
+	/**
+	 * Indexes the pending tasks of many tasks at once
+	 */
+	TaskDueIndex(Collection<Task> tasks) {
+		this();
+		for (Task task : tasks) {
+			add(task);
+		}
+	}
+
+	void add(Task task) {
+		TreeSet<Task> tasks = getTasks(task);
+		if (tasks != null) {
+			tasks.add(task);
+		}
+	}
+
+	/**
+	 * Removes a task, which must still have the flag, end time and priority
+	 * it was added with
+	 */
+	void remove(Task task) {
+		TreeSet<Task> tasks = getTasks(task);
+		if (tasks != null) {
+			tasks.remove(task);
+		}
+	}
+
+	/**
+	 * Adds the pending tasks with the earliest end times, in order of end
+	 * time
+	 *
+	 * @param count
+	 *            the most tasks added
+	 */
+	void addNextDated(int count, Collection<Task> result) {
+		addFirst(_datedTasks, count, result);
+	}
+
+	/**
+	 * Adds the pending tasks without an end time of the highest priority, in
+	 * order of priority
+	 *
+	 * @param count
+	 *            the most tasks added
+	 */
+	void addNextFloating(int count, Collection<Task> result) {
+		addFirst(_floatingTasks, count, result);
+	}
+
+	private static void addFirst(TreeSet<Task> tasks, int count, Collection<Task> result) {
+		Iterator<Task> iterator = tasks.iterator();
+		for (int i = 0; i < count && iterator.hasNext(); i++) {
+			result.add(iterator.next());
+		}
+	}
+
+	/**
+	 * @return the tasks a task is indexed in, or null if it is not indexed
+	 */
+	private TreeSet<Task> getTasks(Task task) {
+		if (task.getFlag() != FLAG_TYPE.NULL) {
+			return null;
+		}
+		if (task.getEndTime() == Task.DATE_NULL) {
+			return _floatingTasks;
+		}
+		return task.getEndTime() >= Task.DATE_START ? _datedTasks : null;
+	}
+}
@@ -0,0 +1,319 @@
+//@@author A0076510M
+package taskCollections;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import taskCollections.Attributes.TYPE;
+import util.IntHashMap;
+
+/**
+ * Builds the trees of a {@code TaskTree} from many tasks at once. The tasks
+ * are sorted once per attribute, by primitive keys where the attribute has
+ * one, and each empty tree is then built from its sorted tasks in linear
+ * time instead of inserting the tasks one by one. Tasks pulled into trees
+ * which already have some are inserted one by one, as building a large tree
+ * again for each part pulled in the background costs more than the inserts.
+ * Flags and priorities are kept in bitmaps instead of trees, which need no
+ * sorting.
+ *
+ * Keys are sorted together with the position of their task in id order,
+ * packed into one {@code long}, so that tasks with equal keys stay ordered
+ * by id as in the comparators of {@code Task}.
+ *
+ * @author Zandercx
+ */
+class TaskIndexBuilder {
+
+	private static final int KEY_SHIFT = 32;
+	private static final long POSITION_MASK = 0xFFFFFFFFL;
+
+	private final Task[] _byId;
+
+	/**
+	 * @param tasks
+	 *            tasks to be added, of which only the first of each id is
+	 *            kept
+	 * @param index
+	 *            index by id of the tasks already added, whose ids are
+	 *            dropped from {@code tasks}
+	 */
+	TaskIndexBuilder(Collection<Task> tasks, IntHashMap<Task> index) {
+		assert tasks != null && index != null;
+
+		_byId = sortById(tasks.stream().filter(t -> !index.containsKey(t.getId())).toArray(Task[]::new));
+	}
+
+	/**
+	 * @return number of tasks to be added
+	 */
+	int size() {
+		return _byId.length;
+	}
+
+	/**
+	 * Adds the tasks to the tree of an attribute. An empty tree is built from
+	 * the sorted tasks, while the tasks are inserted one by one into a tree
+	 * which has some already. Trees of different attributes may be built on
+	 * different threads.
+	 *
+	 * @param tree
+	 *            tree ordered by the comparator of {@code type}
+	 * @param type
+	 *            attribute the tree is ordered by
+	 */
+	void addTo(TreeSet<Task> tree, TYPE type) {
+		if (tree.isEmpty()) {
+			Comparator<? super Task> comparator = tree.comparator();
+			// An empty TreeSet builds itself from a SortedSet of its own order
+			tree.addAll(new SortedTaskArray(sortBy(type, comparator), comparator));
+		} else {
+			// Ids already in the trees were dropped, so no task is replaced
+			for (Task t : _byId) {
+				tree.add(t);
+			}
+		}
+	}
+
+	/**
+	 * Adds the tasks to an index by id, keeping the tasks already in it
+	 */
+	void addTo(IntHashMap<Task> index) {
+		for (Task t : _byId) {
+			if (!index.containsKey(t.getId())) {
+				index.put(t.getId(), t);
+			}
+		}
+	}
+
+	/**
+	 * Adds the tasks to the counts of a {@code TaskTree}
+	 */
+	void addTo(TaskCounter counter) {
+		for (Task t : _byId) {
+			counter.add(t);
+		}
+	}
+
+	/**
+	 * Adds the tasks to the flag and priority bitmaps of a {@code TaskTree}
+	 */
+	void addTo(TaskBitmapIndex bitmaps) {
+		for (Task t : _byId) {
+			bitmaps.add(t);
+		}
+	}
+
+	/**
+	 * Adds the tasks to the name trigrams of a {@code TaskTree}
+	 */
+	void addTo(TaskNameIndex nameIndex) {
+		for (Task t : _byId) {
+			nameIndex.add(t);
+		}
+	}
+
+	/**
+	 * Adds the tasks to the index of task times of a {@code TaskTree}
+	 */
+	void addTo(TaskIntervalTree intervalTree) {
+		for (Task t : _byId) {
+			intervalTree.add(t);
+		}
+	}
+
+	/**
+	 * Adds the tasks to the index of pending tasks by how soon they are due
+	 */
+	void addTo(TaskDueIndex dueIndex) {
+		for (Task t : _byId) {
+			dueIndex.add(t);
+		}
+	}
+
+	private Task[] sortBy(TYPE type, Comparator<? super Task> comparator) {
+		switch (type) {
+			case ID:
+				return _byId;
+			case NAME:
+				// Names have no primitive key
+				Task[] byName = _byId.clone();
+				Arrays.parallelSort(byName, comparator);
+				return byName;
+			case START_TIME:
+			case END_TIME:
+				return sortByLongKey(type);
+			default:
+				throw new IllegalArgumentException(type.toString());
+		}
+	}
+
+	/**
+	 * Sorts by id, dropping every task after the first of its id
+	 */
+	private static Task[] sortById(Task[] tasks) {
+		long[] packed = new long[tasks.length];
+		for (int i = 0; i < tasks.length; i++) {
+			packed[i] = pack(tasks[i].getId(), i);
+		}
+		Arrays.parallelSort(packed);
+
+		Task[] sorted = new Task[tasks.length];
+		int count = 0;
+		for (int i = 0; i < packed.length; i++) {
+			Task t = tasks[(int) (packed[i] & POSITION_MASK)];
+			if (count == 0 || sorted[count - 1].getId() != t.getId()) {
+				sorted[count++] = t;
+			}
+		}
+		return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+	}
+
+	/**
+	 * Sorts by a time. Times do not fit next to the position, so each is
+	 * replaced by its rank among the distinct times first.
+	 */
+	private Task[] sortByLongKey(TYPE type) {
+		long[] keys = new long[_byId.length];
+		for (int i = 0; i < _byId.length; i++) {
+			keys[i] = type == TYPE.START_TIME ? _byId[i].getStartTime() : _byId[i].getEndTime();
+		}
+
+		long[] distinct = keys.clone();
+		Arrays.parallelSort(distinct);
+		int distinctCount = 0;
+		for (int i = 0; i < distinct.length; i++) {
+			if (distinctCount == 0 || distinct[distinctCount - 1] != distinct[i]) {
+				distinct[distinctCount++] = distinct[i];
+			}
+		}
+
+		long[] packed = new long[_byId.length];
+		for (int i = 0; i < _byId.length; i++) {
+			int rank = Arrays.binarySearch(distinct, 0, distinctCount, keys[i]);
+			packed[i] = pack(rank, i);
+		}
+		return unpack(packed);
+	}
+
+	private static long pack(int key, int position) {
+		return ((long) key << KEY_SHIFT) | position;
+	}
+
+	private Task[] unpack(long[] packed) {
+		Arrays.parallelSort(packed);
+
+		Task[] sorted = new Task[packed.length];
+		for (int i = 0; i < packed.length; i++) {
+			sorted[i] = _byId[(int) (packed[i] & POSITION_MASK)];
+		}
+		return sorted;
+	}
+
+	/**
+	 * Read-only view of a range of sorted tasks, given to an empty
+	 * {@code TreeSet} of the same comparator so that it builds itself from
+	 * them in linear time
+	 */
+	private static class SortedTaskArray extends AbstractSet<Task> implements SortedSet<Task> {
+
+		private final Task[] _tasks;
+		private final int _from;
+		private final int _to;
+		private final Comparator<? super Task> _comparator;
+
+		private SortedTaskArray(Task[] tasks, Comparator<? super Task> comparator) {
+			this(tasks, 0, tasks.length, comparator);
+		}
+
+		private SortedTaskArray(Task[] tasks, int from, int to, Comparator<? super Task> comparator) {
+			_tasks = tasks;
+			_from = from;
+			_to = to;
+			_comparator = comparator;
+		}
+
+		@Override
+		public Comparator<? super Task> comparator() {
+			return _comparator;
+		}
+
+		@Override
+		public Iterator<Task> iterator() {
+			return Collections.unmodifiableList(Arrays.asList(_tasks).subList(_from, _to)).iterator();
+		}
+
+		@Override
+		public int size() {
+			return _to - _from;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Task)) {
+				return false;
+			}
+			int position = indexOf((Task) o);
+			return position < _to && _comparator.compare(_tasks[position], (Task) o) == 0;
+		}
+
+		@Override
+		public Task first() {
+			if (isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			return _tasks[_from];
+		}
+
+		@Override
+		public Task last() {
+			if (isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			return _tasks[_to - 1];
+		}
+
+		@Override
+		public SortedSet<Task> subSet(Task fromElement, Task toElement) {
+			if (_comparator.compare(fromElement, toElement) > 0) {
+				throw new IllegalArgumentException("fromElement > toElement");
+			}
+			return new SortedTaskArray(_tasks, indexOf(fromElement), indexOf(toElement), _comparator);
+		}
+
+		@Override
+		public SortedSet<Task> headSet(Task toElement) {
+			return new SortedTaskArray(_tasks, _from, indexOf(toElement), _comparator);
+		}
+
+		@Override
+		public SortedSet<Task> tailSet(Task fromElement) {
+			return new SortedTaskArray(_tasks, indexOf(fromElement), _to, _comparator);
+		}
+
+		/**
+		 * Returns the position of the first task of this range which is not
+		 * less than a task, or the end of this range
+		 */
+		private int indexOf(Task task) {
+			int low = _from;
+			int high = _to;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (_comparator.compare(_tasks[middle], task) < 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+	}
+}
@@ -0,0 +1,345 @@
+//@@author A0076510M
+package taskCollections;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Indexes tasks by the time they take up, from their start time to their end
+ * time, so that the tasks overlapping a range of time are found without
+ * looking at the others.
+ *
+ * The index is a balanced binary search tree ordered by the start of each
+ * interval, in which every node also keeps the latest end in its subtree.
+ * Subtrees which end before a range, or start after it, are skipped.
+ *
+ * A task without a start time takes up the instant of its end time, and the
+ * other way round. Tasks without either are not indexed.
+ *
+ * @author Zandercx
+ */
+class TaskIntervalTree {
+
+	private static class Node {
+		private final Task _task;
+		private final long _low;
+		private final long _high;
+		private long _maxHigh;
+		private int _height;
+		private Node _left;
+		private Node _right;
+
+		private Node(Task task) {
+			_task = task;
+			_low = getLow(task);
+			_high = getHigh(task);
+			_maxHigh = _high;
+			_height = 1;
+		}
+	}
+
+	private static final Comparator<Task> LOW_COMPARATOR = (lhs, rhs) -> {
+		int result = Long.compare(getLow(lhs), getLow(rhs));
+		return result != 0 ? result : Integer.compare(lhs.getId(), rhs.getId());
+	};
+
+	private Node _root;
+	private int _size;
+
+	TaskIntervalTree() {
+		_root = null;
+		_size = 0;
+	}
+
+	/**
+	 * Builds a balanced tree from many tasks at once
+	 */
+	TaskIntervalTree(Collection<Task> tasks) {
+		Task[] sorted = tasks.stream().filter(TaskIntervalTree::hasInterval).toArray(Task[]::new);
+		Arrays.parallelSort(sorted, LOW_COMPARATOR);
+
+		_root = build(sorted, 0, sorted.length);
+		_size = sorted.length;
+	}
+
+	int size() {
+		return _size;
+	}
+
+	/**
+	 * @return true if a task takes up any time and can be indexed
+	 */
+	static boolean hasInterval(Task task) {
+		return task.getStartTime() != Task.DATE_NULL || task.getEndTime() != Task.DATE_NULL;
+	}
+
+	void add(Task task) {
+		if (hasInterval(task)) {
+			_root = insert(_root, new Node(task));
+			_size++;
+		}
+	}
+
+	/**
+	 * Removes a task, which must still have the times and id it was added
+	 * with
+	 */
+	void remove(Task task) {
+		if (hasInterval(task)) {
+			int oldSize = _size;
+			_root = delete(_root, getLow(task), task.getId());
+			assert _size == oldSize - 1;
+		}
+	}
+
+	/**
+	 * Adds the tasks which take up any time from {@code fromTime} to
+	 * {@code toTime}, both inclusive, in order of their start
+	 */
+	void addOverlapping(long fromTime, long toTime, Collection<Task> result) {
+		collect(_root, fromTime, toTime, result);
+	}
+
+	/**
+	 * Returns the tasks which take up any time from {@code fromTime} to
+	 * {@code toTime}, both inclusive, in order of their start. Each task is
+	 * only looked up when the iterator reaches it, so a caller which stops
+	 * early does not pay for the rest of the range. The tree must not be
+	 * changed while the iterator is in use.
+	 */
+	Iterator<Task> iterateOverlapping(long fromTime, long toTime) {
+		return new OverlapIterator(_root, fromTime, toTime);
+	}
+
+	/**
+	 * @return number of tasks which take up any time from {@code fromTime}
+	 *         to {@code toTime}, both inclusive
+	 */
+	int countOverlapping(long fromTime, long toTime) {
+		return count(_root, fromTime, toTime);
+	}
+
+	private void collect(Node node, long fromTime, long toTime, Collection<Task> result) {
+		if (node == null || node._maxHigh < fromTime) {
+			return;
+		}
+		collect(node._left, fromTime, toTime, result);
+		if (node._low <= toTime) {
+			if (node._high >= fromTime) {
+				result.add(node._task);
+			}
+			collect(node._right, fromTime, toTime, result);
+		}
+	}
+
+	private int count(Node node, long fromTime, long toTime) {
+		if (node == null || node._maxHigh < fromTime) {
+			return 0;
+		}
+		int count = count(node._left, fromTime, toTime);
+		if (node._low <= toTime) {
+			if (node._high >= fromTime) {
+				count++;
+			}
+			count += count(node._right, fromTime, toTime);
+		}
+		return count;
+	}
+
+	/**
+	 * In-order walk which skips subtrees ending before the range, and stops
+	 * at the first node starting after it
+	 */
+	private static class OverlapIterator implements Iterator<Task> {
+		private final ArrayDeque<Node> _stack;
+		private final long _fromTime;
+		private final long _toTime;
+		private Node _next;
+
+		private OverlapIterator(Node root, long fromTime, long toTime) {
+			_stack = new ArrayDeque<Node>();
+			_fromTime = fromTime;
+			_toTime = toTime;
+			pushLeft(root);
+			advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return _next != null;
+		}
+
+		@Override
+		public Task next() {
+			if (_next == null) {
+				throw new NoSuchElementException();
+			}
+			Task task = _next._task;
+			advance();
+			return task;
+		}
+
+		private void pushLeft(Node node) {
+			while (node != null && node._maxHigh >= _fromTime) {
+				_stack.push(node);
+				node = node._left;
+			}
+		}
+
+		private void advance() {
+			_next = null;
+			while (_next == null && !_stack.isEmpty()) {
+				Node node = _stack.pop();
+				if (node._low > _toTime) {
+					_stack.clear();
+					return;
+				}
+				pushLeft(node._right);
+				if (node._high >= _fromTime) {
+					_next = node;
+				}
+			}
+		}
+	}
+
+	private static long getLow(Task task) {
+		long startTime = task.getStartTime();
+		long endTime = task.getEndTime();
+		if (startTime == Task.DATE_NULL) {
+			return endTime;
+		}
+		return endTime == Task.DATE_NULL ? startTime : Math.min(startTime, endTime);
+	}
+
+	private static long getHigh(Task task) {
+		long startTime = task.getStartTime();
+		long endTime = task.getEndTime();
+		if (endTime == Task.DATE_NULL) {
+			return startTime;
+		}
+		return startTime == Task.DATE_NULL ? endTime : Math.max(startTime, endTime);
+	}
+
+	private static Node build(Task[] sorted, int from, int to) {
+		if (from >= to) {
+			return null;
+		}
+		int middle = (from + to) >>> 1;
+		Node node = new Node(sorted[middle]);
+		node._left = build(sorted, from, middle);
+		node._right = build(sorted, middle + 1, to);
+		update(node);
+		return node;
+	}
+
+	private static int compare(long low, int id, Node node) {
+		int result = Long.compare(low, node._low);
+		return result != 0 ? result : Integer.compare(id, node._task.getId());
+	}
+
+	private static Node insert(Node node, Node added) {
+		if (node == null) {
+			return added;
+		}
+		if (compare(added._low, added._task.getId(), node) < 0) {
+			node._left = insert(node._left, added);
+		} else {
+			node._right = insert(node._right, added);
+		}
+		return rebalance(node);
+	}
+
+	private Node delete(Node node, long low, int id) {
+		if (node == null) {
+			return null;
+		}
+
+		int result = compare(low, id, node);
+		if (result < 0) {
+			node._left = delete(node._left, low, id);
+		} else if (result > 0) {
+			node._right = delete(node._right, low, id);
+		} else {
+			_size--;
+			if (node._left == null) {
+				return node._right;
+			}
+			if (node._right == null) {
+				return node._left;
+			}
+			// Replaced by the first node after it
+			Node next = node._right;
+			while (next._left != null) {
+				next = next._left;
+			}
+			next._right = deleteFirst(node._right);
+			next._left = node._left;
+			node = next;
+		}
+		return rebalance(node);
+	}
+
+	private static Node deleteFirst(Node node) {
+		if (node._left == null) {
+			return node._right;
+		}
+		node._left = deleteFirst(node._left);
+		return rebalance(node);
+	}
+
+	private static int height(Node node) {
+		return node == null ? 0 : node._height;
+	}
+
+	private static void update(Node node) {
+		node._height = Math.max(height(node._left), height(node._right)) + 1;
+		node._maxHigh = node._high;
+		if (node._left != null) {
+			node._maxHigh = Math.max(node._maxHigh, node._left._maxHigh);
+		}
+		if (node._right != null) {
+			node._maxHigh = Math.max(node._maxHigh, node._right._maxHigh);
+		}
+	}
+
+	private static Node rebalance(Node node) {
+		update(node);
+		int balance = height(node._left) - height(node._right);
+
+		if (balance > 1) {
+			if (height(node._left._left) < height(node._left._right)) {
+				node._left = rotateLeft(node._left);
+			}
+			return rotateRight(node);
+		}
+		if (balance < -1) {
+			if (height(node._right._right) < height(node._right._left)) {
+				node._right = rotateRight(node._right);
+			}
+			return rotateLeft(node);
+		}
+		return node;
+	}
+
+	private static Node rotateLeft(Node node) {
+		Node right = node._right;
+		node._right = right._left;
+		right._left = node;
+		update(node);
+		update(right);
+		return right;
+	}
+
+	private static Node rotateRight(Node node) {
+		Node left = node._left;
+		node._left = left._right;
+		left._right = node;
+		update(node);
+		update(left);
+		return left;
+	}
+}
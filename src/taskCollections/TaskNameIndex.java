@@ -0,0 +1,208 @@
+//@@author A0076510M
+package taskCollections;
+
+import java.util.Arrays;
+
+import util.IntHashMap;
+
+/**
+ * Indexes the ids of tasks by the trigrams of their names, so that a search
+ * only has to check the tasks whose names contain every trigram of the
+ * search term.
+ *
+ * Trigrams are taken after lowering the case of each character, so the
+ * index serves both case-sensitive and case-insensitive searches. Names
+ * whose {@code toLowerCase()} differs from lowering each character, such as
+ * names with a final sigma, are also indexed by the trigrams of their
+ * {@code toLowerCase()}. Trigrams of characters above
+ * {@code MAX_PACKED_CHAR} are hashed, so candidates must always be checked
+ * against the search term.
+ *
+ * @author Zandercx
+ */
+class TaskNameIndex {
+
+	private static final int GRAM_LENGTH = 3;
+	private static final int CHAR_BITS = 10;
+	private static final int MAX_PACKED_CHAR = (1 << CHAR_BITS) - 1;
+	private static final int HASHED_KEY_BIT = 1 << (GRAM_LENGTH * CHAR_BITS);
+	private static final int HASH_MULTIPLIER = 31;
+
+	/**
+	 * Ids kept in ascending order. Ids of new tasks are the highest, so
+	 * they are usually appended.
+	 */
+	private static class IdList {
+		private static final int INITIAL_CAPACITY = 4;
+
+		private int[] _ids = new int[INITIAL_CAPACITY];
+		private int _size;
+
+		private void add(int id) {
+			int index = _size;
+			if (_size > 0 && _ids[_size - 1] >= id) {
+				index = Arrays.binarySearch(_ids, 0, _size, id);
+				if (index >= 0) {
+					return;
+				}
+				index = -index - 1;
+			}
+
+			if (_size == _ids.length) {
+				_ids = Arrays.copyOf(_ids, _size * 2);
+			}
+			System.arraycopy(_ids, index, _ids, index + 1, _size - index);
+			_ids[index] = id;
+			_size++;
+		}
+
+		private void remove(int id) {
+			int index = Arrays.binarySearch(_ids, 0, _size, id);
+			if (index < 0) {
+				return;
+			}
+			System.arraycopy(_ids, index + 1, _ids, index, _size - index - 1);
+			_size--;
+		}
+
+		private boolean contains(int id) {
+			return Arrays.binarySearch(_ids, 0, _size, id) >= 0;
+		}
+	}
+
+	private IntHashMap<IdList> _postings;
+
+	TaskNameIndex() {
+		_postings = new IntHashMap<IdList>();
+	}
+
+	void add(Task task) {
+		int id = task.getId();
+
+		for (int key : getNameKeys(task.getName())) {
+			IdList ids = _postings.get(key);
+			if (ids == null) {
+				ids = new IdList();
+				_postings.put(key, ids);
+			}
+			ids.add(id);
+		}
+	}
+
+	/**
+	 * Removes a task, which must still have the name it was added with
+	 */
+	void remove(Task task) {
+		int id = task.getId();
+
+		for (int key : getNameKeys(task.getName())) {
+			IdList ids = _postings.get(key);
+			if (ids == null) {
+				continue;
+			}
+			ids.remove(id);
+			if (ids._size == 0) {
+				_postings.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * @return true if a search term is long enough to be looked up
+	 */
+	static boolean isIndexable(String searchTerm) {
+		return searchTerm.length() >= GRAM_LENGTH;
+	}
+
+	/**
+	 * Returns the ids of the tasks whose names may contain the search term,
+	 * whether it is matched case-sensitively or not
+	 *
+	 * @param searchTerm
+	 *            search term for which {@link #isIndexable(String)} is true
+	 * @return ids of the candidates, in no particular order
+	 */
+	int[] getCandidates(String searchTerm) {
+		assert isIndexable(searchTerm);
+
+		int[] keys = getKeys(searchTerm);
+
+		IdList[] lists = new IdList[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			lists[i] = _postings.get(keys[i]);
+			if (lists[i] == null) {
+				return new int[0];
+			}
+		}
+		// Walk the shortest list, and look its ids up in the others
+		Arrays.sort(lists, (lhs, rhs) -> lhs._size - rhs._size);
+
+		int[] candidates = new int[lists[0]._size];
+		int count = 0;
+		for (int i = 0; i < lists[0]._size; i++) {
+			int id = lists[0]._ids[i];
+			boolean isInAll = true;
+			for (int j = 1; j < lists.length && isInAll; j++) {
+				isInAll = lists[j].contains(id);
+			}
+			if (isInAll) {
+				candidates[count++] = id;
+			}
+		}
+		return Arrays.copyOf(candidates, count);
+	}
+
+	/**
+	 * @return distinct keys of the trigrams a name is indexed by
+	 */
+	private static int[] getNameKeys(String name) {
+		String lowerName = name.toLowerCase();
+		if (lowerName.equals(lowerEachChar(name))) {
+			return getKeys(name);
+		}
+
+		int[] keys = getKeys(name);
+		int[] lowerKeys = getKeys(lowerName);
+		int[] merged = Arrays.copyOf(keys, keys.length + lowerKeys.length);
+		System.arraycopy(lowerKeys, 0, merged, keys.length, lowerKeys.length);
+		return merged;
+	}
+
+	/**
+	 * @return distinct keys of the trigrams of a text, in ascending order
+	 */
+	private static int[] getKeys(String text) {
+		int count = Math.max(text.length() - GRAM_LENGTH + 1, 0);
+		int[] keys = new int[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = getKey(Character.toLowerCase(text.charAt(i)),
+					Character.toLowerCase(text.charAt(i + 1)),
+					Character.toLowerCase(text.charAt(i + 2)));
+		}
+		Arrays.sort(keys);
+
+		int distinctCount = 0;
+		for (int i = 0; i < count; i++) {
+			if (distinctCount == 0 || keys[distinctCount - 1] != keys[i]) {
+				keys[distinctCount++] = keys[i];
+			}
+		}
+		return distinctCount == count ? keys : Arrays.copyOf(keys, distinctCount);
+	}
+
+	private static int getKey(char first, char second, char third) {
+		if (first <= MAX_PACKED_CHAR && second <= MAX_PACKED_CHAR && third <= MAX_PACKED_CHAR) {
+			return (first << (2 * CHAR_BITS)) | (second << CHAR_BITS) | third;
+		}
+		int hash = (first * HASH_MULTIPLIER + second) * HASH_MULTIPLIER + third;
+		return (hash & (HASHED_KEY_BIT - 1)) | HASHED_KEY_BIT;
+	}
+
+	private static String lowerEachChar(String text) {
+		char[] chars = text.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = Character.toLowerCase(chars[i]);
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,105 @@
+//@@author A0076510M
+package taskCollections;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import taskCollections.Attributes.TYPE;
+
+/**
+ * Read-only page of the tasks of a {@code TaskTree}, in the order of one
+ * attribute, as read by {@link TaskTree#getFirstPage}, {@link TaskTree#getLastPage}
+ * or {@link TaskTree#getPageFrom}. Only the tasks of the page are read from
+ * the tree, so a page costs about its size however many tasks there are.
+ *
+ * A page remembers where it stopped, so that {@link TaskTree#getNextPage}
+ * continues from there in the direction the page was read, even if its
+ * tasks have been changed or removed since.
+ *
+ * @author Zandercx
+ */
+public class TaskPage extends AbstractList<Task> implements RandomAccess {
+
+	private final Task[] _tasks;
+	private final TYPE _type;
+	private final TaskQuery _query;
+	private final int _pageSize;
+	private final boolean _isDescending;
+	private final boolean _hasMore;
+	private final Task _endKey;
+
+	/**
+	 * @param tasks
+	 *            tasks of the page in ascending order of {@code type}
+	 * @param isDescending
+	 *            true if the page was read towards the start of the tree
+	 * @param hasMore
+	 *            true if more tasks follow in the direction the page was read
+	 */
+	TaskPage(Task[] tasks, TYPE type, TaskQuery query, int pageSize, boolean isDescending, boolean hasMore) {
+		_tasks = tasks;
+		_type = type;
+		_query = query;
+		_pageSize = pageSize;
+		_isDescending = isDescending;
+		_hasMore = hasMore;
+		_endKey = tasks.length == 0 ? null : copyKey(tasks[isDescending ? 0 : tasks.length - 1]);
+	}
+
+	@Override
+	public Task get(int index) {
+		return _tasks[index];
+	}
+
+	@Override
+	public int size() {
+		return _tasks.length;
+	}
+
+	/**
+	 * @return true if more tasks follow this page in the direction it was
+	 *         read, when it was read
+	 */
+	public boolean hasMore() {
+		return _hasMore;
+	}
+
+	TYPE getType() {
+		return _type;
+	}
+
+	TaskQuery getQuery() {
+		return _query;
+	}
+
+	int getPageSize() {
+		return _pageSize;
+	}
+
+	boolean isDescending() {
+		return _isDescending;
+	}
+
+	/**
+	 * @return copy of the attributes of the last task read, or null if the
+	 *         page is empty
+	 */
+	Task getEndKey() {
+		return _endKey;
+	}
+
+	/**
+	 * Copies the attributes a task is ordered by, so that the place of the
+	 * page stays put when the task itself is changed
+	 */
+	private static Task copyKey(Task task) {
+		Task key = Task.getVirtualTask();
+		key.setId(task.getId());
+		key.setName(task.getName());
+		key.setStartTime(task.getStartTime());
+		key.setEndTime(task.getEndTime());
+		key.setFlag(task.getFlag());
+		key.setPriority(task.getPriority());
+		return key;
+	}
+}
@@ -0,0 +1,141 @@
+//@@author A0076510M
+package taskCollections;
+
+import taskCollections.Task.FLAG_TYPE;
+import taskCollections.Task.PRIORITY_TYPE;
+
+/**
+ * Conditions on the attributes of a {@code Task}, all of which a task must
+ * meet to be returned by {@link TaskTree#query(TaskQuery)}. Conditions which
+ * are not set match every task.
+ *
+ * @author Zandercx
+ */
+public class TaskQuery {
+
+	private FLAG_TYPE _flag;
+	private PRIORITY_TYPE _priority;
+	private boolean _hasStartTimeRange;
+	private long _fromStartTime;
+	private long _toStartTime;
+	private boolean _hasEndTimeRange;
+	private long _fromEndTime;
+	private long _toEndTime;
+	private String _nameTerm;
+	private boolean _isNameCaseInsensitive;
+
+	public TaskQuery() {
+		_flag = null;
+		_priority = null;
+		_hasStartTimeRange = false;
+		_hasEndTimeRange = false;
+		_nameTerm = null;
+	}
+
+	/**
+	 * Matches only tasks of a flag, or any flag if null
+	 */
+	public void setFlag(FLAG_TYPE flag) {
+		_flag = flag;
+	}
+
+	/**
+	 * Matches only tasks of a priority, or any priority if null
+	 */
+	public void setPriority(PRIORITY_TYPE priority) {
+		_priority = priority;
+	}
+
+	/**
+	 * Matches only tasks whose start time is from {@code fromStartTime} to
+	 * {@code toStartTime}, both inclusive
+	 */
+	public void setStartTimeRange(long fromStartTime, long toStartTime) {
+		_hasStartTimeRange = true;
+		_fromStartTime = fromStartTime;
+		_toStartTime = toStartTime;
+	}
+
+	/**
+	 * Matches only tasks whose end time is from {@code fromEndTime} to
+	 * {@code toEndTime}, both inclusive
+	 */
+	public void setEndTimeRange(long fromEndTime, long toEndTime) {
+		_hasEndTimeRange = true;
+		_fromEndTime = fromEndTime;
+		_toEndTime = toEndTime;
+	}
+
+	/**
+	 * Matches only tasks whose name contains a term, or any name if null. As
+	 * in {@link TaskTree#searchName(String)}, a term without upper case
+	 * letters ignores the case of names.
+	 */
+	public void setNameTerm(String nameTerm) {
+		_nameTerm = nameTerm;
+		_isNameCaseInsensitive = nameTerm != null && TaskTree.checkLowercase(nameTerm);
+	}
+
+	FLAG_TYPE getFlag() {
+		return _flag;
+	}
+
+	PRIORITY_TYPE getPriority() {
+		return _priority;
+	}
+
+	boolean hasStartTimeRange() {
+		return _hasStartTimeRange;
+	}
+
+	long getFromStartTime() {
+		return _fromStartTime;
+	}
+
+	long getToStartTime() {
+		return _toStartTime;
+	}
+
+	boolean hasEndTimeRange() {
+		return _hasEndTimeRange;
+	}
+
+	long getFromEndTime() {
+		return _fromEndTime;
+	}
+
+	long getToEndTime() {
+		return _toEndTime;
+	}
+
+	String getNameTerm() {
+		return _nameTerm;
+	}
+
+	/**
+	 * @return true if no task can match, without looking at any
+	 */
+	boolean isEmpty() {
+		return (_hasStartTimeRange && _toStartTime < _fromStartTime)
+				|| (_hasEndTimeRange && _toEndTime < _fromEndTime);
+	}
+
+	/**
+	 * @return true if a task meets every condition
+	 */
+	public boolean matches(Task task) {
+		if (_flag != null && task.getFlag() != _flag) {
+			return false;
+		}
+		if (_priority != null && task.getPriority() != _priority) {
+			return false;
+		}
+		if (_hasStartTimeRange && (task.getStartTime() < _fromStartTime || task.getStartTime() > _toStartTime)) {
+			return false;
+		}
+		if (_hasEndTimeRange && (task.getEndTime() < _fromEndTime || task.getEndTime() > _toEndTime)) {
+			return false;
+		}
+		return _nameTerm == null || TaskTree.isNameMatched(task, _nameTerm, _isNameCaseInsensitive);
+	}
+}
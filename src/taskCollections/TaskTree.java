@@ -1,10 +1,20 @@
 //@@author A0126394B
 package taskCollections;
 
+import java.nio.BufferUnderflowException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
 import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.stream.IntStream;
 
+import logger.LogHandler;
 import storage.TaskFileHandler;
+import storage.TaskStorageWriter;
+import storage.TaskStore;
+import util.IntHashMap;
 import taskCollections.Attributes;
 import taskCollections.Attributes.TYPE;
 import taskCollections.Task.FLAG_TYPE;
@@ -12,6 +22,8 @@ import taskCollections.Task.PRIORITY_TYPE;
 import taskCollections.comparators.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 
 /**
  * Provides methods for storing and manipulating {@code Task} via
@@ -26,20 +38,36 @@ public class TaskTree {
 
 	private static TaskTree _taskTree;
 	private static ArrayList<TreeSet<Task>> _taskTrees;
+	private static IntHashMap<Task> _idIndex;
+	private static TaskNameIndex _nameIndex;
+	private static TaskIntervalTree _intervalTree;
+	private static TaskDueIndex _dueIndex;
+	private static TaskCounter _taskCounter;
+	private static TaskBitmapIndex _bitmapIndex;
 	private static int _taskTreeSize;
-	private static TaskFileHandler _fileHandler;
-
-	// TaskTree attributes type
-	private static final int TASK_NAME_TREE = Attributes.TYPE.NAME.getValue();
-	private static final int TASK_START_TIME_TREE = Attributes.TYPE.START_TIME.getValue();
-	private static final int TASK_END_TIME_TREE = Attributes.TYPE.END_TIME.getValue();
-	private static final int TASK_FLAG_TREE = Attributes.TYPE.FLAG.getValue();
-	private static final int TASK_PRIORITY_TREE = Attributes.TYPE.PRIORITY.getValue();
-	private static final int TASK_ID_TREE = Attributes.TYPE.ID.getValue();
-	private static final int SIZE_OF_TASK_TREES = Attributes.NUM_OF_ATTRIBUTES;
+	private static TaskStore _taskStore;
+	private static TaskStorageWriter _storageWriter;
+	private static List<Task> _pendingTasks;
+	private static int _pendingIndex;
+	private static boolean _hasLoadFailed;
+	private static boolean _isArchivePulled;
+	// Ids of the tasks pulled from the archive which are still archived
+	private static TaskBitmap _archivedIds;
+
+	// TaskTree attributes type, of the attributes kept in a tree each. Flags
+	// and priorities are kept in the bitmaps of _bitmapIndex instead.
+	private static final TYPE[] TREE_TYPES = { TYPE.NAME, TYPE.START_TIME, TYPE.END_TIME, TYPE.ID };
+	private static final int TASK_NAME_TREE = 0;
+	private static final int TASK_START_TIME_TREE = 1;
+	private static final int TASK_END_TIME_TREE = 2;
+	private static final int TASK_ID_TREE = 3;
+	private static final int SIZE_OF_TASK_TREES = TREE_TYPES.length;
+	private static final int PULL_ALL = Integer.MAX_VALUE;
+	private static final int PARALLEL_PULL_SIZE = 10000;
 
 	// Message Constants
 	private final String MSG_ERR_SEARCH_TERM_EMPTY = "Search term is empty";
+	private static final String MSG_PULL_FAILED = "Unable to read pending task: %1$s";
 
 	// For managing comparable argument during query
 	private static Task fromValueHandler;
@@ -59,28 +87,56 @@ public class TaskTree {
 	 *
 	 * @param taskFilePath
 	 *            directed to the storage XML file for tasks.
+	 * @param taskStore
+	 *            store which keeps the tasks of the storage file.
+	 * @param initialPullSize
+	 *            maximum number of tasks to pull from storage now.
+	 * @param storageMode
+	 *            when changes are written to the storage file.
+	 * @param commitInterval
+	 *            milliseconds to collect changes for in {@code GROUP_COMMIT}
+	 *            mode.
 	 *
 	 */
-	private static boolean init(String taskFilePath) {
+	private static boolean init(String taskFilePath, TaskStore taskStore, int initialPullSize,
+			TaskStorageWriter.MODE storageMode, long commitInterval) {
+
+		// Changes still queued for a previous file are written before it is read again
+		if (_storageWriter != null) {
+			_storageWriter.close();
+		}
 
 		_taskTree = new TaskTree();
+		newIndexes();
+		fromValueHandler = Task.getVirtualTask();
+		_hasLoadFailed = false;
+
+		// Fill TaskTree from file storage
+		boolean isValidFile = iniTaskStore(taskFilePath, taskStore);
+		pullFromStorage(initialPullSize);
+		iniStorageWriter(storageMode, commitInterval);
+		return isValidFile;
+	}
 
+	/**
+	 * Creates the empty trees and indexes of the tasks.
+	 */
+	private static void newIndexes() {
 		_taskTreeSize = 0;
 		_taskTrees = new ArrayList<TreeSet<Task>>(SIZE_OF_TASK_TREES);
 
 		_taskTrees.add(TASK_NAME_TREE, new TreeSet<Task>(new NameComparator()));
 		_taskTrees.add(TASK_START_TIME_TREE, new TreeSet<Task>(new StartTimeComparator()));
 		_taskTrees.add(TASK_END_TIME_TREE, new TreeSet<Task>(new EndTimeComparator()));
-		_taskTrees.add(TASK_FLAG_TREE, new TreeSet<Task>(new FlagComparator()));
-		_taskTrees.add(TASK_PRIORITY_TREE, new TreeSet<Task>(new PriorityComparator()));
 		_taskTrees.add(TASK_ID_TREE, new TreeSet<Task>(new IdComparator()));
-
-		fromValueHandler = Task.getVirtualTask();
-
-		// Fill TaskTree from file storage
-		boolean isValidFile = iniTaskFileHandler(taskFilePath);
-		pullFromStorage();
-		return isValidFile;
+		_idIndex = new IntHashMap<Task>();
+		_nameIndex = null;
+		_intervalTree = null;
+		_dueIndex = null;
+		_taskCounter = new TaskCounter(System.currentTimeMillis());
+		_bitmapIndex = new TaskBitmapIndex();
+		_isArchivePulled = false;
+		_archivedIds = new TaskBitmap();
 	}
 
 	/**
@@ -91,7 +147,113 @@ public class TaskTree {
 	 *         will replace the previous instance of the TaskTree.
 	 */
 	public static TaskTree newTaskTree(String taskFilePath) {
-		init(taskFilePath);
+		return newTaskTree(taskFilePath, false);
+	}
+
+	/**
+	 * Construct and return a new instance of {@code TaskTree} whose changes
+	 * are recorded in the journal of the storage file instead of rewriting
+	 * the file. If the taskTree has already been constructed, the previous
+	 * instance is replaced.
+	 *
+	 * @param taskFilePath
+	 *            directed to the storage XML file for tasks.
+	 * @param isJournalMode
+	 *            true if changes are appended to a journal.
+	 * @return a new instance of {@code TaskTree}. This new {@code TaskTree}
+	 *         will replace the previous instance of the TaskTree.
+	 */
+	public static TaskTree newTaskTree(String taskFilePath, boolean isJournalMode) {
+		return newTaskTree(taskFilePath, isJournalMode, PULL_ALL);
+	}
+
+	/**
+	 * Construct and return a new instance of {@code TaskTree} which only holds
+	 * the first {@code initialPullSize} tasks of the storage file, so that
+	 * they can be shown before a large file is read completely. Queries only
+	 * see the tasks pulled so far. Adding, removing, updating or getting a
+	 * task pulls the remaining tasks first, and so does
+	 * {@link #pullPendingTasks()}, which should be called before new tasks
+	 * are created.
+	 *
+	 * @param taskFilePath
+	 *            directed to the storage XML file for tasks.
+	 * @param isJournalMode
+	 *            true if changes are appended to a journal.
+	 * @param initialPullSize
+	 *            maximum number of tasks to pull from storage now.
+	 * @return a new instance of {@code TaskTree}. This new {@code TaskTree}
+	 *         will replace the previous instance of the TaskTree.
+	 */
+	public static TaskTree newTaskTree(String taskFilePath, boolean isJournalMode, int initialPullSize) {
+		return newTaskTree(taskFilePath, isJournalMode, initialPullSize, TaskStorageWriter.MODE.SYNC);
+	}
+
+	/**
+	 * Construct and return a new instance of {@code TaskTree} like
+	 * {@link #newTaskTree(String, boolean, int)}, whose changes are written
+	 * to the storage file according to {@code storageMode}. Unless the mode
+	 * is {@code SYNC}, operations return once this {@code TaskTree} is
+	 * updated, and {@link #flushStorage()} waits for the changes to be
+	 * written.
+	 *
+	 * @param taskFilePath
+	 *            directed to the storage XML file for tasks.
+	 * @param isJournalMode
+	 *            true if changes are appended to a journal.
+	 * @param initialPullSize
+	 *            maximum number of tasks to pull from storage now.
+	 * @param storageMode
+	 *            when changes are written to the storage file.
+	 * @return a new instance of {@code TaskTree}. This new {@code TaskTree}
+	 *         will replace the previous instance of the TaskTree.
+	 */
+	public static TaskTree newTaskTree(String taskFilePath, boolean isJournalMode, int initialPullSize,
+			TaskStorageWriter.MODE storageMode) {
+		return newTaskTree(taskFilePath, new TaskFileHandler(isJournalMode), initialPullSize, storageMode);
+	}
+
+	/**
+	 * Construct and return a new instance of {@code TaskTree} like
+	 * {@link #newTaskTree(String, boolean, int, TaskStorageWriter.MODE)},
+	 * whose tasks are kept by {@code taskStore}.
+	 *
+	 * @param taskFilePath
+	 *            directed to the storage file for tasks.
+	 * @param taskStore
+	 *            store which keeps the tasks, not loaded yet.
+	 * @param initialPullSize
+	 *            maximum number of tasks to pull from storage now.
+	 * @param storageMode
+	 *            when changes are written to the storage file.
+	 * @return a new instance of {@code TaskTree}. This new {@code TaskTree}
+	 *         will replace the previous instance of the TaskTree.
+	 * @see storage.TaskStore
+	 */
+	public static TaskTree newTaskTree(String taskFilePath, TaskStore taskStore, int initialPullSize,
+			TaskStorageWriter.MODE storageMode) {
+		return newTaskTree(taskFilePath, taskStore, initialPullSize, storageMode,
+				TaskStorageWriter.GROUP_COMMIT_INTERVAL);
+	}
+
+	/**
+	 * Construct and return a new instance of {@code TaskTree} like
+	 * {@link #newTaskTree(String, TaskStore, int, TaskStorageWriter.MODE)},
+	 * which collects changes for {@code commitInterval} milliseconds before
+	 * writing them in {@code GROUP_COMMIT} mode.
+	 *
+	 * @param commitInterval
+	 *            milliseconds to collect changes for in {@code GROUP_COMMIT}
+	 *            mode.
+	 * @see #newTaskTree(String, TaskStore, int, TaskStorageWriter.MODE)
+	 */
+	public static TaskTree newTaskTree(String taskFilePath, TaskStore taskStore, int initialPullSize,
+			TaskStorageWriter.MODE storageMode, long commitInterval) {
+		assert taskStore != null;
+		assert initialPullSize >= 0;
+		assert commitInterval >= 0;
+
+		init(taskFilePath, taskStore, initialPullSize, storageMode, commitInterval);
 		return getTaskTree();
 	}
 
@@ -114,6 +276,7 @@ public class TaskTree {
 	 *         specified {@code Task} object
 	 */
 	public boolean add(Task task) {
+		pullPendingTasks();
 
 		if (task == null) {
 			throw new NullPointerException();
@@ -128,6 +291,18 @@ public class TaskTree {
 		}
 
 		if (isAddedToData) {
+			_idIndex.put(task.getId(), task);
+			if (_nameIndex != null) {
+				_nameIndex.add(task);
+			}
+			if (_intervalTree != null) {
+				_intervalTree.add(task);
+			}
+			if (_dueIndex != null) {
+				_dueIndex.add(task);
+			}
+			_taskCounter.add(task);
+			_bitmapIndex.add(task);
 			increaseTaskListSize();
 			isAddedToFile &= pushAddToStorage(task);
 		}
@@ -144,6 +319,7 @@ public class TaskTree {
 	 *         {@code Task} object
 	 */
 	public boolean remove(Task task) {
+		pullPendingTasks();
 
 		if (task == null) {
 			throw new NullPointerException();
@@ -157,6 +333,19 @@ public class TaskTree {
 			assert isRemovedFromData;
 		}
 		if (isRemovedFromData) {
+			_idIndex.remove(task.getId());
+			if (_nameIndex != null) {
+				_nameIndex.remove(task);
+			}
+			if (_intervalTree != null) {
+				_intervalTree.remove(task);
+			}
+			if (_dueIndex != null) {
+				_dueIndex.remove(task);
+			}
+			_taskCounter.remove(task);
+			_bitmapIndex.remove(task);
+			_archivedIds.remove(task.getId());
 			decreaseTaskListSize();
 			isRemovedFromFile &= pushRemoveToStorage(task);
 		}
@@ -176,6 +365,7 @@ public class TaskTree {
 	 *         modified
 	 */
 	public boolean updateName(Task task, String newValue) {
+		pullPendingTasks();
 		TYPE taskAttributeType = TYPE.NAME;
 		boolean isAdded, isRemoved, isReplaced;
 		isReplaced = isAdded = isRemoved = false;
@@ -183,14 +373,21 @@ public class TaskTree {
 		isRemoved = removeFromAttributeTree(task, taskAttributeType);
 
 		if (isRemoved) {
+			if (_nameIndex != null) {
+				_nameIndex.remove(task);
+			}
 			task.setName(newValue);
 			isAdded = addToAttributeTree(task, taskAttributeType);
+			if (_nameIndex != null) {
+				_nameIndex.add(task);
+			}
 		}
 
 		isReplaced = isRemoved & isAdded;
 
 		if (isReplaced) {
 			pushUpdateToStorage(task);
+			_archivedIds.remove(task.getId());
 		}
 
 		return isReplaced;
@@ -209,8 +406,10 @@ public class TaskTree {
 	 * @deprecated Description field is deprecated.
 	 */
 	public void updateDescription(Task task, String newValue) {
+		pullPendingTasks();
 		task.setDescription(newValue);
 		pushUpdateToStorage(task);
+		_archivedIds.remove(task.getId());
 	}
 
 	/**
@@ -225,6 +424,7 @@ public class TaskTree {
 	 *         modified
 	 */
 	public boolean updateStartTime(Task task, long newValue) {
+		pullPendingTasks();
 		TYPE taskAttributeType = TYPE.START_TIME;
 		boolean isAdded, isRemoved, isReplaced;
 		isReplaced = isAdded = isRemoved = false;
@@ -232,14 +432,21 @@ public class TaskTree {
 		isRemoved = removeFromAttributeTree(task, taskAttributeType);
 
 		if (isRemoved) {
+			if (_intervalTree != null) {
+				_intervalTree.remove(task);
+			}
 			task.setStartTime(newValue);
 			isAdded = addToAttributeTree(task, taskAttributeType);
+			if (_intervalTree != null) {
+				_intervalTree.add(task);
+			}
 		}
 
 		isReplaced = isRemoved & isAdded;
 
 		if (isReplaced) {
 			pushUpdateToStorage(task);
+			_archivedIds.remove(task.getId());
 		}
 
 		return isReplaced;
@@ -257,6 +464,7 @@ public class TaskTree {
 	 *         modified
 	 */
 	public boolean updateEndTime(Task task, long newValue) {
+		pullPendingTasks();
 		TYPE taskAttributeType = TYPE.END_TIME;
 		boolean isAdded, isRemoved, isReplaced;
 		isReplaced = isAdded = isRemoved = false;
@@ -264,14 +472,29 @@ public class TaskTree {
 		isRemoved = removeFromAttributeTree(task, taskAttributeType);
 
 		if (isRemoved) {
+			_taskCounter.remove(task);
+			if (_intervalTree != null) {
+				_intervalTree.remove(task);
+			}
+			if (_dueIndex != null) {
+				_dueIndex.remove(task);
+			}
 			task.setEndTime(newValue);
 			isAdded = addToAttributeTree(task, taskAttributeType);
+			_taskCounter.add(task);
+			if (_intervalTree != null) {
+				_intervalTree.add(task);
+			}
+			if (_dueIndex != null) {
+				_dueIndex.add(task);
+			}
 		}
 
 		isReplaced = isRemoved & isAdded;
 
 		if (isReplaced) {
 			pushUpdateToStorage(task);
+			_archivedIds.remove(task.getId());
 		}
 
 		return isReplaced;
@@ -289,21 +512,23 @@ public class TaskTree {
 	 *         modified
 	 */
 	public boolean updateFlag(Task task, FLAG_TYPE newValue) {
-		TYPE taskAttributeType = TYPE.FLAG;
-		boolean isAdded, isRemoved, isReplaced;
-		isReplaced = isAdded = isRemoved = false;
-
-		isRemoved = removeFromAttributeTree(task, taskAttributeType);
-
-		if (isRemoved) {
-			task.setFlag(newValue);
-			isAdded = addToAttributeTree(task, taskAttributeType);
-		}
-
-		isReplaced = isRemoved & isAdded;
+		pullPendingTasks();
+		boolean isReplaced = isInTaskTree(task);
 
 		if (isReplaced) {
+			_taskCounter.remove(task);
+			if (_dueIndex != null) {
+				_dueIndex.remove(task);
+			}
+			_bitmapIndex.remove(task);
+			task.setFlag(newValue);
+			_bitmapIndex.add(task);
+			if (_dueIndex != null) {
+				_dueIndex.add(task);
+			}
+			_taskCounter.add(task);
 			pushUpdateToStorage(task);
+			_archivedIds.remove(task.getId());
 		}
 
 		return isReplaced;
@@ -321,28 +546,35 @@ public class TaskTree {
 	 *         modified
 	 */
 	public boolean updatePriority(Task task, PRIORITY_TYPE newValue) {
-		TYPE taskAttributeType = TYPE.PRIORITY;
-		boolean isAdded, isRemoved, isReplaced;
-		isReplaced = isAdded = isRemoved = false;
-
-		isRemoved = removeFromAttributeTree(task, taskAttributeType);
-
-		if (isRemoved) {
-			task.setPriority(newValue);
-			isAdded = addToAttributeTree(task, taskAttributeType);
-		}
-
-		isReplaced = isRemoved & isAdded;
+		pullPendingTasks();
+		boolean isReplaced = isInTaskTree(task);
 
 		if (isReplaced) {
+			if (_dueIndex != null) {
+				_dueIndex.remove(task);
+			}
+			_bitmapIndex.remove(task);
+			task.setPriority(newValue);
+			_bitmapIndex.add(task);
+			if (_dueIndex != null) {
+				_dueIndex.add(task);
+			}
 			pushUpdateToStorage(task);
+			_archivedIds.remove(task.getId());
 		}
 
 		return isReplaced;
 	}
 
+	/**
+	 * @return true if the task itself is in this {@code TaskTree}
+	 */
+	private boolean isInTaskTree(Task task) {
+		return _idIndex.get(task.getId()) == task;
+	}
+
 	private boolean removeFromAttributeTree(Task oldTask, TYPE taskAttributeType) {
-		int treeType = taskAttributeType.getValue();
+		int treeType = getTreeIndex(taskAttributeType);
 
 		boolean isRemoved = false;
 		isRemoved = _taskTrees.get(treeType).remove(oldTask);
@@ -350,7 +582,7 @@ public class TaskTree {
 	}
 
 	private boolean addToAttributeTree(Task newTask, TYPE taskAttributeType) {
-		int treeType = taskAttributeType.getValue();
+		int treeType = getTreeIndex(taskAttributeType);
 
 		boolean isAdded = false;
 		isAdded = _taskTrees.get(treeType).add(newTask);
@@ -359,46 +591,75 @@ public class TaskTree {
 
 	// TaskTree Task operation: Search and query
 	/**
-	 * Returns a view of the portion of this {@code TaskTree} whose {@code Task}
-	 * objects contain the {@code searchTerm}. The returned {@code List} is
-	 * backed by this {@code TaskTree}, so changes in the returned {@code List}
-	 * are reflected in this {@code TaskTree}, and vice-versa.
+	 * Returns a copy of the portion of this {@code TaskTree} whose {@code Task}
+	 * objects contain the {@code searchTerm}, sorted by name. Later changes of
+	 * this {@code TaskTree} are not reflected in the returned {@code List}. A
+	 * search term without capital letters is matched case-insensitively. Search
+	 * terms of three or more characters are looked up in an index of name
+	 * trigrams, which is built on the first such search.
 	 *
 	 * @param searchTerm
 	 *            the sequence to search for
-	 * @return a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * @return a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 *         object contain the {@code searchTerm}
 	 * @throws IllegalArgumentException
 	 *             if search term is empty
 	 */
 	public List<Task> searchName(String searchTerm) {
-		ArrayList<Task> resultList = new ArrayList<Task>(_taskTreeSize);
-
 		if (searchTerm == null) {
 			throw new IllegalArgumentException(MSG_ERR_SEARCH_TERM_EMPTY);
 		}
 
 		boolean isCaseInsensitive = checkLowercase(searchTerm);
-		String checkNameString;
-		String checkString;
-
-		for (Task task : _taskTrees.get(TASK_NAME_TREE)) {
-
-			checkNameString = task.getName();
-			checkString = checkNameString;
 
-			if (isCaseInsensitive) {
-				checkString = checkString.toLowerCase();
+		if (!TaskNameIndex.isIndexable(searchTerm)) {
+			// Too short to be looked up, so every task is checked
+			ArrayList<Task> resultList = new ArrayList<Task>(_taskTreeSize);
+			for (Task task : _taskTrees.get(TASK_NAME_TREE)) {
+				if (isNameMatched(task, searchTerm, isCaseInsensitive)) {
+					resultList.add(task);
+				}
 			}
+			return resultList;
+		}
 
-			if (checkString.contains(searchTerm)) {
+		int[] candidateIds = getNameIndex().getCandidates(searchTerm);
+		ArrayList<Task> resultList = new ArrayList<Task>(candidateIds.length);
+		for (int id : candidateIds) {
+			Task task = _idIndex.get(id);
+			if (isNameMatched(task, searchTerm, isCaseInsensitive)) {
 				resultList.add(task);
 			}
 		}
+		resultList.sort(_taskTrees.get(TASK_NAME_TREE).comparator());
 		return resultList;
 	}
 
-	private boolean checkLowercase(String text) {
+	static boolean isNameMatched(Task task, String searchTerm, boolean isCaseInsensitive) {
+		String checkString = task.getName();
+
+		if (isCaseInsensitive) {
+			checkString = checkString.toLowerCase();
+		}
+		return checkString.contains(searchTerm);
+	}
+
+	/**
+	 * Returns the index of name trigrams, building it from the tasks of this
+	 * {@code TaskTree} on the first use. Changes of tasks keep it up to date
+	 * once built.
+	 */
+	private TaskNameIndex getNameIndex() {
+		if (_nameIndex == null) {
+			_nameIndex = new TaskNameIndex();
+			for (Task task : _taskTrees.get(TASK_ID_TREE)) {
+				_nameIndex.add(task);
+			}
+		}
+		return _nameIndex;
+	}
+
+	static boolean checkLowercase(String text) {
 		int textLength = text.length();
 		char charInText;
 
@@ -412,20 +673,18 @@ public class TaskTree {
 	}
 
 	/**
-	 * Returns a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * Returns a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 * objects range from {@code fromStartTime}, inclusive, to
 	 * {@code toStartTime}, inclusive. (If {@code fromStartTime} and
 	 * {@code toStartTime} are equal, the returned {@code List} contains
-	 * {@code Task} object that matches {@code fromEndTime}.) The returned
-	 * {@code List} is backed by this {@code TaskTree}, so changes in the
-	 * returned {@code List} are reflected in this {@code TaskTree}, and
-	 * vice-versa.
+	 * {@code Task} object that matches {@code fromEndTime}.) Later changes of
+	 * this {@code TaskTree} are not reflected in the returned {@code List}.
 	 *
 	 * @param fromStartTime
 	 *            low endpoint (inclusive) of the returned list
 	 * @param toStartTime
 	 *            high endpoint (inclusive) of the returned list
-	 * @return a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * @return a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 *         objects range from {@code fromStartTime}, inclusive, to
 	 *         {@code toStartTime}, inclusive
 	 */
@@ -434,19 +693,18 @@ public class TaskTree {
 	}
 
 	/**
-	 * Returns a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * Returns a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 * objects range from {@code fromEndTime}, inclusive, to {@code toEnd}Time,
 	 * inclusive. (If {@code fromEndTime} and {@code toEndTime} are equal, the
 	 * returned {@code List} contains {@code Task} object that matches
-	 * {@code fromEndTime} only.) The returned {@code List} is backed by this
-	 * {@code TaskTree}, so changes in the returned {@code List} are reflected
-	 * in this {@code TaskTree}, and vice-versa.
+	 * {@code fromEndTime} only.) Later changes of this {@code TaskTree} are not
+	 * reflected in the returned {@code List}.
 	 *
 	 * @param fromEndTime
 	 *            low endpoint (inclusive) of the returned list
 	 * @param toEndTime
 	 *            high endpoint (inclusive) of the returned list
-	 * @return a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * @return a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 *         objects range from {@code fromEndTime}, inclusive, to
 	 *         {@code toEndTime}, inclusive
 	 */
@@ -455,19 +713,18 @@ public class TaskTree {
 	}
 
 	/**
-	 * Returns a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * Returns a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 * objects range from {@code fromFlag}, inclusive, to {@code toFlag},
 	 * inclusive. (If {@code fromFlag} and {@code toFlag} are equal, the
 	 * returned {@code List} contains {@code Task} object that matches
-	 * {@code fromFlag} only.) The returned {@code List} is backed by this
-	 * {@code TaskTree}, so changes in the returned {@code List} are reflected
-	 * in this {@code TaskTree}, and vice-versa.
+	 * {@code fromFlag} only.) Later changes of this {@code TaskTree} are not
+	 * reflected in the returned {@code List}.
 	 *
 	 * @param fromFlag
 	 *            low endpoint (inclusive) of the returned list
 	 * @param toFlag
 	 *            high endpoint (inclusive) of the returned list
-	 * @return a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * @return a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 *         objects range from {@code fromFlag}, inclusive, to {@code toFlag}
 	 *         , inclusive
 	 */
@@ -480,19 +737,18 @@ public class TaskTree {
 	}
 
 	/**
-	 * Returns a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * Returns a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 * objects range from {@code fromPriority}, inclusive, to {@code toPriority}
 	 * , inclusive. (If {@code fromPriority} and {@code toPriority} are equal,
 	 * the returned {@code List} contains {@code Task} object that matches
-	 * {@code fromPriority} only.) The returned {@code List} is backed by this
-	 * {@code TaskTree}, so changes in the returned {@code List} are reflected
-	 * in this {@code TaskTree}, and vice-versa.
+	 * {@code fromPriority} only.) Later changes of this {@code TaskTree} are
+	 * not reflected in the returned {@code List}.
 	 *
 	 * @param fromPriority
 	 *            low endpoint (inclusive) of the returned list
 	 * @param toPriority
 	 *            high endpoint (inclusive) of the returned list
-	 * @return a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * @return a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 *         objects range from {@code fromPriority}, inclusive, to
 	 *         {@code toPriority}, inclusive
 	 */
@@ -505,15 +761,14 @@ public class TaskTree {
 	}
 
 	/**
-	 * Returns a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * Returns a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 * objects range from {@code fromValueL}, inclusive, to {@code toValueL},
 	 * inclusive given the specified {@code taskAttributeType}. (If
 	 * {@code fromValueL} and {@code toValueL} are equal, the returned
 	 * {@code List} contains {@code Task} object that matches {@code fromValueL}
-	 * only.) The returned {@code List} is backed by this {@code TaskTree}, so
-	 * changes in the returned {@code List} are reflected in this
-	 * {@code TaskTree}, and vice-versa. To query flag and priority, please use
-	 * its respective query method.
+	 * only.) The returned {@code List} is a copy of the portion; use
+	 * {@link #getPageFrom} to read only part of it. To query flag and priority,
+	 * please use its respective query method.
 	 *
 	 * @param taskAttributeType
 	 *            the attribute type to be query with.
@@ -521,13 +776,17 @@ public class TaskTree {
 	 *            low endpoint (inclusive) of the returned list
 	 * @param toValueL
 	 *            high endpoint (inclusive) of the returned list
-	 * @return a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * @return a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 *         objects range from {@code fromValueL}, inclusive, to
 	 *         {@code toValueL}, inclusive
 	 */
 	public List<Task> query(TYPE taskAttributeType, long fromValueL, long toValueL) {
 
-		int treeType = taskAttributeType.getValue();
+		if (taskAttributeType == TYPE.FLAG || taskAttributeType == TYPE.PRIORITY) {
+			return queryBitmaps(taskAttributeType, fromValueL, toValueL);
+		}
+
+		int treeType = getTreeIndex(taskAttributeType);
 
 		TreeSet<Task> taskTree = _taskTrees.get(treeType);
 		ArrayList<Task> emptyList = new ArrayList<Task>();
@@ -552,14 +811,6 @@ public class TaskTree {
 				fromValueHandler.setStartTime(fromValueL);
 				toValueHdlBuffer.setStartTime(toValueL);
 				break;
-			case PRIORITY:
-				fromValueHandler.setPriority(PRIORITY_TYPE.get((int) fromValueL));
-				toValueHdlBuffer.setPriority(PRIORITY_TYPE.get((int) toValueL));
-				break;
-			case FLAG:
-				fromValueHandler.setFlag(FLAG_TYPE.get((int) fromValueL));
-				toValueHdlBuffer.setFlag(FLAG_TYPE.get((int) toValueL));
-				break;
 			case ID:
 				fromValueHandler.setId((int) fromValueL);
 				toValueHdlBuffer.setId((int) toValueL);
@@ -571,6 +822,392 @@ public class TaskTree {
 		}
 	}
 
+	/**
+	 * Returns the tasks whose flag or priority value is from {@code fromValue}
+	 * to {@code toValue}, both inclusive, sorted by that value and then by id
+	 * as in the comparator of the attribute
+	 */
+	private List<Task> queryBitmaps(TYPE taskAttributeType, long fromValue, long toValue) {
+		boolean isFlag = taskAttributeType == TYPE.FLAG;
+		int numOfValues = isFlag ? FLAG_TYPE.values().length : PRIORITY_TYPE.values().length;
+		ArrayList<Task> resultList = new ArrayList<Task>();
+
+		for (long value = Math.max(fromValue, 0); value <= Math.min(toValue, numOfValues - 1); value++) {
+			TaskBitmap ids = isFlag ? _bitmapIndex.getFlagBitmap(FLAG_TYPE.get((int) value))
+					: _bitmapIndex.getPriorityBitmap(PRIORITY_TYPE.get((int) value));
+			resultList.ensureCapacity(resultList.size() + ids.cardinality());
+			addTasks(ids, resultList);
+		}
+		return resultList;
+	}
+
+	/**
+	 * Adds the tasks of a set of ids, in order of id
+	 */
+	private static void addTasks(TaskBitmap ids, List<Task> resultList) {
+		ids.forEach(id -> resultList.add(_idIndex.get(id)));
+	}
+
+	/**
+	 * @return index in {@code _taskTrees} of the tree of an attribute, which
+	 *         must not be a flag or priority
+	 */
+	private static int getTreeIndex(TYPE taskAttributeType) {
+		switch (taskAttributeType) {
+		case NAME:
+			return TASK_NAME_TREE;
+		case START_TIME:
+			return TASK_START_TIME_TREE;
+		case END_TIME:
+			return TASK_END_TIME_TREE;
+		case ID:
+			return TASK_ID_TREE;
+		default:
+			throw new IllegalArgumentException(taskAttributeType.toString());
+		}
+	}
+
+	/**
+	 * Returns the {@code Task} objects of this {@code TaskTree} which meet
+	 * every condition of a query, sorted according to the order they are
+	 * created.
+	 *
+	 * Only one source of tasks is read, the one expected to hold the fewest:
+	 * the ids of the flag and priority asked for, whose bitmaps are combined
+	 * and counted by word, the tasks whose names may contain the name term,
+	 * or the tree of a time range, which is only counted as far as the
+	 * smallest source found before it. The other conditions are checked on
+	 * each task read, so a query costs about the size of its most selective
+	 * condition.
+	 *
+	 * @param query
+	 *            the conditions to meet
+	 * @return a list of the tasks meeting every condition of {@code query}
+	 */
+	public List<Task> query(TaskQuery query) {
+		ArrayList<Task> resultList = new ArrayList<Task>();
+		if (query.isEmpty()) {
+			return resultList;
+		}
+
+		for (Task task : planQuery(query, 0)) {
+			if (query.matches(task)) {
+				resultList.add(task);
+			}
+		}
+		return resultList;
+	}
+
+	/**
+	 * Returns the tasks of the source expected to hold the fewest tasks
+	 * meeting a query, as chosen by {@link #query(TaskQuery)}, from the id
+	 * {@code fromId} on and in order of id. The tasks still have to be
+	 * checked against the query.
+	 */
+	private Iterable<Task> planQuery(TaskQuery query, int fromId) {
+		NavigableSet<Task> sourceRange = null;
+		int[] sourceCandidateIds = null;
+		int sourceSize = _taskTreeSize;
+
+		// Flag and priority bitmaps are combined by word, and read last
+		TaskBitmap sourceIds = null;
+		FLAG_TYPE flag = query.getFlag();
+		PRIORITY_TYPE priority = query.getPriority();
+		if (flag != null) {
+			sourceIds = _bitmapIndex.getFlagBitmap(flag);
+		}
+		if (priority != null) {
+			TaskBitmap priorityIds = _bitmapIndex.getPriorityBitmap(priority);
+			sourceIds = sourceIds == null ? priorityIds : sourceIds.and(priorityIds);
+		}
+		if (sourceIds != null) {
+			if (sourceIds.cardinality() < sourceSize) {
+				sourceSize = sourceIds.cardinality();
+			} else {
+				sourceIds = null;
+			}
+		}
+
+		String nameTerm = query.getNameTerm();
+		if (nameTerm != null && TaskNameIndex.isIndexable(nameTerm)) {
+			int[] candidateIds = getNameIndex().getCandidates(nameTerm);
+			if (candidateIds.length < sourceSize) {
+				sourceCandidateIds = candidateIds;
+				sourceSize = candidateIds.length;
+				sourceIds = null;
+			}
+		}
+
+		if (query.hasStartTimeRange()) {
+			NavigableSet<Task> range = getRange(TYPE.START_TIME, query.getFromStartTime(), query.getToStartTime());
+			int rangeSize = countUpTo(range, sourceSize);
+			if (rangeSize < sourceSize) {
+				sourceRange = range;
+				sourceSize = rangeSize;
+				sourceCandidateIds = null;
+				sourceIds = null;
+			}
+		}
+
+		if (query.hasEndTimeRange()) {
+			NavigableSet<Task> range = getRange(TYPE.END_TIME, query.getFromEndTime(), query.getToEndTime());
+			int rangeSize = countUpTo(range, sourceSize);
+			if (rangeSize < sourceSize) {
+				sourceRange = range;
+				sourceSize = rangeSize;
+				sourceCandidateIds = null;
+				sourceIds = null;
+			}
+		}
+
+		if (sourceIds != null) {
+			// Already in order of id
+			return getTasks(sourceIds, fromId);
+		}
+
+		if (sourceCandidateIds != null) {
+			int[] candidateIds = sourceCandidateIds.clone();
+			Arrays.sort(candidateIds);
+			ArrayList<Task> candidates = new ArrayList<Task>(candidateIds.length);
+			for (int id : candidateIds) {
+				if (id >= fromId) {
+					candidates.add(_idIndex.get(id));
+				}
+			}
+			return candidates;
+		}
+
+		if (sourceRange != null) {
+			ArrayList<Task> candidates = new ArrayList<Task>(sourceSize);
+			for (Task task : sourceRange) {
+				if (task.getId() >= fromId) {
+					candidates.add(task);
+				}
+			}
+			candidates.sort(_taskTrees.get(TASK_ID_TREE).comparator());
+			return candidates;
+		}
+
+		return getRange(TYPE.ID, fromId, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Reads the tasks of a set of ids from the id {@code fromId} on, one id at
+	 * a time, so that only the tasks read are looked up
+	 */
+	private Iterable<Task> getTasks(TaskBitmap ids, int fromId) {
+		return () -> new Iterator<Task>() {
+			private int _nextId = ids.nextId(fromId);
+
+			@Override
+			public boolean hasNext() {
+				return _nextId != -1;
+			}
+
+			@Override
+			public Task next() {
+				if (_nextId == -1) {
+					throw new NoSuchElementException();
+				}
+				Task task = _idIndex.get(_nextId);
+				_nextId = ids.nextId(_nextId + 1);
+				return task;
+			}
+		};
+	}
+
+	/**
+	 * Returns a view of the tasks of an attribute tree whose value of that
+	 * attribute is from {@code fromValue} to {@code toValue}, both inclusive,
+	 * whatever their ids
+	 */
+	private NavigableSet<Task> getRange(TYPE taskAttributeType, long fromValue, long toValue) {
+		Task fromTask = Task.getVirtualTask();
+		Task toTask = Task.getVirtualTask();
+		// Ids of tasks are never negative
+		fromTask.setId(-1);
+		toTask.setId(Integer.MAX_VALUE);
+
+		switch (taskAttributeType) {
+		case START_TIME:
+			fromTask.setStartTime(fromValue);
+			toTask.setStartTime(toValue);
+			break;
+		case END_TIME:
+			fromTask.setEndTime(fromValue);
+			toTask.setEndTime(toValue);
+			break;
+		case ID:
+			fromTask.setId((int) Math.max(Math.min(fromValue, Integer.MAX_VALUE), -1));
+			toTask.setId((int) Math.max(Math.min(toValue, Integer.MAX_VALUE), -1));
+			break;
+		default:
+			throw new IllegalArgumentException(taskAttributeType.toString());
+		}
+		return _taskTrees.get(getTreeIndex(taskAttributeType)).subSet(fromTask, true, toTask, true);
+	}
+
+	/**
+	 * Counts the tasks of a view, stopping once {@code maxCount} are counted
+	 */
+	private static int countUpTo(NavigableSet<Task> tasks, int maxCount) {
+		int count = 0;
+		Iterator<Task> iterator = tasks.iterator();
+		while (count < maxCount && iterator.hasNext()) {
+			iterator.next();
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the {@code Task} objects of this {@code TaskTree} which take up
+	 * any time from {@code fromTime} to {@code toTime}, both inclusive, sorted
+	 * by start time. A task takes up the time from its start time to its end
+	 * time, or only the instant of the one it has. Tasks without either are
+	 * never returned. The tasks are looked up in an index of their times,
+	 * which is built on the first such query.
+	 *
+	 * @param fromTime
+	 *            low endpoint (inclusive) of the time range
+	 * @param toTime
+	 *            high endpoint (inclusive) of the time range
+	 * @return a list of the tasks taking up time in the range
+	 */
+	public List<Task> queryOverlap(long fromTime, long toTime) {
+		ArrayList<Task> resultList = new ArrayList<Task>();
+
+		if (toTime >= fromTime) {
+			getIntervalTree().addOverlapping(fromTime, toTime, resultList);
+		}
+		return resultList;
+	}
+
+	/**
+	 * Returns the {@code Task} objects of this {@code TaskTree} which take up
+	 * the given instant, sorted by start time.
+	 *
+	 * @param time
+	 *            the instant to look up
+	 * @return a list of the tasks taking up the instant
+	 * @see #queryOverlap(long, long)
+	 */
+	public List<Task> queryAt(long time) {
+		return queryOverlap(time, time);
+	}
+
+	/**
+	 * Returns the {@code Task} objects of this {@code TaskTree} not marked as
+	 * done, other than the given task, whose span of time overlaps the span
+	 * of the given task, sorted by start time. Tasks which only meet it at
+	 * its start or end do not conflict with it.
+	 *
+	 * Only a task with both a start and an end time takes up a span of time.
+	 * A deadline, or a task with only a start time, takes up an instant for
+	 * {@link #queryOverlap(long, long)} but no span, so it neither conflicts
+	 * with other tasks nor fills a free slot of
+	 * {@link #queryFreeSlots(long, long, long, int)}.
+	 *
+	 * @param task
+	 *            the task to check, which need not be in this
+	 *            {@code TaskTree}
+	 * @return a list of the conflicting tasks, empty if the task has no span
+	 *         of time
+	 */
+	public List<Task> queryConflicts(Task task) {
+		ArrayList<Task> resultList = new ArrayList<Task>();
+
+		if (!hasSpan(task)) {
+			return resultList;
+		}
+
+		for (Task other : queryOverlap(task.getStartTime() + 1, task.getEndTime() - 1)) {
+			if (other != task && other.getFlag() == FLAG_TYPE.NULL && hasSpan(other)) {
+				resultList.add(other);
+			}
+		}
+		return resultList;
+	}
+
+	/**
+	 * @return true if a task takes up a span of time
+	 * @see #queryConflicts(Task)
+	 */
+	private static boolean hasSpan(Task task) {
+		return task.getStartTime() != Task.DATE_NULL && task.getEndTime() != Task.DATE_NULL;
+	}
+
+	/**
+	 * Returns the first gaps between the {@code Task} objects of this
+	 * {@code TaskTree} not marked as done, from {@code fromTime} to
+	 * {@code toTime}, which are at least {@code minLength} long. Only tasks
+	 * which take up a span of time fill it, see {@link #queryConflicts(Task)}.
+	 * Tasks are walked in order of start time from the index of task times,
+	 * which skips every task ending before {@code fromTime}, and the walk
+	 * stops once enough gaps are found.
+	 *
+	 * @param fromTime
+	 *            time from which to look for gaps
+	 * @param toTime
+	 *            time until which to look for gaps
+	 * @param minLength
+	 *            shortest gap to return, in milliseconds, at least 1
+	 * @param maxSlots
+	 *            most gaps to return
+	 * @return a list of the gaps, in order of time
+	 */
+	public List<TimeSlot> queryFreeSlots(long fromTime, long toTime, long minLength, int maxSlots) {
+		assert minLength > 0;
+
+		ArrayList<TimeSlot> resultList = new ArrayList<TimeSlot>();
+		if (toTime < fromTime || maxSlots <= 0) {
+			return resultList;
+		}
+
+		long freeFrom = fromTime; // Start of the current gap
+		Iterator<Task> iterator = getIntervalTree().iterateOverlapping(fromTime, toTime);
+
+		while (iterator.hasNext() && resultList.size() < maxSlots) {
+			Task t = iterator.next();
+			if (t.getFlag() != FLAG_TYPE.NULL || !hasSpan(t)) {
+				continue;
+			}
+			if (t.getStartTime() - freeFrom >= minLength) {
+				resultList.add(new TimeSlot(freeFrom, t.getStartTime()));
+			}
+			freeFrom = Math.max(freeFrom, t.getEndTime());
+		}
+
+		if (resultList.size() < maxSlots && toTime - freeFrom >= minLength) {
+			resultList.add(new TimeSlot(freeFrom, toTime));
+		}
+		return resultList;
+	}
+
+	/**
+	 * Returns the index of pending tasks by how soon they are due, building
+	 * it from the tasks of this {@code TaskTree} on the first use. Changes of
+	 * tasks keep it up to date once built.
+	 */
+	private TaskDueIndex getDueIndex() {
+		if (_dueIndex == null) {
+			_dueIndex = new TaskDueIndex(_taskTrees.get(TASK_ID_TREE));
+		}
+		return _dueIndex;
+	}
+
+	/**
+	 * Returns the index of task times, building it from the tasks of this
+	 * {@code TaskTree} on the first use. Changes of tasks keep it up to date
+	 * once built.
+	 */
+	private TaskIntervalTree getIntervalTree() {
+		if (_intervalTree == null) {
+			_intervalTree = new TaskIntervalTree(_taskTrees.get(TASK_ID_TREE));
+		}
+		return _intervalTree;
+	}
+
 	/**
 	 * Returns a task from this {@code TaskTree} via its id. The returned
 	 * {@code Task} is backed by this {@code TaskTree}, so changes in the
@@ -586,25 +1223,19 @@ public class TaskTree {
 	 *
 	 */
 	public Task getTask(int id) {
+		pullPendingTasks();
 
-		TreeSet<Task> idTree = _taskTrees.get(TASK_ID_TREE);
-
-		for (Task task : idTree) {
-			if (task.getId() == id)
-				return task;
-		}
-		return null;
+		return _idIndex.get(id);
 	}
 
 	/**
-	 * Returns a view of the portion of this {@code TaskTree} whose {@code Task}
-	 * objects matches the {@code flagSearch}. The returned {@code List} is
-	 * backed by this {@code TaskTree}, so changes in the returned {@code List}
-	 * are reflected in this {@code TaskTree}, and vice-versa.
+	 * Returns a copy of the portion of this {@code TaskTree} whose {@code Task}
+	 * objects matches the {@code flagSearch}. Later changes of this
+	 * {@code TaskTree} are not reflected in the returned {@code List}.
 	 *
 	 * @param type
 	 *            to search for
-	 * @return a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * @return a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 *         objects match the {@code flagSearch}
 	 * @see taskCollections.Task
 	 *
@@ -616,14 +1247,13 @@ public class TaskTree {
 	}
 
 	/**
-	 * Returns a view of the portion of this {@code TaskTree} whose {@code Task}
-	 * objects matches the {@code prioritySearch}. The returned {@code List} is
-	 * backed by this {@code TaskTree}, so changes in the returned {@code List}
-	 * are reflected in this {@code TaskTree}, and vice-versa.
+	 * Returns a copy of the portion of this {@code TaskTree} whose {@code Task}
+	 * objects matches the {@code prioritySearch}. Later changes of this
+	 * {@code TaskTree} are not reflected in the returned {@code List}.
 	 *
 	 * @param type
 	 *            to search for
-	 * @return a view of the portion of this {@code TaskTree} whose {@code Task}
+	 * @return a copy of the portion of this {@code TaskTree} whose {@code Task}
 	 *         objects match the {@code prioritySearch}
 	 * @see taskCollections.Task
 	 *
@@ -636,33 +1266,33 @@ public class TaskTree {
 
 	// TaskTree operation: getList
 	/**
-	 * Returns a view of this {@code TaskTree} whose {@code Task} objects are
-	 * sorted according to order it is created. The returned {@code List} is
-	 * backed by this {@code TaskTree}, so changes in the returned {@code List}
-	 * are reflected in this {@code TaskTree}, and vice-versa.
+	 * Returns a copy of this {@code TaskTree} whose {@code Task} objects are
+	 * sorted according to order it is created. The returned {@code List} is a
+	 * copy of every task; use {@link #getFirstPage} to read only part of it.
 	 *
-	 * @return a view of this {@code TaskTree}.
+	 * @return a copy of this {@code TaskTree}.
 	 */
 	public List<Task> getList() {
-		int treeType = Attributes.TYPE.ID.getValue();
-		return getSortedList(_taskTrees.get(treeType));
+		return getSortedList(_taskTrees.get(TASK_ID_TREE));
 	}
 
 	/**
-	 * Returns a view of this {@code TaskTree} whose {@code Task} objects are
+	 * Returns a copy of this {@code TaskTree} whose {@code Task} objects are
 	 * sorted according to its specified attribute type. The returned
-	 * {@code List} is backed by this {@code TaskTree}, so changes in the
-	 * returned {@code List} are reflected in this {@code TaskTree}, and
-	 * vice-versa.
+	 * {@code List} is a copy of every task; use {@link #getFirstPage} to read
+	 * only part of it.
 	 *
 	 * @param taskAttributeType
 	 *            the attribute type to be sorted with.
-	 * @return a view of this {@code TaskTree} whose {@code Task} objects are
+	 * @return a copy of this {@code TaskTree} whose {@code Task} objects are
 	 *         sorted according to its specified attribute type.
 	 * @see taskCollections.Attributes
 	 */
 	public List<Task> getSortedList(TYPE taskAttributeType) {
-		int taskAttributeIndex = taskAttributeType.getValue();
+		if (taskAttributeType == TYPE.FLAG || taskAttributeType == TYPE.PRIORITY) {
+			return queryBitmaps(taskAttributeType, Long.MIN_VALUE, Long.MAX_VALUE);
+		}
+		int taskAttributeIndex = getTreeIndex(taskAttributeType);
 		return getSortedList(_taskTrees.get(taskAttributeIndex));
 	}
 
@@ -671,6 +1301,135 @@ public class TaskTree {
 		return resultList;
 	}
 
+	// TaskTree operation: getPage
+	/**
+	 * Returns the first {@code pageSize} tasks meeting a query, in order of an
+	 * attribute. Only the tasks up to the end of the page are read, along
+	 * with the tasks which do not meet the query before it. Pages in order of
+	 * id read the same source of tasks as {@link #query(TaskQuery)}.
+	 *
+	 * @param taskAttributeType
+	 *            the attribute the page is ordered by, which must not be a
+	 *            flag or priority
+	 * @param query
+	 *            the conditions the tasks must meet, or null for every task
+	 * @param pageSize
+	 *            the most tasks in the page
+	 * @return the first page
+	 */
+	public TaskPage getFirstPage(TYPE taskAttributeType, TaskQuery query, int pageSize) {
+		if (taskAttributeType == TYPE.ID && query != null) {
+			return getPage(planQuery(query, 0), taskAttributeType, query, pageSize, false);
+		}
+		NavigableSet<Task> taskTree = _taskTrees.get(getTreeIndex(taskAttributeType));
+		return getPage(taskTree, taskAttributeType, query, pageSize, false);
+	}
+
+	/**
+	 * Returns the last {@code pageSize} tasks meeting a query, in order of an
+	 * attribute. Further pages continue towards the first task.
+	 *
+	 * @see #getFirstPage(TYPE, TaskQuery, int)
+	 */
+	public TaskPage getLastPage(TYPE taskAttributeType, TaskQuery query, int pageSize) {
+		NavigableSet<Task> taskTree = _taskTrees.get(getTreeIndex(taskAttributeType));
+		return getPage(taskTree.descendingSet(), taskAttributeType, query, pageSize, true);
+	}
+
+	/**
+	 * Returns the first {@code pageSize} tasks meeting a query whose value of
+	 * an attribute is {@code fromValue} or after, in order of that attribute
+	 *
+	 * @param taskAttributeType
+	 *            the start time, end time or id
+	 * @see #getFirstPage(TYPE, TaskQuery, int)
+	 */
+	public TaskPage getPageFrom(TYPE taskAttributeType, TaskQuery query, long fromValue, int pageSize) {
+		NavigableSet<Task> range = getRange(taskAttributeType, fromValue, Long.MAX_VALUE);
+		return getPage(range, taskAttributeType, query, pageSize, false);
+	}
+
+	/**
+	 * Returns the tasks following a page in the direction it was read, with
+	 * the attribute, query and size of that page. The page continues after
+	 * the last task read, even if that task was changed or removed since.
+	 *
+	 * @param page
+	 *            a page of this {@code TaskTree}
+	 * @return the next page, which is empty once no tasks follow
+	 */
+	public TaskPage getNextPage(TaskPage page) {
+		TYPE taskAttributeType = page.getType();
+		NavigableSet<Task> taskTree = _taskTrees.get(getTreeIndex(taskAttributeType));
+		Task endKey = page.getEndKey();
+		TaskQuery query = page.getQuery();
+		Iterable<Task> rest;
+
+		if (endKey != null && taskAttributeType == TYPE.ID && query != null && !page.isDescending()) {
+			rest = planQuery(query, endKey.getId() + 1);
+		} else if (endKey == null) {
+			rest = new TreeSet<Task>(taskTree.comparator());
+		} else if (page.isDescending()) {
+			rest = taskTree.headSet(endKey, false).descendingSet();
+		} else {
+			rest = taskTree.tailSet(endKey, false);
+		}
+		return getPage(rest, taskAttributeType, query, page.getPageSize(), page.isDescending());
+	}
+
+	/**
+	 * Reads tasks in the order of a view until a page is full, and then on to
+	 * the next task meeting the query to know whether more follow
+	 */
+	private static TaskPage getPage(Iterable<Task> source, TYPE taskAttributeType, TaskQuery query, int pageSize,
+			boolean isDescending) {
+		Task[] tasks = new Task[pageSize];
+		int count = 0;
+		boolean hasMore = false;
+
+		if (query == null || !query.isEmpty()) {
+			for (Task t : source) {
+				if (query != null && !query.matches(t)) {
+					continue;
+				}
+				if (count == pageSize) {
+					hasMore = true;
+					break;
+				}
+				tasks[count++] = t;
+			}
+		}
+
+		tasks = Arrays.copyOf(tasks, count);
+		if (isDescending) {
+			Collections.reverse(Arrays.asList(tasks));
+		}
+		return new TaskPage(tasks, taskAttributeType, query, pageSize, isDescending, hasMore);
+	}
+
+	// TaskTree operation: nextDue
+	/**
+	 * Returns the pending tasks to be done next: the {@code count} pending
+	 * tasks with the earliest end times, and the {@code count} pending tasks
+	 * without an end time of the highest priority. The tasks are read from
+	 * an index of pending tasks only, so the cost depends on {@code count}
+	 * and not on how many tasks are done. The tasks are returned in the order
+	 * they are created, as by {@link #searchFlag(FLAG_TYPE)}.
+	 *
+	 * @param count
+	 *            the most tasks returned of each kind
+	 * @return a list of at most twice {@code count} pending tasks
+	 */
+	public List<Task> nextDue(int count) {
+		ArrayList<Task> resultList = new ArrayList<Task>();
+		TaskDueIndex dueIndex = getDueIndex();
+
+		dueIndex.addNextDated(count, resultList);
+		dueIndex.addNextFloating(count, resultList);
+		resultList.sort(_taskTrees.get(TASK_ID_TREE).comparator());
+		return resultList;
+	}
+
 	// TaskTree operation: getString
 	/**
 	 * Returns a string representation of this {@code TaskTree}. The string
@@ -715,45 +1474,123 @@ public class TaskTree {
 		return buffer;
 	}
 
+	// TaskTree operation: renumber
+	/**
+	 * Gives the tasks of this {@code TaskTree} new ids in the order they were
+	 * created, starting from 0, and rewrites the storage file with them.
+	 * Tasks created afterwards continue from the last new id. Ids held
+	 * elsewhere no longer refer to the same tasks. Archived tasks are pulled
+	 * and renumbered too, and are no longer archived.
+	 *
+	 * @return true if the storage file was rewritten
+	 */
+	public boolean renumber() {
+		pullPendingTasks();
+
+		// The archive is replaced as well, so it must have been read
+		if (!pullArchivedTasks()) {
+			return false;
+		}
+
+		List<Task> taskList = getList();
+
+		// Ids order every tree, so the tasks are taken out while they change
+		for (TreeSet<Task> tree : _taskTrees) {
+			tree.clear();
+		}
+		for (int i = 0; i < taskList.size(); i++) {
+			taskList.get(i).setId(i);
+		}
+		for (TreeSet<Task> tree : _taskTrees) {
+			tree.addAll(taskList);
+		}
+		_idIndex.clear();
+		_bitmapIndex.clear();
+		_archivedIds.clear();
+		for (Task task : taskList) {
+			_idIndex.put(task.getId(), task);
+			_bitmapIndex.add(task);
+		}
+		// Built again with the new ids when they are next used
+		_nameIndex = null;
+		_intervalTree = null;
+		_dueIndex = null;
+		Task.resetTaskClassId(taskList.size());
+
+		return _storageWriter.replaceTasks(taskList) && _storageWriter.flush();
+	}
+
 	// TaskTree operation: size related
 	/**
-	 * Return total number of task in this tree
+	 * Return total number of task in this tree. Tasks pulled from the archive
+	 * are not counted, so that the count stays that of the storage file.
 	 *
 	 * @return number of task in this tree
 	 */
 	public int size() {
-		return _taskTreeSize;
+		return _taskTreeSize - _archivedIds.cardinality();
 	}
 
+	/**
+	 * Return the number of tasks not marked as done which ended before now.
+	 * Only the tasks which ended since the last call are looked at.
+	 *
+	 * @return number of overdue tasks in this tree
+	 */
 	public int getOverdueCount() {
+		return getOverdueCount(System.currentTimeMillis());
+	}
 
-		long startTime = Task.DATE_START;
-		long endTime = System.currentTimeMillis();
-		ArrayList<Task> overdueTasks = new ArrayList<Task>(queryEndTime(startTime, endTime));
-
-		int overdueCount = 0;
-		for (Task task: overdueTasks) {
-			if (task.getFlag() == FLAG_TYPE.NULL) {
-				overdueCount++;
-			}
-		}
-		return overdueCount;
+	/**
+	 * Return the number of tasks not marked as done which ended before a
+	 * time. Only the tasks which ended since the time of the last call are
+	 * looked at, while an earlier time counts every task again.
+	 *
+	 * @param time
+	 *            time the tasks must have ended before
+	 * @return number of tasks overdue at {@code time}
+	 */
+	public int getOverdueCount(long time) {
+		return _taskCounter.getOverdueCount(_taskTrees.get(TASK_ID_TREE), time);
 	}
 
 	public int getStartTimeRangeCount(long startTime, long endTime) {
-		return queryEndTime(startTime, endTime).size();
+		return queryStartTime(startTime, endTime).size();
 	}
 
 	public int getEndTimeRangeCount(long startTime, long endTime) {
 		return queryEndTime(startTime, endTime).size();
 	}
 
+	/**
+	 * Return the number of tasks which take up any time in a range
+	 *
+	 * @return number of tasks returned by {@link #queryOverlap(long, long)}
+	 */
+	public int getOverlapCount(long fromTime, long toTime) {
+		if (toTime < fromTime) {
+			return 0;
+		}
+		return getIntervalTree().countOverlapping(fromTime, toTime);
+	}
+
 	public int getFlagCount(FLAG_TYPE flagType) {
-		return searchFlag(flagType).size();
+		return countUnarchived(_bitmapIndex.getFlagBitmap(flagType));
 	}
 
 	public int getPriorityCount(PRIORITY_TYPE priortyType) {
-		return searchPriority(priortyType).size();
+		return countUnarchived(_bitmapIndex.getPriorityBitmap(priortyType));
+	}
+
+	/**
+	 * Counts the ids of a bitmap which are not of tasks pulled from the
+	 * archive, as {@link #size()} does
+	 */
+	private static int countUnarchived(TaskBitmap ids) {
+		if (_archivedIds.cardinality() == 0) {
+			return ids.cardinality();
+		}
+		return ids.cardinality() - ids.and(_archivedIds).cardinality();
 	}
 
 	private void increaseTaskListSize() {
@@ -765,6 +1602,196 @@ public class TaskTree {
 	}
 
 	// Storage related methods
+	/**
+	 * Pulls the tasks of the storage file that were left out when this
+	 * {@code TaskTree} was constructed.
+	 *
+	 * @see #newTaskTree(String, boolean, int)
+	 */
+	public void pullPendingTasks() {
+		if (_pendingTasks != null) {
+			pullFromStorage(_pendingTasks.size(), PULL_ALL);
+		}
+	}
+
+	/**
+	 * Pulls some more of the tasks of the storage file that were left out
+	 * when this {@code TaskTree} was constructed, so that a large file can be
+	 * pulled a part at a time.
+	 *
+	 * @param maxTasks
+	 *            the most tasks pulled
+	 * @return true if some tasks are still not pulled
+	 * @see #pullPendingTasks()
+	 */
+	public boolean pullPendingTasks(int maxTasks) {
+		assert maxTasks > 0;
+
+		if (_pendingTasks != null) {
+			pullFromStorage(_pendingTasks.size(), maxTasks);
+		}
+		return hasPendingTasks();
+	}
+
+	/**
+	 * @return true if some tasks of the storage file are not pulled yet.
+	 */
+	public boolean hasPendingTasks() {
+		return _pendingTasks != null;
+	}
+
+	/**
+	 * Waits until every change of this {@code TaskTree} is written to the
+	 * storage file.
+	 *
+	 * @return true if every change since the last flush was written.
+	 * @see #newTaskTree(String, boolean, int, TaskStorageWriter.MODE)
+	 */
+	public boolean flushStorage() {
+		return _storageWriter.flush();
+	}
+
+	/**
+	 * Returns whether a change of this {@code TaskTree} failed to be written
+	 * to the storage file since the last flush or the last call, without
+	 * waiting for the changes still queued. Unless the storage mode is
+	 * {@code SYNC}, operations return before their change is written, so
+	 * this is how a failed write is found out before the next flush.
+	 *
+	 * @return true if a change failed to be written.
+	 * @see #flushStorage()
+	 */
+	public boolean pollStorageFailure() {
+		return _storageWriter.pollFailure();
+	}
+
+	/**
+	 * Returns whether some tasks of the storage file could not be read when
+	 * they were pulled since the last call. The tasks are then read again in
+	 * full, from the backup of the file if need be, or only the tasks which
+	 * could be read are kept, so the task list may have changed.
+	 *
+	 * @return true if pulling some tasks failed.
+	 * @see #pullPendingTasks(int)
+	 */
+	public boolean pollLoadFailure() {
+		boolean hasLoadFailed = _hasLoadFailed;
+		_hasLoadFailed = false;
+		return hasLoadFailed;
+	}
+
+	/**
+	 * Moves the tasks marked as done which ended before {@code endTime} out
+	 * of this {@code TaskTree} into the archive of the storage file, so that
+	 * the storage file stays small. Done tasks without an end time are kept.
+	 *
+	 * @param endTime
+	 *            tasks which ended before this time are archived.
+	 * @return the number of tasks archived, 0 if no task had to be, in
+	 *         which case the storage file is not written, or -1 if the
+	 *         tasks could not be archived.
+	 * @see #pullArchivedTasks()
+	 */
+	public int archiveDoneTasks(long endTime) {
+		pullPendingTasks();
+
+		ArrayList<Task> archivedTasks = new ArrayList<Task>();
+		for (Task task : searchFlag(FLAG_TYPE.DONE)) {
+			// Tasks pulled from the archive are still in it
+			if (isArchived(task)) {
+				continue;
+			}
+			if (task.getEndTime() != Task.DATE_NULL && task.getEndTime() < endTime) {
+				archivedTasks.add(task);
+			}
+		}
+
+		if (archivedTasks.isEmpty()) {
+			return 0;
+		}
+
+		for (TreeSet<Task> tree : _taskTrees) {
+			for (Task task : archivedTasks) {
+				tree.remove(task);
+			}
+		}
+		for (Task task : archivedTasks) {
+			_idIndex.remove(task.getId());
+			if (_nameIndex != null) {
+				_nameIndex.remove(task);
+			}
+			if (_intervalTree != null) {
+				_intervalTree.remove(task);
+			}
+			if (_dueIndex != null) {
+				_dueIndex.remove(task);
+			}
+			_taskCounter.remove(task);
+			_bitmapIndex.remove(task);
+		}
+		_taskTreeSize -= archivedTasks.size();
+		_isArchivePulled = false;
+
+		return _storageWriter.archiveTasks(archivedTasks) ? archivedTasks.size() : -1;
+	}
+
+	/**
+	 * Pulls the archived tasks of the storage file into this
+	 * {@code TaskTree}, such as before all or done tasks are listed. The
+	 * archive is only read once, after every queued change is written. Tasks
+	 * stay archived in the storage file until they are updated, and until
+	 * then are not counted by {@link #size()} or the flag and priority counts.
+	 *
+	 * @return true if the archived tasks are in this {@code TaskTree}.
+	 * @see #archiveDoneTasks(long)
+	 */
+	public boolean pullArchivedTasks() {
+		if (_isArchivePulled) {
+			return true;
+		}
+		pullPendingTasks();
+
+		List<Task> archivedTasks = _storageWriter.retrieveArchivedTasks();
+		if (archivedTasks == null) {
+			return false;
+		}
+
+		for (Task task : archivedTasks) {
+			// A task left in the storage file is newer than its archived copy
+			if (_idIndex.containsKey(task.getId())) {
+				continue;
+			}
+			for (TreeSet<Task> tree : _taskTrees) {
+				tree.add(task);
+			}
+			_idIndex.put(task.getId(), task);
+			if (_nameIndex != null) {
+				_nameIndex.add(task);
+			}
+			if (_intervalTree != null) {
+				_intervalTree.add(task);
+			}
+			if (_dueIndex != null) {
+				_dueIndex.add(task);
+			}
+			_taskCounter.add(task);
+			_bitmapIndex.add(task);
+			_archivedIds.add(task.getId());
+			increaseTaskListSize();
+		}
+
+		_isArchivePulled = true;
+		return true;
+	}
+
+	/**
+	 * @return true if the task was pulled from the archive and is still
+	 *         archived in the storage file.
+	 * @see #pullArchivedTasks()
+	 */
+	public boolean isArchived(Task task) {
+		return _archivedIds.contains(task.getId());
+	}
 
 	// TaskTree operation: File Storage related
 	/**
@@ -775,7 +1802,7 @@ public class TaskTree {
 	private boolean pushAddToStorage(Task task) {
 		boolean isPushSuccessful = true;
 
-		isPushSuccessful &= _fileHandler.add(task);
+		isPushSuccessful &= _storageWriter.add(task);
 
 		return isPushSuccessful;
 	}
@@ -789,7 +1816,7 @@ public class TaskTree {
 		int taskId = task.getId();
 		boolean isPullSuccessful = true;
 
-		isPullSuccessful &= _fileHandler.delete(taskId);
+		isPullSuccessful &= _storageWriter.delete(taskId);
 
 		return isPullSuccessful;
 	}
@@ -814,10 +1841,10 @@ public class TaskTree {
 		boolean isPushSuccessful = true;
 
 		if (oldId == newId) {
-			isPushSuccessful &= _fileHandler.update(newTask);
+			isPushSuccessful &= _storageWriter.update(newTask);
 		} else {
-			isPushSuccessful &= _fileHandler.delete(oldId);
-			isPushSuccessful &= _fileHandler.add(newTask);
+			isPushSuccessful &= _storageWriter.delete(oldId);
+			isPushSuccessful &= _storageWriter.add(newTask);
 		}
 
 		return isPushSuccessful;
@@ -826,27 +1853,107 @@ public class TaskTree {
 	/**
 	 * To retrieve task list the Task file. This method is called upon the
 	 * starting of this program.
+	 *
+	 * @param maxTasks
+	 *            maximum number of tasks to pull now.
 	 */
-	private static void pullFromStorage() {
-		ArrayList<Task> taskList;
-		taskList = _fileHandler.retrieveTaskList();
+	private static void pullFromStorage(int maxTasks) {
+		_pendingTasks = _taskStore.retrieveTasks();
+		_pendingIndex = 0;
+		pullFromStorage(_pendingTasks.size(), maxTasks);
+	}
 
-		for (TreeSet<Task> tree : _taskTrees) {
-			tree.addAll(taskList);
+	/**
+	 * Reads the tasks of the storage file again after some could not be
+	 * pulled, and pulls them into emptied trees, as they may differ from the
+	 * tasks pulled so far once read from the backup of the file. No task is
+	 * changed before every task is pulled, so nothing is lost.
+	 *
+	 * @param maxTasks
+	 *            maximum number of tasks to pull now.
+	 */
+	private static void reloadFromStorage(int maxTasks) {
+		_hasLoadFailed = true;
+		_taskStore.reloadTaskFile();
+		newIndexes();
+		pullFromStorage(maxTasks);
+	}
+
+	/**
+	 * Pulls the next tasks of the task file that are not in this
+	 * {@code TaskTree} yet.
+	 */
+	private static void pullFromStorage(int totalTasks, int maxTasks) {
+		int end = (int) Math.min((long) _pendingIndex + maxTasks, totalTasks);
+
+		// Copied once, as a mapped task file returns a new object per read.
+		// Ids pulled by an earlier bulk keep the task they were pulled with.
+		TaskIndexBuilder builder;
+		try {
+			builder = new TaskIndexBuilder(_pendingTasks.subList(_pendingIndex, end), _idIndex);
+		} catch (BufferUnderflowException e) {
+			// A corrupt record of a mapped file is only found once it is read
+			LogHandler.getLog().log(Level.SEVERE, String.format(MSG_PULL_FAILED, e));
+			reloadFromStorage(maxTasks);
+			return;
+		}
+
+		if (builder.size() >= PARALLEL_PULL_SIZE) {
+			// The trees share nothing, so each can be built by another thread
+			IntStream.range(0, SIZE_OF_TASK_TREES).parallel()
+					.forEach(i -> builder.addTo(_taskTrees.get(i), TREE_TYPES[i]));
+		} else {
+			for (int i = 0; i < SIZE_OF_TASK_TREES; i++) {
+				builder.addTo(_taskTrees.get(i), TREE_TYPES[i]);
+			}
+		}
+		builder.addTo(_idIndex);
+		builder.addTo(_taskCounter);
+		builder.addTo(_bitmapIndex);
+		// Indexes not built yet are built with the pulled tasks on first use
+		if (_nameIndex != null) {
+			builder.addTo(_nameIndex);
+		}
+		if (_intervalTree != null) {
+			builder.addTo(_intervalTree);
+		}
+		if (_dueIndex != null) {
+			builder.addTo(_dueIndex);
+		}
+		_taskTreeSize += builder.size();
+
+		_pendingIndex = end;
+		if (_pendingIndex == totalTasks) {
+			_pendingTasks = null;
 		}
-		_taskTreeSize = taskList.size();
 	}
 
 	/**
-	 * This method will be called to construct the taskFileHandler for file
-	 * storage
+	 * This method will be called to load the taskStore for file storage
 	 *
 	 * @param taskFilePath
-	 *            directed to the storage XML file for tasks.
+	 *            directed to the storage file for tasks.
+	 * @param taskStore
+	 *            store which keeps the tasks.
 	 */
-	private static boolean iniTaskFileHandler(String taskFilePath) {
+	private static boolean iniTaskStore(String taskFilePath, TaskStore taskStore) {
+
+		_taskStore = taskStore;
+		return _taskStore.loadTaskFile(taskFilePath);
+	}
 
-		_fileHandler = new TaskFileHandler();
-		return _fileHandler.loadTaskFile(taskFilePath);
+	/**
+	 * This method will be called to construct the writer which passes
+	 * changes to the taskStore, once the tasks of the storage file were
+	 * retrieved.
+	 *
+	 * @param storageMode
+	 *            when changes are written to the storage file.
+	 * @param commitInterval
+	 *            milliseconds to collect changes for in {@code GROUP_COMMIT}
+	 *            mode.
+	 */
+	private static void iniStorageWriter(TaskStorageWriter.MODE storageMode, long commitInterval) {
+		_storageWriter = new TaskStorageWriter(_taskStore, storageMode, commitInterval);
 	}
 }
\ No newline at end of file
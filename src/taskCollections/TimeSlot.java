@@ -0,0 +1,55 @@
+//@@author A0076510M
+package taskCollections;
+
+/**
+ * A span of time from a start time to an end time, such as a gap between
+ * tasks returned by {@link TaskTree#queryFreeSlots(long, long, long, int)}.
+ *
+ * @author Zandercx
+ */
+public final class TimeSlot {
+
+	private final long _startTime;
+	private final long _endTime;
+
+	public TimeSlot(long startTime, long endTime) {
+		assert startTime <= endTime;
+
+		_startTime = startTime;
+		_endTime = endTime;
+	}
+
+	public long getStartTime() {
+		return _startTime;
+	}
+
+	public long getEndTime() {
+		return _endTime;
+	}
+
+	/**
+	 * @return length of the slot in milliseconds
+	 */
+	public long getLength() {
+		return _endTime - _startTime;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof TimeSlot)) {
+			return false;
+		}
+		TimeSlot rhs = (TimeSlot) obj;
+		return _startTime == rhs._startTime && _endTime == rhs._endTime;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(_startTime) * 31 + Long.hashCode(_endTime);
+	}
+
+	@Override
+	public String toString() {
+		return "[" + _startTime + ", " + _endTime + "]";
+	}
+}
@@ -4,7 +4,19 @@ package taskCollections.test;
 import taskCollections.Task;
 import taskCollections.Task.FLAG_TYPE;
 import taskCollections.Task.PRIORITY_TYPE;
+import taskCollections.TaskPage;
+import taskCollections.TaskQuery;
 import taskCollections.TaskTree;
+import taskCollections.TimeSlot;
+import taskCollections.Attributes.TYPE;
+import taskCollections.comparators.EndTimeComparator;
+import taskCollections.comparators.FlagComparator;
+import taskCollections.comparators.IdComparator;
+import taskCollections.comparators.NameComparator;
+import taskCollections.comparators.PriorityComparator;
+import taskCollections.comparators.StartTimeComparator;
+import storage.MemoryTaskStore;
+import storage.TaskStorageWriter;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -17,7 +29,9 @@ import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Predicate;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
@@ -33,6 +47,7 @@ import org.junit.Test;
 public class TaskTreeTest {
 	private static TaskTree _taskTree;
 	private static final String testTaskFilePath = "test_taskTreeJUnitFile.xml";
+	private static final String testTaskBackupFilePath = testTaskFilePath + ".bak";
 	private static final int FIRST_ELEMENT = 0;
 	private static final int LAST_ELEMENT = 4;
 	private static final int NUM_OF_ITEMS = 5;
@@ -92,6 +107,8 @@ public class TaskTreeTest {
 	private void deinitialiseTaskTree() {
 		_taskTree = null;
 		deleteFile(testTaskFilePath);
+		// Kept by the storage file whenever it is replaced
+		new File(testTaskBackupFilePath).delete();
 	}
 
 	/**
@@ -465,4 +482,1074 @@ public class TaskTreeTest {
 		}
 		System.out.println();
 	}
+
+	//@@author A0076510M
+	/*
+	 * Testing methods
+	 * 1. newTaskTree with a memory store
+	 * 2. add, remove
+	 *
+	 * Condition
+	 * 1. No storage file exists
+	 */
+	@Test
+	public void testMemoryStore() {
+		String memoryFilePath = "test_taskTreeMemoryFile.xml";
+		_taskTree = TaskTree.newTaskTree(memoryFilePath, new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		populateSampleTasks();
+		assertTrue(_taskTree.remove(_taskTree.getList().get(FIRST_ELEMENT)));
+		assertFalse(new File(memoryFilePath).exists());
+
+		// A store seeded with the tasks gives them to a new tree
+		List<Task> tasks = _taskTree.getList();
+		_taskTree = TaskTree.newTaskTree(memoryFilePath, new MemoryTaskStore(tasks), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		assertEquals(_taskTree.getList(), tasks);
+		assertEquals(_taskTree.size(), NUM_OF_ITEMS - 1);
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. getTask after add, remove and renumber
+	 * 2. getTask against a scan of every task
+	 *
+	 * Condition
+	 * 1. Sample tasks in a memory store
+	 * 2. Enough tasks for the id index to grow several times, with every
+	 *    third task removed and as many added again
+	 */
+	@Test
+	public void testGetTask() {
+		_taskTree = TaskTree.newTaskTree("test_taskTreeGetFile.xml", new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		populateSampleTasks();
+
+		Task first = _taskTree.getList().get(FIRST_ELEMENT);
+		Task last = _taskTree.getList().get(LAST_ELEMENT);
+		assertEquals(_taskTree.getTask(last.getId()), last);
+
+		assertTrue(_taskTree.remove(first));
+		assertEquals(_taskTree.getTask(first.getId()), null);
+
+		assertTrue(_taskTree.renumber());
+		assertEquals(_taskTree.getTask(LAST_ELEMENT - 1), last);
+		assertEquals(_taskTree.getTask(LAST_ELEMENT), null);
+
+		for (int i = 0; i < NUM_OF_ITEMS * 200; i++) {
+			_taskTree.add(new Task("task " + i, 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL));
+		}
+		List<Task> tasks = _taskTree.getList();
+		for (int i = 0; i < tasks.size(); i += 3) {
+			assertTrue(_taskTree.remove(tasks.get(i)));
+		}
+		for (int i = 0; i < tasks.size(); i += 3) {
+			_taskTree.add(new Task("again " + i, 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL));
+		}
+		int maxId = _taskTree.getSortedList(TYPE.ID).get(_taskTree.size() - 1).getId();
+		for (int round = 0; round < 2; round++) {
+			for (int id = -1; id <= maxId + NUM_OF_ITEMS; id++) {
+				int taskId = id;
+				List<Task> expected = getTasksByScan(task -> task.getId() == taskId);
+				assertTrue(_taskTree.getTask(id) == (expected.isEmpty() ? null : expected.get(FIRST_ELEMENT)));
+			}
+			assertTrue(_taskTree.renumber());
+		}
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. searchFlag, searchPriority, getFlagCount and getPriorityCount after
+	 *    remove, renumber, updateFlag and updatePriority
+	 * 2. updateFlag of a task not in the tree
+	 * 3. searchFlag, searchPriority, queryFlag, queryPriority and
+	 *    getSortedList by flag and priority against checking every task
+	 *
+	 * Condition
+	 * 1. Tasks of every flag and priority, with ids far apart
+	 * 2. Enough tasks to take up several words of a bitmap, some words of
+	 *    which are left without any task of a flag or priority
+	 */
+	@Test
+	public void testSearchFlagAndPriorityByIds() {
+		_taskTree = TaskTree.newTaskTree("test_taskTreeFlagFile.xml", new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		ArrayList<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < 12; i++) {
+			Task task = new Task(i * 5000, "task " + i, 0, 0, FLAG_TYPE.values()[i % 2],
+					PRIORITY_TYPE.values()[i % 3]);
+			tasks.add(task);
+			_taskTree.add(task);
+		}
+
+		assertEquals(_taskTree.searchFlag(FLAG_TYPE.DONE).size(), 6);
+		assertEquals(_taskTree.searchPriority(PRIORITY_TYPE.LOW).size(), 4);
+		assertEquals(_taskTree.searchPriority(PRIORITY_TYPE.LOW).get(FIRST_ELEMENT), tasks.get(2));
+		assertTrue(_taskTree.remove(tasks.get(2)));
+		assertEquals(_taskTree.getPriorityCount(PRIORITY_TYPE.LOW), 3);
+
+		assertTrue(_taskTree.renumber());
+		assertEquals(_taskTree.searchPriority(PRIORITY_TYPE.LOW).get(FIRST_ELEMENT), tasks.get(5));
+		assertEquals(_taskTree.searchFlag(FLAG_TYPE.NULL).size(), 5);
+		assertEquals(_taskTree.queryFlag(FLAG_TYPE.NULL, FLAG_TYPE.DONE).size(), 11);
+
+		assertTrue(_taskTree.updateFlag(tasks.get(0), FLAG_TYPE.DONE));
+		assertTrue(_taskTree.updatePriority(tasks.get(0), PRIORITY_TYPE.LOW));
+		assertEquals(_taskTree.getFlagCount(FLAG_TYPE.DONE), 7);
+		assertEquals(_taskTree.searchPriority(PRIORITY_TYPE.LOW).get(FIRST_ELEMENT), tasks.get(0));
+		assertFalse(_taskTree.updateFlag(tasks.get(2), FLAG_TYPE.DONE));
+		assertEquals(_taskTree.getFlagCount(FLAG_TYPE.DONE), 7);
+
+		for (int i = 0; i < NUM_OF_ITEMS * 60; i++) {
+			_taskTree.add(new Task("task " + i, 0, 0, FLAG_TYPE.values()[i % 2], PRIORITY_TYPE.values()[i % 3]));
+		}
+		tasks = new ArrayList<Task>(_taskTree.getList());
+		for (int i = 0; i < tasks.size(); i++) {
+			if (i % 128 < 64) {
+				assertTrue(_taskTree.updateFlag(tasks.get(i), FLAG_TYPE.DONE));
+				assertTrue(_taskTree.updatePriority(tasks.get(i), PRIORITY_TYPE.LOW));
+			} else if (i % 7 == 0) {
+				assertTrue(_taskTree.remove(tasks.get(i)));
+			}
+		}
+		for (int i = 0; i < NUM_OF_ITEMS * 10; i++) {
+			_taskTree.add(new Task("new " + i, 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.HIGH));
+		}
+		for (int round = 0; round < 2; round++) {
+			for (FLAG_TYPE flag : FLAG_TYPE.values()) {
+				List<Task> expected = getTasksByScan(task -> task.getFlag() == flag);
+				assertEquals(_taskTree.searchFlag(flag), expected);
+				assertEquals(_taskTree.queryFlag(flag, flag), expected);
+			}
+			for (PRIORITY_TYPE priority : PRIORITY_TYPE.values()) {
+				List<Task> expected = getTasksByScan(task -> task.getPriority() == priority);
+				assertEquals(_taskTree.searchPriority(priority), expected);
+				assertEquals(_taskTree.queryPriority(priority, priority), expected);
+			}
+			List<Task> expected = getTasksByScan(task -> true);
+			expected.sort(new FlagComparator());
+			assertEquals(_taskTree.getSortedList(TYPE.FLAG), expected);
+			assertEquals(_taskTree.queryFlag(FLAG_TYPE.NULL, FLAG_TYPE.DONE), expected);
+			expected.sort(new PriorityComparator());
+			assertEquals(_taskTree.getSortedList(TYPE.PRIORITY), expected);
+			assertEquals(_taskTree.queryPriority(PRIORITY_TYPE.HIGH, PRIORITY_TYPE.LOW), expected);
+			assertTrue(_taskTree.renumber());
+		}
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. newTaskTree pulling part of the tasks, pullPendingTasks
+	 * 2. getSortedList
+	 *
+	 * Condition
+	 * 1. Tasks are pulled in two bulks, in no particular order
+	 */
+	@Test
+	public void testBulkLoad() {
+		ArrayList<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < NUM_OF_ITEMS * 4; i++) {
+			int id = (i * 7) % (NUM_OF_ITEMS * 4);
+			tasks.add(new Task(id, "task " + (i % 3), (i % 4) * 60000L, (i % 5) * 60000L,
+					FLAG_TYPE.values()[i % 2], PRIORITY_TYPE.values()[i % 3]));
+		}
+
+		_taskTree = TaskTree.newTaskTree("test_taskTreeBulkFile.xml", new MemoryTaskStore(tasks),
+				NUM_OF_ITEMS, TaskStorageWriter.MODE.SYNC);
+		_taskTree.pullPendingTasks();
+		assertEquals(_taskTree.size(), tasks.size());
+
+		// Pulled a part at a time, as in the background
+		_taskTree = TaskTree.newTaskTree("test_taskTreeBulkFile.xml", new MemoryTaskStore(tasks),
+				NUM_OF_ITEMS, TaskStorageWriter.MODE.SYNC);
+		assertTrue(_taskTree.pullPendingTasks(NUM_OF_ITEMS));
+		assertEquals(_taskTree.size(), NUM_OF_ITEMS * 2);
+		// Indexes built before the rest is pulled are given the rest
+		assertEquals(_taskTree.searchName("task").size(), NUM_OF_ITEMS * 2);
+		_taskTree.queryOverlap(0, Long.MAX_VALUE);
+		_taskTree.nextDue(1);
+		assertTrue(_taskTree.pullPendingTasks(NUM_OF_ITEMS));
+		assertFalse(_taskTree.pullPendingTasks(NUM_OF_ITEMS * 2));
+		assertEquals(_taskTree.size(), tasks.size());
+		assertFalse(_taskTree.hasPendingTasks());
+		assertEquals(_taskTree.searchName("task").size(), tasks.size());
+		assertEquals(_taskTree.queryOverlap(0, Long.MAX_VALUE).size(),
+				getTasksByScan(isOverlapping(0, Long.MAX_VALUE)).size());
+		assertEquals(_taskTree.nextDue(tasks.size()), getTasksByScan(task -> task.getFlag() == FLAG_TYPE.NULL));
+
+		// Must be ordered as if the tasks were added one by one
+		for (TYPE type : TYPE.values()) {
+			TaskTree addedTree = TaskTree.newTaskTree("test_taskTreeBulkFile.xml", new MemoryTaskStore(), 0,
+					TaskStorageWriter.MODE.SYNC);
+			for (Task task : tasks) {
+				addedTree.add(task);
+			}
+			List<Task> expected = addedTree.getSortedList(type);
+
+			_taskTree = TaskTree.newTaskTree("test_taskTreeBulkFile.xml", new MemoryTaskStore(tasks),
+					NUM_OF_ITEMS, TaskStorageWriter.MODE.SYNC);
+			_taskTree.pullPendingTasks();
+			assertEquals(_taskTree.getSortedList(type), expected);
+		}
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. newTaskTree pulling part of the tasks, pullPendingTasks
+	 * 2. size, getTask and getSortedList against sorting the tasks
+	 *
+	 * Condition
+	 * 1. Tasks are pulled in two bulks, in no particular order
+	 * 2. Some ids are given again to other tasks, in the same bulk and in
+	 *    the later one, of which only the first task is pulled
+	 */
+	@Test
+	public void testBulkLoadDuplicateIds() {
+		final ArrayList<Task> tasks = new ArrayList<Task>();
+		ArrayList<Task> firstOfIds = new ArrayList<Task>();
+		for (int i = 0; i < NUM_OF_ITEMS * 4; i++) {
+			int id = (i * 7) % (NUM_OF_ITEMS * 4);
+			Task task = new Task(id, "task " + (i % 3), (i % 4) * 60000L, (i % 5) * 60000L,
+					FLAG_TYPE.values()[i % 2], PRIORITY_TYPE.values()[i % 3]);
+			tasks.add(task);
+			firstOfIds.add(task);
+			if (i % 10 == 0) {
+				tasks.add(new Task(id, "copy " + i, 60000L, 0, FLAG_TYPE.DONE, PRIORITY_TYPE.HIGH));
+			}
+		}
+		for (int i = 0; i < NUM_OF_ITEMS * 2; i += 3) {
+			tasks.add(new Task(firstOfIds.get(i).getId(), "later copy " + i, 0, 120000L, FLAG_TYPE.NULL,
+					PRIORITY_TYPE.LOW));
+		}
+
+		// Returns every task, where a store would keep one task per id
+		MemoryTaskStore store = new MemoryTaskStore() {
+			@Override
+			public List<Task> retrieveTasks() {
+				return new ArrayList<Task>(tasks);
+			}
+		};
+		_taskTree = TaskTree.newTaskTree("test_taskTreeBulkFile.xml", store, NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		_taskTree.pullPendingTasks();
+		assertEquals(_taskTree.size(), firstOfIds.size());
+		for (Task task : firstOfIds) {
+			assertTrue(_taskTree.getTask(task.getId()) == task);
+		}
+		for (TYPE type : TYPE.values()) {
+			List<Task> expected = new ArrayList<Task>(firstOfIds);
+			expected.sort(getComparator(type));
+			assertEquals(_taskTree.getSortedList(type), expected);
+		}
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. searchName with short, lowercase and capitalised search terms
+	 * 2. searchName after add, updateName and remove, against checking the
+	 *    name of every task
+	 *
+	 * Condition
+	 * 1. Tasks in a memory store, with a name whose lowercase is longer
+	 * 2. Search terms shorter than, as long as and longer than a trigram,
+	 *    some found in no name
+	 */
+	@Test
+	public void testSearchName() {
+		_taskTree = TaskTree.newTaskTree("test_taskTreeSearchFile.xml", new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		Task meeting = new Task("Project meeting", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+		Task lunch = new Task("lunch meeting", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+		Task trip = new Task("Trip to \u0130stanbul", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+		_taskTree.add(meeting);
+		_taskTree.add(lunch);
+		_taskTree.add(trip);
+
+		assertEquals(_taskTree.searchName("meeting").size(), 2);
+		assertEquals(_taskTree.searchName("meeting").get(FIRST_ELEMENT), meeting);
+		assertEquals(_taskTree.searchName("project").size(), 1);
+		assertEquals(_taskTree.searchName("Project").size(), 1);
+		assertEquals(_taskTree.searchName("PROJECT").size(), 0);
+		assertEquals(_taskTree.searchName("i\u0307stanbul").get(FIRST_ELEMENT), trip);
+		assertEquals(_taskTree.searchName("p").size(), 2);
+
+		_taskTree.add(new Task("gym", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL));
+		assertEquals(_taskTree.searchName("gym").size(), 1);
+		assertTrue(_taskTree.updateName(lunch, "lunch"));
+		assertEquals(_taskTree.searchName("meeting").size(), 1);
+		assertEquals(_taskTree.searchName("lunch").get(FIRST_ELEMENT), lunch);
+		assertTrue(_taskTree.remove(meeting));
+		assertEquals(_taskTree.searchName("meeting").size(), 0);
+
+		String[] names = { "Buy milk", "buy MILK", "Meeting", "team meeting", "ab", "Abc", "a", "",
+				"milkshake" };
+		String[] searchTerms = { "", "a", "A", "b", "ab", "Ab", "abc", "ABC", "k", "mil", "Mil", "milk",
+				"MILK", "ee", "eet", "meeting", "Meeting", "ing", "xyz", " ", "i\u0307stanbul", "stan" };
+		ArrayList<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < names.length * 3; i++) {
+			Task task = new Task(names[i % names.length] + (i < names.length ? "" : " " + i), 0, 0,
+					FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+			tasks.add(task);
+			_taskTree.add(task);
+		}
+		for (int i = 0; i < tasks.size(); i += 4) {
+			assertTrue(_taskTree.updateName(tasks.get(i), names[(i + 3) % names.length]));
+		}
+		for (int i = 1; i < tasks.size(); i += 3) {
+			assertTrue(_taskTree.remove(tasks.get(i)));
+		}
+		for (String searchTerm : searchTerms) {
+			boolean isCaseInsensitive = searchTerm.equals(searchTerm.toLowerCase());
+			List<Task> expected = getTasksByScan(task -> (isCaseInsensitive ? task.getName().toLowerCase()
+					: task.getName()).contains(searchTerm));
+			expected.sort(new NameComparator());
+			assertEquals(_taskTree.searchName(searchTerm), expected);
+		}
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. getFlagCount, getPriorityCount and getOverdueCount
+	 * 2. Counts after a bulk pull, add, remove, updateFlag, updateEndTime and
+	 *    updatePriority, against counting every task
+	 *
+	 * Condition
+	 * 1. Tasks which ended an hour ago, and tasks which end in an hour
+	 * 2. Tasks which ended hours ago, tasks which end in hours and tasks
+	 *    without an end time, pending and done
+	 */
+	@Test
+	public void testCounts() {
+		long now = System.currentTimeMillis();
+		long hour = 3600000L;
+		ArrayList<Task> tasks = new ArrayList<Task>();
+		tasks.add(new Task(0, "past", 0, now - hour, FLAG_TYPE.NULL, PRIORITY_TYPE.HIGH));
+		tasks.add(new Task(1, "past done", 0, now - hour, FLAG_TYPE.DONE, PRIORITY_TYPE.NORMAL));
+		tasks.add(new Task(2, "future", 0, now + hour, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL));
+		tasks.add(new Task(3, "floating", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.LOW));
+
+		_taskTree = TaskTree.newTaskTree("test_taskTreeCountFile.xml", new MemoryTaskStore(tasks), 2,
+				TaskStorageWriter.MODE.SYNC);
+		_taskTree.pullPendingTasks();
+		assertEquals(_taskTree.getFlagCount(FLAG_TYPE.DONE), 1);
+		assertEquals(_taskTree.getFlagCount(FLAG_TYPE.NULL), 3);
+		assertEquals(_taskTree.getPriorityCount(PRIORITY_TYPE.NORMAL), 2);
+		assertEquals(_taskTree.getOverdueCount(), 1);
+
+		Task future = _taskTree.getTask(2);
+		assertTrue(_taskTree.updateEndTime(future, now - hour));
+		assertEquals(_taskTree.getOverdueCount(), 2);
+		assertTrue(_taskTree.updateFlag(future, FLAG_TYPE.DONE));
+		assertEquals(_taskTree.getOverdueCount(), 1);
+		assertEquals(_taskTree.getFlagCount(FLAG_TYPE.DONE), 2);
+		assertTrue(_taskTree.updatePriority(future, PRIORITY_TYPE.LOW));
+		assertEquals(_taskTree.getPriorityCount(PRIORITY_TYPE.LOW), 2);
+
+		assertTrue(_taskTree.remove(_taskTree.getTask(0)));
+		assertEquals(_taskTree.getOverdueCount(), 0);
+		assertEquals(_taskTree.getPriorityCount(PRIORITY_TYPE.HIGH), 0);
+		_taskTree.add(new Task("new past", 0, now - hour, FLAG_TYPE.NULL, PRIORITY_TYPE.HIGH));
+		assertEquals(_taskTree.getOverdueCount(), 1);
+		assertEquals(_taskTree.getFlagCount(FLAG_TYPE.NULL), 2);
+
+		// Counted once its end time passes
+		long soon = now + hour / 2;
+		_taskTree.add(new Task("soon", 0, soon, FLAG_TYPE.NULL, PRIORITY_TYPE.HIGH));
+		assertEquals(_taskTree.getOverdueCount(now), 1);
+		assertEquals(_taskTree.getOverdueCount(soon + 1), 2);
+		// Half an hour off the hour, so that no task ends as it is counted
+		long halfHour = hour / 2;
+		tasks.clear();
+		for (int i = 0; i < NUM_OF_ITEMS * 40; i++) {
+			long endTime = i % 7 == 0 ? Task.DATE_NULL : now + (i % 11 - 5) * hour + halfHour;
+			tasks.add(new Task(i, "task " + i, 0, endTime, FLAG_TYPE.values()[i % 2],
+					PRIORITY_TYPE.values()[i % 3]));
+		}
+		_taskTree = TaskTree.newTaskTree("test_taskTreeCountFile.xml", new MemoryTaskStore(tasks),
+				NUM_OF_ITEMS * 4, TaskStorageWriter.MODE.SYNC);
+		_taskTree.pullPendingTasks();
+		for (int i = 0; i < NUM_OF_ITEMS * 40; i += 3) {
+			Task task = _taskTree.getTask(i);
+			assertTrue(_taskTree.updateEndTime(task, i % 2 == 0 ? now - (i % 4 + 1) * hour : Task.DATE_NULL));
+			assertTrue(_taskTree.updateFlag(task, FLAG_TYPE.values()[(i + 1) % 2]));
+			assertTrue(_taskTree.updatePriority(task, PRIORITY_TYPE.values()[(i + 1) % 3]));
+		}
+		for (int i = 1; i < NUM_OF_ITEMS * 40; i += 4) {
+			assertTrue(_taskTree.remove(_taskTree.getTask(i)));
+		}
+		for (int i = 0; i < NUM_OF_ITEMS * 4; i++) {
+			_taskTree.add(new Task("new " + i, 0, now + (i % 5 - 2) * hour + halfHour, FLAG_TYPE.NULL,
+					PRIORITY_TYPE.values()[i % 3]));
+		}
+		for (FLAG_TYPE flag : FLAG_TYPE.values()) {
+			assertEquals(_taskTree.getFlagCount(flag), getTasksByScan(task -> task.getFlag() == flag).size());
+		}
+		for (PRIORITY_TYPE priority : PRIORITY_TYPE.values()) {
+			assertEquals(_taskTree.getPriorityCount(priority),
+					getTasksByScan(task -> task.getPriority() == priority).size());
+		}
+		assertEquals(_taskTree.getOverdueCount(now), getTasksByScan(isOverdueAt(now)).size());
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. getOverdueCount of a time against counting every task
+	 * 2. getOverdueCount after updateEndTime, updateFlag, remove and add,
+	 *    and going back in time
+	 *
+	 * Condition
+	 * 1. End times around the turns of each wheel of deadlines, of a minute
+	 *    and 64 slots per wheel, and years beyond the highest wheel
+	 */
+	@Test
+	public void testOverdueCount() {
+		long now = System.currentTimeMillis();
+		long minute = 60000L;
+		long[] turns = { 1L, 64L, 64L * 64, 64L * 64 * 64, 64L * 64 * 64 * 64 };
+		ArrayList<Long> endTimes = new ArrayList<Long>();
+		for (long turn : turns) {
+			long turnTime = turn * minute;
+			long boundary = (now / turnTime + 1) * turnTime;
+			endTimes.add(boundary - 1);
+			endTimes.add(boundary);
+			endTimes.add(boundary + 1);
+			endTimes.add(boundary + turnTime);
+			endTimes.add(now + turnTime);
+			endTimes.add(now + 2 * turnTime + 1);
+		}
+		_taskTree = TaskTree.newTaskTree("test_taskTreeCountFile.xml", new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		for (int i = 0; i < endTimes.size(); i++) {
+			_taskTree.add(new Task("task " + i, 0, endTimes.get(i), FLAG_TYPE.values()[i % 5 == 0 ? 1 : 0],
+					PRIORITY_TYPE.NORMAL));
+		}
+
+		ArrayList<Long> times = new ArrayList<Long>();
+		for (long endTime : endTimes) {
+			times.add(endTime - 1);
+			times.add(endTime);
+			times.add(endTime + 1);
+		}
+		times.sort(null);
+
+		List<Task> tasks = _taskTree.getList();
+		for (int i = 0; i < times.size(); i++) {
+			long time = times.get(i);
+			if (i == times.size() / 2) {
+				// Changed while the wheels are part way through their turns
+				for (int j = 0; j < tasks.size(); j += 4) {
+					assertTrue(_taskTree.updateEndTime(tasks.get(j), time + (j % 3) * 64 * minute));
+				}
+				for (int j = 1; j < tasks.size(); j += 6) {
+					assertTrue(_taskTree.updateFlag(tasks.get(j), FLAG_TYPE.DONE));
+				}
+				assertTrue(_taskTree.remove(tasks.get(2)));
+				_taskTree.add(new Task("far", 0, time + turns[4] * 3 * minute, FLAG_TYPE.NULL,
+						PRIORITY_TYPE.NORMAL));
+			}
+			assertEquals(_taskTree.getOverdueCount(time), getTasksByScan(isOverdueAt(time)).size());
+		}
+
+		// Every task is counted again when going back
+		assertEquals(_taskTree.getOverdueCount(now), getTasksByScan(isOverdueAt(now)).size());
+		long last = times.get(times.size() - 1) + turns[4] * 4 * minute;
+		assertEquals(_taskTree.getOverdueCount(last), getTasksByScan(isOverdueAt(last)).size());
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. queryOverlap, queryAt and getOverlapCount
+	 * 2. getStartTimeRangeCount
+	 * 3. Overlaps after add, remove, updateStartTime and updateEndTime,
+	 *    against checking the times of every task
+	 *
+	 * Condition
+	 * 1. An event from 2pm to 4pm, a deadline at 3pm and a floating task
+	 * 2. Events, deadlines, tasks with only a start time and floating tasks
+	 *    sharing their start and end times, in ranges which start or end
+	 *    exactly at, just before and just after the times of the tasks
+	 */
+	@Test
+	public void testQueryOverlap() {
+		long hour = 3600000L;
+		long twoPm = 1447221600000L;
+		_taskTree = TaskTree.newTaskTree("test_taskTreeOverlapFile.xml", new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		Task event = new Task("event", twoPm, twoPm + 2 * hour, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+		Task deadline = new Task("deadline", 0, twoPm + hour, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+		Task floating = new Task("floating", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+		_taskTree.add(event);
+		_taskTree.add(deadline);
+		_taskTree.add(floating);
+
+		assertEquals(_taskTree.queryOverlap(twoPm, twoPm + 2 * hour).size(), 2);
+		assertEquals(_taskTree.queryOverlap(twoPm, twoPm + 2 * hour).get(FIRST_ELEMENT), event);
+		assertEquals(_taskTree.queryAt(twoPm + hour).size(), 2);
+		assertEquals(_taskTree.queryAt(twoPm + 3 * hour).size(), 0);
+		assertEquals(_taskTree.getOverlapCount(twoPm - hour, twoPm), 1);
+		assertEquals(_taskTree.getStartTimeRangeCount(twoPm, twoPm + hour), 1);
+
+		assertTrue(_taskTree.updateStartTime(deadline, twoPm - 2 * hour));
+		assertEquals(_taskTree.queryOverlap(twoPm - hour, twoPm - hour).get(FIRST_ELEMENT), deadline);
+		assertTrue(_taskTree.updateEndTime(event, twoPm + 4 * hour));
+		assertEquals(_taskTree.queryAt(twoPm + 3 * hour).get(FIRST_ELEMENT), event);
+		assertTrue(_taskTree.remove(event));
+		assertEquals(_taskTree.queryAt(twoPm + 3 * hour).size(), 0);
+		_taskTree.add(new Task("new event", twoPm + 3 * hour, twoPm + 5 * hour, FLAG_TYPE.NULL,
+				PRIORITY_TYPE.NORMAL));
+		assertEquals(_taskTree.getOverlapCount(twoPm + 4 * hour, twoPm + 4 * hour), 1);
+
+		ArrayList<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < NUM_OF_ITEMS * 12; i++) {
+			long startTime = i % 5 == 0 ? Task.DATE_NULL : twoPm + (i % 6) * hour;
+			long endTime = i % 7 == 0 ? Task.DATE_NULL : twoPm + (i % 6 + i % 4) * hour;
+			Task task = new Task("task " + i, startTime, endTime, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+			tasks.add(task);
+			_taskTree.add(task);
+		}
+		for (int i = 0; i < tasks.size(); i += 3) {
+			long endTime = twoPm + (i % 9) * hour;
+			assertTrue(_taskTree.updateEndTime(tasks.get(i), endTime));
+			assertTrue(_taskTree.updateStartTime(tasks.get(i), i % 2 == 0 ? Task.DATE_NULL : endTime - hour));
+		}
+		for (int i = 1; i < tasks.size(); i += 4) {
+			assertTrue(_taskTree.remove(tasks.get(i)));
+		}
+		_taskTree.add(new Task("long event", twoPm - hour, twoPm + 10 * hour, FLAG_TYPE.NULL,
+				PRIORITY_TYPE.NORMAL));
+		ArrayList<Long> times = new ArrayList<Long>();
+		for (long time = twoPm - hour; time <= twoPm + 10 * hour; time += hour) {
+			times.add(time - 1);
+			times.add(time);
+			times.add(time + 1);
+		}
+		// Ordered by where each task starts taking up time, then by id
+		Comparator<Task> byStart = Comparator.comparingLong((Task task) -> task.getStartTime() == Task.DATE_NULL
+				? task.getEndTime() : task.getStartTime()).thenComparingInt(Task::getId);
+		for (long from : times) {
+			List<Task> expected = getTasksByScan(isOverlapping(from, from));
+			expected.sort(byStart);
+			assertEquals(_taskTree.queryAt(from), expected);
+			for (long to : times) {
+				expected = getTasksByScan(isOverlapping(from, to));
+				expected.sort(byStart);
+				assertEquals(_taskTree.queryOverlap(from, to), expected);
+				assertEquals(_taskTree.getOverlapCount(from, to), expected.size());
+			}
+		}
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. queryFreeSlots
+	 * 2. Free slots after updateFlag, updateStartTime and remove, against
+	 *    checking every half hour for a task taking it up
+	 *
+	 * Condition
+	 * 1. Pending events from 2pm to 3pm and 4pm to 6pm, one inside the other,
+	 *    a deadline, a done event and a past event
+	 * 2. Events on the half hour, some next to or inside each other, and
+	 *    ranges on the half hour with shortest lengths just under, at and
+	 *    just over whole half hours
+	 */
+	@Test
+	public void testQueryFreeSlots() {
+		long hour = 3600000L;
+		long twoPm = 1447221600000L;
+		_taskTree = TaskTree.newTaskTree("test_taskTreeFreeFile.xml", new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		// Busy from 2pm to 3pm and 4pm to 6pm, with a deadline and a done
+		// event in between
+		_taskTree.add(new Task("first", twoPm, twoPm + hour, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL));
+		_taskTree.add(new Task("second", twoPm + 4 * hour, twoPm + 6 * hour, FLAG_TYPE.NULL,
+				PRIORITY_TYPE.NORMAL));
+		_taskTree.add(new Task("inside", twoPm + 4 * hour, twoPm + 5 * hour, FLAG_TYPE.NULL,
+				PRIORITY_TYPE.NORMAL));
+		_taskTree.add(new Task("deadline", 0, twoPm + 3 * hour, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL));
+		_taskTree.add(new Task("done", twoPm + hour, twoPm + 4 * hour, FLAG_TYPE.DONE, PRIORITY_TYPE.NORMAL));
+		_taskTree.add(new Task("past", twoPm - 1000 * hour, twoPm - 999 * hour, FLAG_TYPE.NULL,
+				PRIORITY_TYPE.NORMAL));
+
+		List<TimeSlot> slots = _taskTree.queryFreeSlots(twoPm - hour, twoPm + 8 * hour, hour, 10);
+		assertEquals(slots.size(), 3);
+		assertEquals(slots.get(0), new TimeSlot(twoPm - hour, twoPm));
+		assertEquals(slots.get(1), new TimeSlot(twoPm + hour, twoPm + 4 * hour));
+		assertEquals(slots.get(2), new TimeSlot(twoPm + 6 * hour, twoPm + 8 * hour));
+
+		// Only long enough gaps, and no more than asked for
+		assertEquals(_taskTree.queryFreeSlots(twoPm - hour, twoPm + 8 * hour, 2 * hour, 10).size(), 2);
+		assertEquals(_taskTree.queryFreeSlots(twoPm - hour, twoPm + 8 * hour, hour, 1).size(), 1);
+
+		// A range starting inside a task starts free after it
+		slots = _taskTree.queryFreeSlots(twoPm + 5 * hour, twoPm + 7 * hour, hour, 10);
+		assertEquals(slots.size(), 1);
+		assertEquals(slots.get(0), new TimeSlot(twoPm + 6 * hour, twoPm + 7 * hour));
+		assertEquals(_taskTree.queryFreeSlots(twoPm + 4 * hour, twoPm + 6 * hour, 1, 10).size(), 0);
+
+		// Marking a task as done frees its time
+		assertTrue(_taskTree.updateFlag(_taskTree.searchName("first").get(FIRST_ELEMENT), FLAG_TYPE.DONE));
+		assertEquals(_taskTree.queryFreeSlots(twoPm - hour, twoPm + 8 * hour, hour, 10).get(0),
+				new TimeSlot(twoPm - hour, twoPm + 4 * hour));
+
+		long halfHour = hour / 2;
+		ArrayList<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < NUM_OF_ITEMS * 4; i++) {
+			long startTime = twoPm + ((i * 13) % 60) * halfHour;
+			long endTime = startTime + (i % 2 + 1) * halfHour;
+			Task task = new Task("task " + i, i % 11 == 0 ? Task.DATE_NULL : startTime,
+					i % 13 == 0 ? Task.DATE_NULL : endTime, FLAG_TYPE.values()[i % 5 == 0 ? 1 : 0],
+					PRIORITY_TYPE.NORMAL);
+			tasks.add(task);
+			_taskTree.add(task);
+		}
+		for (int i = 0; i < tasks.size(); i += 5) {
+			assertTrue(_taskTree.updateFlag(tasks.get(i), FLAG_TYPE.NULL));
+		}
+		for (int i = 1; i < tasks.size(); i += 4) {
+			assertTrue(_taskTree.updateStartTime(tasks.get(i), tasks.get(i).getEndTime() - 3 * halfHour));
+		}
+		for (int i = 2; i < tasks.size(); i += 6) {
+			assertTrue(_taskTree.remove(tasks.get(i)));
+		}
+		long[] minLengths = { halfHour - 1, halfHour, halfHour + 1, hour, 3 * halfHour };
+		for (int from = -2; from <= 64; from += 3) {
+			for (int to = from; to <= 64; to += 5) {
+				long fromTime = twoPm + from * halfHour;
+				long toTime = twoPm + to * halfHour;
+				for (long minLength : minLengths) {
+					for (int maxSlots : new int[] { 1, 2, 100 }) {
+						assertEquals(_taskTree.queryFreeSlots(fromTime, toTime, minLength, maxSlots),
+								getFreeSlotsByStepping(fromTime, toTime, halfHour, minLength, maxSlots));
+					}
+				}
+			}
+		}
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. query with one and several conditions
+	 * 2. query after updateFlag, updatePriority, updateEndTime, updateName
+	 *    and remove, against checking every task with matches
+	 *
+	 * Condition
+	 * 1. Pending and done reports of each priority, due on one of three days,
+	 *    and a floating pending task
+	 * 2. Every combination of flag, priority, name term, and start and end
+	 *    time ranges which are unset, empty, of one instant, or open ended
+	 */
+	@Test
+	public void testCompositeQuery() {
+		long day = 86400000L;
+		long monday = 1447034400000L;
+		_taskTree = TaskTree.newTaskTree("test_taskTreeQueryFile.xml", new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		for (int i = 0; i < 3; i++) {
+			for (PRIORITY_TYPE priority : PRIORITY_TYPE.values()) {
+				_taskTree.add(new Task("Report " + i, 0, monday + i * day, FLAG_TYPE.NULL, priority));
+				_taskTree.add(new Task("Report " + i, 0, monday + i * day, FLAG_TYPE.DONE, priority));
+			}
+		}
+		Task floating = new Task("floating", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.HIGH);
+		_taskTree.add(floating);
+
+		TaskQuery query = new TaskQuery();
+		assertEquals(_taskTree.query(query).size(), 19);
+		query.setFlag(FLAG_TYPE.NULL);
+		assertEquals(_taskTree.query(query).size(), 10);
+		query.setPriority(PRIORITY_TYPE.HIGH);
+		assertEquals(_taskTree.query(query).size(), 4);
+		query.setEndTimeRange(monday, monday + day);
+		assertEquals(_taskTree.query(query).size(), 2);
+		query.setNameTerm("report 1");
+		assertEquals(_taskTree.query(query).size(), 1);
+		assertEquals(_taskTree.query(query).get(FIRST_ELEMENT).getEndTime(), monday + day);
+		query.setNameTerm("Report 2");
+		assertEquals(_taskTree.query(query).size(), 0);
+
+		// Results are in order of creation, whichever source they come from
+		query = new TaskQuery();
+		query.setPriority(PRIORITY_TYPE.HIGH);
+		List<Task> result = _taskTree.query(query);
+		assertEquals(result.size(), 7);
+		assertEquals(result.get(result.size() - 1), floating);
+		query.setStartTimeRange(Task.DATE_START, Long.MAX_VALUE);
+		assertEquals(_taskTree.query(query).size(), 0);
+		query.setStartTimeRange(Long.MAX_VALUE, Task.DATE_START);
+		assertEquals(_taskTree.query(query).size(), 0);
+
+		query = new TaskQuery();
+		query.setPriority(PRIORITY_TYPE.LOW);
+		query.setNameTerm("float");
+		assertEquals(_taskTree.query(query).size(), 0);
+		assertTrue(_taskTree.updatePriority(floating, PRIORITY_TYPE.LOW));
+		assertEquals(_taskTree.query(query).get(FIRST_ELEMENT), floating);
+
+		long hour = 3600000L;
+		ArrayList<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < NUM_OF_ITEMS * 12; i++) {
+			Task task = new Task((i % 3 == 0 ? "Report " : "call ") + (i % 4),
+					i % 4 == 0 ? Task.DATE_NULL : monday + (i % 6) * hour,
+					i % 5 == 0 ? Task.DATE_NULL : monday + (i % 8) * hour, FLAG_TYPE.values()[i % 2],
+					PRIORITY_TYPE.values()[i % 3]);
+			tasks.add(task);
+			_taskTree.add(task);
+		}
+		for (int i = 0; i < tasks.size(); i += 3) {
+			assertTrue(_taskTree.updateFlag(tasks.get(i), FLAG_TYPE.values()[(i + 1) % 2]));
+			assertTrue(_taskTree.updatePriority(tasks.get(i), PRIORITY_TYPE.values()[(i + 1) % 3]));
+			assertTrue(_taskTree.updateEndTime(tasks.get(i), monday + (i % 7) * hour));
+			assertTrue(_taskTree.updateName(tasks.get(i), "report " + (i % 5)));
+		}
+		for (int i = 1; i < tasks.size(); i += 5) {
+			assertTrue(_taskTree.remove(tasks.get(i)));
+		}
+		FLAG_TYPE[] flags = { null, FLAG_TYPE.NULL, FLAG_TYPE.DONE };
+		PRIORITY_TYPE[] priorities = { null, PRIORITY_TYPE.HIGH, PRIORITY_TYPE.NORMAL, PRIORITY_TYPE.LOW };
+		String[] nameTerms = { null, "re", "report", "Report 1", "CALL", "meeting" };
+		// Pairs of range ends, the first meaning no range
+		long[][] ranges = { null, { Task.DATE_NULL, Task.DATE_NULL },
+				{ monday + 2 * hour, monday + 2 * hour }, { monday + hour + 1, monday + 4 * hour - 1 },
+				{ Task.DATE_START, Long.MAX_VALUE }, { monday + 3 * hour, monday + 2 * hour },
+				{ monday + 5 * hour, Long.MAX_VALUE } };
+		for (FLAG_TYPE flag : flags) {
+			for (PRIORITY_TYPE priority : priorities) {
+				for (String nameTerm : nameTerms) {
+					for (long[] startTimeRange : ranges) {
+						for (long[] endTimeRange : ranges) {
+							query = new TaskQuery();
+							query.setFlag(flag);
+							query.setPriority(priority);
+							query.setNameTerm(nameTerm);
+							if (startTimeRange != null) {
+								query.setStartTimeRange(startTimeRange[0], startTimeRange[1]);
+							}
+							if (endTimeRange != null) {
+								query.setEndTimeRange(endTimeRange[0], endTimeRange[1]);
+							}
+							assertEquals(_taskTree.query(query), getTasksByScan(query::matches));
+						}
+					}
+				}
+			}
+		}
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. getFirstPage, getLastPage and getPageFrom with and without a query
+	 * 2. getNextPage after the last task of a page is given a new end time
+	 *
+	 * Condition
+	 * 1. 25 tasks due an hour apart, of which every fifth is done
+	 */
+	@Test
+	public void testGetPage() {
+		long hour = 3600000L;
+		long monday = 1447034400000L;
+		_taskTree = TaskTree.newTaskTree("test_taskTreePageFile.xml", new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		List<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < 25; i++) {
+			FLAG_TYPE flag = i % 5 == 0 ? FLAG_TYPE.DONE : FLAG_TYPE.NULL;
+			tasks.add(new Task("Task " + i, 0, monday + i * hour, flag, PRIORITY_TYPE.NORMAL));
+			_taskTree.add(tasks.get(i));
+		}
+		TaskQuery pending = new TaskQuery();
+		pending.setFlag(FLAG_TYPE.NULL);
+
+		TaskPage firstPage = _taskTree.getFirstPage(TYPE.END_TIME, pending, 8);
+		assertEquals(firstPage.size(), 8);
+		assertTrue(firstPage.hasMore());
+		assertEquals(firstPage.get(FIRST_ELEMENT), tasks.get(1));
+		assertEquals(firstPage.get(7), tasks.get(9));
+
+		// The next page starts after where the first page ended
+		assertTrue(_taskTree.updateEndTime(tasks.get(9), monday + 100 * hour));
+		TaskPage secondPage = _taskTree.getNextPage(firstPage);
+		assertEquals(secondPage.get(FIRST_ELEMENT), tasks.get(11));
+		TaskPage thirdPage = _taskTree.getNextPage(_taskTree.getNextPage(secondPage));
+		assertEquals(thirdPage.size(), 0);
+		assertFalse(thirdPage.hasMore());
+		thirdPage = _taskTree.getNextPage(secondPage);
+		assertEquals(thirdPage.size(), 5);
+		assertEquals(thirdPage.get(4), tasks.get(9));
+		assertFalse(thirdPage.hasMore());
+
+		// Pages read from the end are still in ascending order
+		TaskPage lastPage = _taskTree.getLastPage(TYPE.ID, pending, 3);
+		assertEquals(lastPage.get(FIRST_ELEMENT), tasks.get(22));
+		assertEquals(lastPage.get(2), tasks.get(24));
+		lastPage = _taskTree.getNextPage(lastPage);
+		assertEquals(lastPage.get(FIRST_ELEMENT), tasks.get(18));
+		assertEquals(lastPage.get(2), tasks.get(21));
+
+		assertEquals(_taskTree.getPageFrom(TYPE.END_TIME, null, monday + 20 * hour, 100).size(), 6);
+		assertEquals(_taskTree.getPageFrom(TYPE.ID, null, 0, 100).size(), 25);
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. getFirstPage, getLastPage and getNextPage of an empty tree
+	 * 2. getNextPage on the last page, which is full, and after the end
+	 * 3. getFirstPage with a query which filters out whole pages
+	 * 4. getNextPage in order of id against query, for each source of tasks
+	 *
+	 * Condition
+	 * 1. 40 tasks due an hour apart, of which the first 10 are done
+	 */
+	@Test
+	public void testGetPageBoundaries() {
+		long hour = 3600000L;
+		long monday = 1447034400000L;
+		_taskTree = TaskTree.newTaskTree("test_taskTreePageEndFile.xml", new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		TaskQuery pending = new TaskQuery();
+		pending.setFlag(FLAG_TYPE.NULL);
+
+		TaskPage emptyPage = _taskTree.getFirstPage(TYPE.END_TIME, null, 5);
+		assertEquals(emptyPage.size(), 0);
+		assertFalse(emptyPage.hasMore());
+		assertEquals(_taskTree.getNextPage(emptyPage).size(), 0);
+		assertEquals(_taskTree.getLastPage(TYPE.ID, pending, 5).size(), 0);
+		assertEquals(_taskTree.getFirstPage(TYPE.ID, pending, 5).size(), 0);
+
+		List<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < 40; i++) {
+			FLAG_TYPE flag = i < 10 ? FLAG_TYPE.DONE : FLAG_TYPE.NULL;
+			tasks.add(new Task("Task " + i, 0, monday + i * hour, flag, PRIORITY_TYPE.values()[i % 3]));
+			_taskTree.add(tasks.get(i));
+		}
+
+		// The last page is full, so only the page after it finds no more
+		TaskPage page = _taskTree.getFirstPage(TYPE.END_TIME, null, 20);
+		assertTrue(page.hasMore());
+		page = _taskTree.getNextPage(page);
+		assertEquals(page.size(), 20);
+		assertEquals(page.get(19), tasks.get(39));
+		assertFalse(page.hasMore());
+		page = _taskTree.getNextPage(page);
+		assertEquals(page.size(), 0);
+		assertFalse(page.hasMore());
+		assertEquals(_taskTree.getNextPage(page).size(), 0);
+
+		// The done tasks fill the first two pages, which are skipped
+		for (TYPE type : new TYPE[] { TYPE.ID, TYPE.END_TIME }) {
+			page = _taskTree.getFirstPage(type, pending, 5);
+			assertEquals(page.size(), 5);
+			assertEquals(page.get(FIRST_ELEMENT), tasks.get(10));
+			assertTrue(page.hasMore());
+		}
+		TaskQuery none = new TaskQuery();
+		none.setNameTerm("Task 99");
+		page = _taskTree.getFirstPage(TYPE.ID, none, 5);
+		assertEquals(page.size(), 0);
+		assertFalse(page.hasMore());
+
+		// Pages in order of id hold the tasks of query, whatever they are read from
+		TaskQuery byPriority = new TaskQuery();
+		byPriority.setFlag(FLAG_TYPE.NULL);
+		byPriority.setPriority(PRIORITY_TYPE.HIGH);
+		TaskQuery byName = new TaskQuery();
+		byName.setNameTerm("Task 3");
+		TaskQuery byEndTime = new TaskQuery();
+		byEndTime.setEndTimeRange(monday + 5 * hour, monday + 12 * hour);
+		for (TaskQuery query : new TaskQuery[] { pending, byPriority, byName, byEndTime }) {
+			List<Task> pagedTasks = new ArrayList<Task>();
+			page = _taskTree.getFirstPage(TYPE.ID, query, 3);
+			pagedTasks.addAll(page);
+			while (page.hasMore()) {
+				page = _taskTree.getNextPage(page);
+				pagedTasks.addAll(page);
+			}
+			assertEquals(pagedTasks, _taskTree.query(query));
+		}
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. nextDue with fewer and more tasks than there are of each kind
+	 *
+	 * Condition
+	 * 1. Pending and done tasks due on one day, and pending and done
+	 *    floating tasks of each priority
+	 */
+	@Test
+	public void testNextDue() {
+		long hour = 3600000L;
+		long monday = 1447034400000L;
+		_taskTree = TaskTree.newTaskTree("test_taskTreeNextDueFile.xml", new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		Task dueLast = new Task("Due last", 0, monday + 3 * hour, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+		Task dueDone = new Task("Due done", 0, monday + hour, FLAG_TYPE.DONE, PRIORITY_TYPE.NORMAL);
+		Task dueSecond = new Task("Due second", 0, monday + 2 * hour, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+		Task dueFirst = new Task("Due first", 0, monday, FLAG_TYPE.NULL, PRIORITY_TYPE.LOW);
+		Task floatingLow = new Task("Floating low", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.LOW);
+		Task floatingHigh = new Task("Floating high", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.HIGH);
+		Task floatingNormal = new Task("Floating normal", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+		Task floatingDone = new Task("Floating done", 0, 0, FLAG_TYPE.DONE, PRIORITY_TYPE.HIGH);
+		Task floatingHighLater = new Task("Floating high later", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.HIGH);
+		Task[] tasks = { dueLast, dueDone, dueSecond, dueFirst, floatingLow, floatingHigh, floatingNormal,
+				floatingDone, floatingHighLater };
+		for (Task t : tasks) {
+			_taskTree.add(t);
+		}
+
+		// Chosen by urgency, returned in order of creation
+		List<Task> nextTasks = _taskTree.nextDue(2);
+		assertEquals(nextTasks.size(), 4);
+		assertEquals(nextTasks.get(FIRST_ELEMENT), dueSecond);
+		assertEquals(nextTasks.get(1), dueFirst);
+		assertEquals(nextTasks.get(2), floatingHigh);
+		assertEquals(nextTasks.get(3), floatingHighLater);
+
+		nextTasks = _taskTree.nextDue(10);
+		assertEquals(nextTasks.size(), 7);
+		assertFalse(nextTasks.contains(dueDone));
+		assertFalse(nextTasks.contains(floatingDone));
+		assertEquals(_taskTree.nextDue(0).size(), 0);
+		_taskTree = null;
+	}
+
+	/*
+	 * Testing methods
+	 * 1. nextDue against sorting every pending task
+	 * 2. nextDue after updateFlag, updateEndTime, updatePriority and remove
+	 *
+	 * Condition
+	 * 1. 300 dated and floating tasks, most of them done, of each priority
+	 */
+	@Test
+	public void testNextDueAgainstSorting() {
+		long hour = 3600000L;
+		long monday = 1447034400000L;
+		_taskTree = TaskTree.newTaskTree("test_taskTreeNextDueSortFile.xml", new MemoryTaskStore(), NUM_OF_ITEMS,
+				TaskStorageWriter.MODE.SYNC);
+		List<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < 300; i++) {
+			long endTime = i % 4 == 0 ? 0 : monday + (i * 37 % 101) * hour;
+			FLAG_TYPE flag = i % 10 < 7 ? FLAG_TYPE.DONE : FLAG_TYPE.NULL;
+			tasks.add(new Task("Task " + i, 0, endTime, flag, PRIORITY_TYPE.values()[i % 3]));
+			_taskTree.add(tasks.get(i));
+		}
+		assertEquals(_taskTree.nextDue(5), getNextDueBySorting(5));
+
+		// Changes after the index is built keep it up to date
+		for (int i = 0; i < 300; i += 7) {
+			_taskTree.updateFlag(tasks.get(i), i % 2 == 0 ? FLAG_TYPE.NULL : FLAG_TYPE.DONE);
+			_taskTree.updateEndTime(tasks.get(i + 1), i % 3 == 0 ? 0 : monday - i * hour);
+			_taskTree.updatePriority(tasks.get(i + 2), PRIORITY_TYPE.HIGH);
+		}
+		_taskTree.remove(tasks.get(3));
+		_taskTree.remove(tasks.get(8));
+		for (int count : new int[] { 0, 1, 5, 20, 300 }) {
+			assertEquals(_taskTree.nextDue(count), getNextDueBySorting(count));
+		}
+		for (Task t : _taskTree.nextDue(300)) {
+			assertEquals(t.getFlag(), FLAG_TYPE.NULL);
+		}
+		_taskTree = null;
+	}
+
+	private List<Task> getNextDueBySorting(int count) {
+		List<Task> dated = new ArrayList<Task>();
+		List<Task> floating = new ArrayList<Task>();
+		for (Task t : getTasksByScan(task -> task.getFlag() == FLAG_TYPE.NULL)) {
+			(t.getEndTime() == Task.DATE_NULL ? floating : dated).add(t);
+		}
+		dated.sort(new EndTimeComparator());
+		floating.sort(new PriorityComparator());
+
+		List<Task> result = new ArrayList<Task>(dated.subList(0, Math.min(count, dated.size())));
+		result.addAll(floating.subList(0, Math.min(count, floating.size())));
+		result.sort(new IdComparator());
+		return result;
+	}
+
+	/**
+	 * Returns the tasks matching {@code condition} by checking every task in
+	 * the tree, in order of id, to compare the indexes with
+	 */
+	private List<Task> getTasksByScan(Predicate<Task> condition) {
+		List<Task> result = new ArrayList<Task>();
+		for (Task task : _taskTree.getList()) {
+			if (condition.test(task)) {
+				result.add(task);
+			}
+		}
+		result.sort(new IdComparator());
+		return result;
+	}
+
+	private Predicate<Task> isOverdueAt(long time) {
+		return task -> task.getFlag() == FLAG_TYPE.NULL && task.getEndTime() >= Task.DATE_START
+				&& task.getEndTime() < time;
+	}
+
+	private Predicate<Task> isOverlapping(long fromTime, long toTime) {
+		return task -> {
+			if (task.getStartTime() == Task.DATE_NULL && task.getEndTime() == Task.DATE_NULL) {
+				return false;
+			}
+			long low = task.getStartTime() == Task.DATE_NULL ? task.getEndTime() : task.getStartTime();
+			long high = task.getEndTime() == Task.DATE_NULL ? task.getStartTime() : task.getEndTime();
+			// A range ending before it starts takes up no time
+			return fromTime <= toTime && low <= toTime && high >= fromTime;
+		};
+	}
+
+	/**
+	 * Returns the free slots found by checking each {@code step} for a
+	 * pending task taking up all of it. The times of every task must be on a
+	 * step.
+	 */
+	private List<TimeSlot> getFreeSlotsByStepping(long fromTime, long toTime, long step, long minLength,
+			int maxSlots) {
+		List<TimeSlot> result = new ArrayList<TimeSlot>();
+		long freeFrom = fromTime;
+		for (long time = fromTime; time <= toTime && result.size() < maxSlots; time += step) {
+			long stepStart = time;
+			boolean isBusy = !getTasksByScan(task -> task.getFlag() == FLAG_TYPE.NULL
+					&& task.getStartTime() != Task.DATE_NULL && task.getEndTime() != Task.DATE_NULL
+					&& task.getStartTime() <= stepStart && task.getEndTime() >= stepStart + step).isEmpty();
+			// A slot ends where a task starts, or at the end of the range
+			if (isBusy || time == toTime) {
+				if (time - freeFrom >= minLength) {
+					result.add(new TimeSlot(freeFrom, time));
+				}
+				freeFrom = time + step;
+			}
+		}
+		return result;
+	}
+
+	private Comparator<Task> getComparator(TYPE type) {
+		switch (type) {
+			case NAME:
+				return new NameComparator();
+			case START_TIME:
+				return new StartTimeComparator();
+			case END_TIME:
+				return new EndTimeComparator();
+			case FLAG:
+				return new FlagComparator();
+			case PRIORITY:
+				return new PriorityComparator();
+			default:
+				return new IdComparator();
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+//@@author A0076510M
+package test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+import util.IntHashMap;
+import util.IntIntHashMap;
+
+public class IntHashMapTest {
+
+	final static int OPERATIONS = 100000;
+	final static int KEY_RANGE = 2000;
+	final static int MISSING = -1;
+	
+	@Test
+	public void testPutGetRemove() {
+		IntHashMap<String> map = new IntHashMap<>();
+		
+		assertEquals(map.put(3, "three"), null);
+		assertEquals(map.put(-7, "minus seven"), null);
+		assertEquals(map.put(3, "THREE"), "three");
+		assertEquals(map.get(3), "THREE");
+		assertEquals(map.get(-7), "minus seven");
+		assertEquals(map.get(4), null);
+		assertEquals(map.size(), 2);
+		
+		assertEquals(map.remove(3), "THREE");
+		assertEquals(map.remove(3), null);
+		assertEquals(map.containsKey(-7), true);
+		assertEquals(map.size(), 1);
+	}
+	
+	@Test
+	public void testAgainstHashMap() {
+		IntHashMap<Integer> map = new IntHashMap<>();
+		HashMap<Integer, Integer> checker = new HashMap<>();
+		Random random = new Random(2103);
+		
+		for (int i = 0; i < OPERATIONS; i++) {
+			int key = random.nextInt(KEY_RANGE) * 16;
+			if (random.nextInt(3) == 0) {
+				assertEquals(checker.remove(key), map.remove(key));
+			} else {
+				assertEquals(checker.put(key, i), map.put(key, i));
+			}
+		}
+		
+		assertEquals(checker.size(), map.size());
+		for (int key = 0; key < KEY_RANGE * 16; key++) {
+			assertEquals(checker.get(key), map.get(key));
+		}
+	}
+	
+	@Test
+	public void testIntValuesAgainstHashMap() {
+		IntIntHashMap map = new IntIntHashMap(MISSING);
+		HashMap<Integer, Integer> checker = new HashMap<>();
+		Random random = new Random(2103);
+		
+		for (int i = 0; i < OPERATIONS; i++) {
+			int key = random.nextInt(KEY_RANGE) * 16;
+			if (random.nextInt(3) == 0) {
+				assertEquals((int) checker.getOrDefault(key, MISSING), map.remove(key));
+				checker.remove(key);
+			} else {
+				assertEquals((int) checker.getOrDefault(key, MISSING), map.put(key, i));
+				checker.put(key, i);
+			}
+		}
+		
+		assertEquals(checker.size(), map.size());
+		for (int key = 0; key < KEY_RANGE * 16; key++) {
+			assertEquals((int) checker.getOrDefault(key, MISSING), map.get(key));
+			assertEquals(checker.containsKey(key), map.containsKey(key));
+		}
+	}
+}
@@ -5,6 +5,7 @@ package test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -16,6 +17,7 @@ import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.junit.After;
 import org.junit.Test;
 
 import logic.command.CmdAdd;
@@ -46,6 +48,7 @@ public class IntTest {
 	 */
 	private static final String CMD_FILENAME = "commands.xml";
 	private static final String TASK_FILENAME = "testtask.xml";
+	private static final String TASK_BACKUP_FILENAME = TASK_FILENAME + ".bak";
 	private static final String TASKOUT_FILENAME = "testtaskout.xml";
 	private static final String MSG_INIT_CMDFAILED = "Test init cmd file failed";
 	private static final String MSG_INVALIDCMD = "Please enter a valid command. For more info, enter help";
@@ -218,6 +221,11 @@ public class IntTest {
 		MSG_STARTAFTEREND = (String) f.get(add);
 	}
 
+	@After
+	public void deleteBackup() {
+		new File(TASK_BACKUP_FILENAME).delete();
+	}
+
 	private void init() {
 		try {
 			initConstants();
@@ -2,26 +2,50 @@
 package test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
 
+import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
 import storage.CommandFileHandler;
+import storage.MappedTaskSnapshot;
+import storage.MemoryTaskStore;
+import storage.TaskArchive;
+import storage.TaskBinaryReader;
+import storage.TaskBinaryWriter;
+import storage.TaskCheckpointer;
+import storage.TaskFileConverter;
 import storage.TaskFileHandler;
+import storage.TaskJournal;
+import storage.TaskStorageWriter;
+import storage.TaskXmlReader;
+import storage.TaskXmlWriter;
 import taskCollections.Task;
+import taskCollections.TaskTree;
 import taskCollections.Task.FLAG_TYPE;
 import taskCollections.Task.PRIORITY_TYPE;
 import util.TimeUtil;
@@ -39,6 +63,29 @@ public class StorageTest {
 	final static String ADD_TASK_FILE = "tasksAdd.xml";
 	final static String UPDATE_TASK_FILE = "tasksUpdate.xml";
 	final static String DELETE_TASK_FILE = "tasksDelete.xml";
+	final static String BINARY_TASK_FILE = "tasksBinary.dat";
+	final static String CONVERTED_TASK_FILE = "tasksConverted.xml";
+	final static String READ_ONLY_TASK_FILE = "tasksReadOnly.xml";
+	final static String QUEUED_TASK_FILE = "tasksQueued.xml";
+	final static String RECOVERED_TASK_FILE = "tasksRecovered.xml";
+	final static String ARCHIVED_TASK_FILE = "tasksArchived.xml";
+	final static String JOURNAL_TASK_FILE = "tasksJournal.xml";
+	final static String JOURNAL_EXTENSION = ".journal";
+	final static String[] TASK_FILE_EXTENSIONS = { "", JOURNAL_EXTENSION, JOURNAL_EXTENSION + ".tmp",
+			".snapshot", ".bak", ".archive.gz", ".archive.gz.bak", ".tmp" };
+	final static String CHECKPOINT_TASK_FILE = "tasksCheckpoint.xml";
+	final static String MALFORMED_TASK_FILE = "tasksMalformed.xml";
+	final static String ROUND_TRIP_TASK_FILE = "tasksRoundTrip.xml";
+	final static String MAPPED_TASK_FILE = "tasksMapped.dat";
+	final static String PARALLEL_TASK_FILE = "tasksParallel.xml";
+	final static String SYNC_TASK_FILE = "tasksSync.xml";
+	final static String CORRUPT_TASK_FILE = "tasksCorrupt.dat";
+	final static int PARALLEL_TASK_COUNT = 3000;
+	final static int TRUNCATED_SIZE = 100;
+	// Name offset of the fifth record, after a header with an empty generation
+	final static int CORRUPT_NAME_OFFSET = 14 + 4 * 29 + 21;
+	final static long OLD_MODIFIED_TIME = 1000000000000L;
+	final static long FAILURE_POLL_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
 	
 
 	@BeforeClass
@@ -47,6 +94,22 @@ public class StorageTest {
 		taskFH = new TaskFileHandler();
 	}
 	
+	@AfterClass
+	public static void afterClass() {
+		deleteTaskFiles(JOURNAL_TASK_FILE);
+		deleteTaskFiles(CHECKPOINT_TASK_FILE);
+		deleteTaskFiles(MALFORMED_TASK_FILE);
+		deleteTaskFiles(ROUND_TRIP_TASK_FILE);
+		deleteTaskFiles(BINARY_TASK_FILE, CONVERTED_TASK_FILE);
+		deleteTaskFiles(MAPPED_TASK_FILE, CORRUPT_TASK_FILE);
+		deleteTaskFiles(READ_ONLY_TASK_FILE);
+		deleteTaskFiles(QUEUED_TASK_FILE, SYNC_TASK_FILE);
+		deleteTaskFiles(RECOVERED_TASK_FILE);
+		new File(ORIGINAL_TASK_FILE + ".bak").delete();
+		deleteTaskFiles(ARCHIVED_TASK_FILE);
+		deleteTaskFiles(PARALLEL_TASK_FILE);
+	}
+	
 	@Test
 	public void testCommandFileLoading() {
 		String fileName = COMMAND_FILE;
@@ -75,6 +138,31 @@ public class StorageTest {
 		assertEquals(taskFH.loadTaskFile(fileToUse), true);
 	}
 	
+	@Test
+	public void testArchiveDoneTasks() {
+		fileCopy(BACKUP_TASK_FILE, ARCHIVED_TASK_FILE);
+		new TaskArchive(ARCHIVED_TASK_FILE).discard();
+		TaskFileHandler archivingFH = new TaskFileHandler();
+		assertEquals(archivingFH.loadTaskFile(ARCHIVED_TASK_FILE), true);
+		
+		Task done = archivingFH.retrieveTaskList().get(0);
+		assertEquals(archivingFH.archiveTasks(Arrays.asList(done)), true);
+		
+		// Archived tasks are not loaded with the file
+		TaskFileHandler archivedFH = new TaskFileHandler();
+		assertEquals(archivedFH.loadTaskFile(ARCHIVED_TASK_FILE), true);
+		assertEquals(archivedFH.retrieveTaskList().size(), 4);
+		assertEquals(archivedFH.retrieveArchivedTasks(), Arrays.asList(done));
+		
+		// Updating an archived task moves it back into the file
+		assertEquals(archivedFH.update(done), true);
+		assertEquals(archivedFH.retrieveArchivedTasks().size(), 0);
+		
+		TaskFileHandler restoredFH = new TaskFileHandler();
+		assertEquals(restoredFH.loadTaskFile(ARCHIVED_TASK_FILE), true);
+		assertEquals(restoredFH.retrieveTaskList().size(), 5);
+	}
+	
 	@Test
 	public void testArrayList() {
 		ArrayList<Task> taskList = taskFH.retrieveTaskList();
@@ -107,6 +195,356 @@ public class StorageTest {
 		assertEquals(getCheckSum(ADD_TASK_FILE), getCheckSum(ORIGINAL_TASK_FILE));
 	}
 
+	
+	@Test
+	public void testBinaryConversion() {
+		assertEquals(TaskFileConverter.toBinary(BACKUP_TASK_FILE, BINARY_TASK_FILE), true);
+		
+		TaskFileHandler binaryFH = new TaskFileHandler();
+		assertEquals(binaryFH.loadTaskFile(BINARY_TASK_FILE), true);
+		assertEquals(binaryFH.retrieveTaskList().size(), 5);
+		
+		assertEquals(TaskFileConverter.toXml(BINARY_TASK_FILE, CONVERTED_TASK_FILE), true);
+		assertSameTasks(BACKUP_TASK_FILE, CONVERTED_TASK_FILE);
+		
+		// Converting in place replaces the file as a save does, keeping a backup
+		assertEquals(TaskFileConverter.toBinary(CONVERTED_TASK_FILE, CONVERTED_TASK_FILE), true);
+		assertEquals(TaskBinaryReader.isBinaryFile(new File(CONVERTED_TASK_FILE)), true);
+		assertEquals(new File(CONVERTED_TASK_FILE + ".tmp").exists(), false);
+		assertSameTasks(BACKUP_TASK_FILE, CONVERTED_TASK_FILE + ".bak");
+	}
+
+	@Test
+	public void testCheckpoint() throws IOException, InterruptedException {
+		fileCopy(BACKUP_TASK_FILE, CHECKPOINT_TASK_FILE);
+		Path journalPath = Paths.get(CHECKPOINT_TASK_FILE + JOURNAL_EXTENSION);
+		Files.deleteIfExists(journalPath);
+		TaskFileHandler journalFH = new TaskFileHandler(true);
+		assertEquals(journalFH.loadTaskFile(CHECKPOINT_TASK_FILE), true);
+		Task added = new Task(5, "New Task Added for JUnit Testing", 0, 0, FLAG_TYPE.DONE, PRIORITY_TYPE.NORMAL);
+		assertEquals(journalFH.add(added), true);
+		assertEquals(journalFH.delete(4), true);
+		ArrayList<Task> expected = new ArrayList<>(journalFH.retrieveTaskList());
+		expected.set(4, added);
+		byte[] journalBytes = Files.readAllBytes(journalPath);
+		
+		// Checkpoint the journal as the handler does once it is due
+		String generation = getJournalGeneration(journalPath);
+		TaskJournal journal = new TaskJournal(CHECKPOINT_TASK_FILE);
+		assertEquals(journal.readEntries(generation).size(), 2);
+		assertEquals(journal.resume(generation), true);
+		TaskCheckpointer checkpointer = new TaskCheckpointer(new File(CHECKPOINT_TASK_FILE), journal, false);
+		assertEquals(checkpointer.checkpoint(), true);
+		while (checkpointer.isRunning()) {
+			Thread.sleep(10);
+		}
+		assertEquals(journal.isEmpty(), true);
+		assertEquals(checkpointer.isDue(), false);
+		assertEquals(getJournalGeneration(journalPath), generation);
+		
+		TaskFileHandler checkpointedFH = new TaskFileHandler();
+		assertEquals(checkpointedFH.loadTaskFile(CHECKPOINT_TASK_FILE), true);
+		assertEquals(checkpointedFH.retrieveTaskList(), expected);
+		
+		// A crash between the snapshot and the truncation leaves entries of the
+		// same generation, which are replayed again without changing the tasks
+		Files.write(journalPath, journalBytes);
+		TaskFileHandler crashedFH = new TaskFileHandler(true);
+		assertEquals(crashedFH.loadTaskFile(CHECKPOINT_TASK_FILE), true);
+		assertEquals(crashedFH.retrieveTaskList(), expected);
+		
+		// A full save gives the file a new generation, so entries of the old
+		// journal left by a crash before it was emptied are not replayed
+		TaskFileHandler originalFH = new TaskFileHandler();
+		assertEquals(originalFH.loadTaskFile(BACKUP_TASK_FILE), true);
+		ArrayList<Task> original = originalFH.retrieveTaskList();
+		assertEquals(crashedFH.replaceTasks(original), true);
+		assertNotEquals(getJournalGeneration(journalPath), generation);
+		Files.write(journalPath, journalBytes);
+		TaskFileHandler staleFH = new TaskFileHandler(true);
+		assertEquals(staleFH.loadTaskFile(CHECKPOINT_TASK_FILE), true);
+		assertEquals(staleFH.retrieveTaskList(), original);
+	}
+
+	@Test
+	public void testCorruptMappedRecord() throws IOException {
+		TaskXmlReader reader = new TaskXmlReader(new File(BACKUP_TASK_FILE));
+		assertEquals(reader.read(), true);
+		ArrayList<Task> tasks = reader.getTasks();
+		assertEquals(new TaskBinaryWriter(new File(CORRUPT_TASK_FILE)).write(tasks, ""), true);
+		fileCopy(CORRUPT_TASK_FILE, CORRUPT_TASK_FILE + ".bak");
+		corruptMappedName(CORRUPT_TASK_FILE);
+		
+		// The last task is only decoded once the rest is pulled, and the
+		// file is then read again from its backup
+		TaskTree tree = TaskTree.newTaskTree(CORRUPT_TASK_FILE, new TaskFileHandler(), 1,
+				TaskStorageWriter.MODE.SYNC);
+		assertEquals(tree.size(), 1);
+		tree.pullPendingTasks();
+		assertEquals(tree.pollLoadFailure(), true);
+		assertEquals(tree.pollLoadFailure(), false);
+		assertEquals(tree.size(), tasks.size());
+		assertEquals(tree.getTask(tasks.get(4).getId()).getName(), tasks.get(4).getName());
+		
+		// Without a backup, the tasks which can be read are kept
+		corruptMappedName(CORRUPT_TASK_FILE);
+		new File(CORRUPT_TASK_FILE + ".bak").delete();
+		tree = TaskTree.newTaskTree(CORRUPT_TASK_FILE, new TaskFileHandler(), 1, TaskStorageWriter.MODE.SYNC);
+		assertEquals(tree.pullPendingTasks(tasks.size()), false);
+		assertEquals(tree.pollLoadFailure(), true);
+		assertEquals(tree.size(), tasks.size() - 1);
+	}
+
+	@Test
+	public void testJournalReplay() throws IOException {
+		fileCopy(BACKUP_TASK_FILE, JOURNAL_TASK_FILE);
+		new File(JOURNAL_TASK_FILE + JOURNAL_EXTENSION).delete();
+		TaskFileHandler journalFH = new TaskFileHandler(true);
+		assertEquals(journalFH.loadTaskFile(JOURNAL_TASK_FILE), true);
+		
+		// Changes are appended to the journal, the file is left as it is
+		String snapshotSum = getCheckSum(JOURNAL_TASK_FILE);
+		long t3Start = TimeUtil.getLongTime("Saturday: 31/10/15 12:00 GMT+0800");
+		long t3End = TimeUtil.getLongTime("Saturday: 31/10/15 20:05 GMT+0800");
+		Task added = new Task(5, "New Task Added for JUnit Testing", 0, 0, FLAG_TYPE.DONE, PRIORITY_TYPE.NORMAL);
+		Task updated = new Task(3, "Run Around the Campus 100000 Times", t3Start, t3End, FLAG_TYPE.NULL,
+				PRIORITY_TYPE.LOW);
+		assertEquals(journalFH.add(added), true);
+		assertEquals(journalFH.update(updated), true);
+		assertEquals(journalFH.delete(4), true);
+		assertEquals(getCheckSum(JOURNAL_TASK_FILE), snapshotSum);
+		ArrayList<Task> expected = new ArrayList<>(journalFH.retrieveTaskList());
+		expected.set(3, updated);
+		expected.set(4, added);
+		
+		TaskFileHandler replayedFH = new TaskFileHandler(true);
+		assertEquals(replayedFH.loadTaskFile(JOURNAL_TASK_FILE), true);
+		assertEquals(replayedFH.retrieveTaskList(), expected);
+		
+		// An entry cut off halfway is dropped, and later entries follow the last whole one
+		try (FileOutputStream out = new FileOutputStream(JOURNAL_TASK_FILE + JOURNAL_EXTENSION, true)) {
+			out.write("ADD\t6\tCut off".getBytes(StandardCharsets.UTF_8));
+		}
+		TaskFileHandler truncatedFH = new TaskFileHandler(true);
+		assertEquals(truncatedFH.loadTaskFile(JOURNAL_TASK_FILE), true);
+		assertEquals(truncatedFH.retrieveTaskList(), expected);
+		
+		Task t = new Task(6, "Added after the cut off entry", 0, 0, FLAG_TYPE.NULL, PRIORITY_TYPE.HIGH);
+		assertEquals(truncatedFH.add(t), true);
+		expected.add(t);
+		TaskFileHandler resumedFH = new TaskFileHandler(true);
+		assertEquals(resumedFH.loadTaskFile(JOURNAL_TASK_FILE), true);
+		assertEquals(resumedFH.retrieveTaskList(), expected);
+		assertEquals(getCheckSum(JOURNAL_TASK_FILE), snapshotSum);
+	}
+
+	@Test
+	public void testLoadIsReadOnly() {
+		fileCopy(BACKUP_TASK_FILE, READ_ONLY_TASK_FILE);
+		File file = new File(READ_ONLY_TASK_FILE);
+		file.setLastModified(OLD_MODIFIED_TIME);
+		
+		assertEquals(new TaskFileHandler().loadTaskFile(READ_ONLY_TASK_FILE), true);
+		assertEquals(file.lastModified(), OLD_MODIFIED_TIME);
+		assertEquals(getCheckSum(BACKUP_TASK_FILE), getCheckSum(READ_ONLY_TASK_FILE));
+	}
+
+	@Test
+	public void testMappedSnapshot() throws IOException {
+		TaskXmlReader reader = new TaskXmlReader(new File(BACKUP_TASK_FILE));
+		assertEquals(reader.read(), true);
+		ArrayList<Task> tasks = reader.getTasks();
+		assertEquals(new TaskBinaryWriter(new File(MAPPED_TASK_FILE)).write(tasks, "generation"), true);
+		
+		// Each task is decoded from its record when it is asked for
+		MappedTaskSnapshot snapshot = MappedTaskSnapshot.open(new File(MAPPED_TASK_FILE));
+		assertEquals(snapshot.getGeneration(), "generation");
+		assertEquals(snapshot, tasks);
+		for (int i = 0; i < tasks.size(); i++) {
+			assertEquals(snapshot.get(i).getId(), tasks.get(i).getId());
+		}
+		assertNotSame(snapshot.get(0), snapshot.get(0));
+		try {
+			snapshot.get(tasks.size());
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// There is no record after the last task
+		}
+		
+		// The handler copies the mapped tasks before the file is replaced
+		TaskFileHandler mappedFH = new TaskFileHandler();
+		assertEquals(mappedFH.loadTaskFile(MAPPED_TASK_FILE), true);
+		assertEquals(mappedFH.retrieveTaskList(), tasks);
+		long t3Start = TimeUtil.getLongTime("Saturday: 31/10/15 12:00 GMT+0800");
+		long t3End = TimeUtil.getLongTime("Saturday: 31/10/15 20:05 GMT+0800");
+		Task t = new Task(3, "Run Around the Campus 100000 Times", t3Start, t3End, FLAG_TYPE.NULL,
+				PRIORITY_TYPE.LOW);
+		assertEquals(mappedFH.update(t), true);
+		tasks.set(3, t);
+		TaskFileHandler updatedFH = new TaskFileHandler();
+		assertEquals(updatedFH.loadTaskFile(MAPPED_TASK_FILE), true);
+		assertEquals(updatedFH.retrieveTaskList(), tasks);
+		
+		// A snapshot cut off within its records is not mapped
+		try (FileChannel channel = new FileOutputStream(MAPPED_TASK_FILE, true).getChannel()) {
+			channel.truncate(TRUNCATED_SIZE);
+		}
+		assertNull(MappedTaskSnapshot.open(new File(MAPPED_TASK_FILE)));
+	}
+
+	@Test
+	public void testMalformedFile() throws IOException {
+		String header = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n";
+		String task = "<task id=\"0\"><title>%1$s</title><startTime>0</startTime><endTime>0</endTime>"
+				+ "<flag>NULL</flag><priority>NORMAL</priority></task>";
+		
+		// Reading stops at the first broken task, so no task is half read
+		fileCopy(BACKUP_TASK_FILE, MALFORMED_TASK_FILE);
+		try (FileChannel channel = new FileOutputStream(MALFORMED_TASK_FILE, true).getChannel()) {
+			channel.truncate(TRUNCATED_SIZE * 5);
+		}
+		assertEquals(new TaskXmlReader(new File(MALFORMED_TASK_FILE)).read(), false);
+		
+		writeFile(MALFORMED_TASK_FILE, header + "<tasklist>" + String.format(task, "Unclosed") + "<task>");
+		assertEquals(new TaskXmlReader(new File(MALFORMED_TASK_FILE)).read(), false);
+		
+		writeFile(MALFORMED_TASK_FILE, header + "<tasklist>" + String.format(task, "Bad id").replace("id=\"0\"", "id=\"x\"")
+				+ "</tasklist>");
+		assertEquals(new TaskXmlReader(new File(MALFORMED_TASK_FILE)).read(), false);
+		
+		// A file with a DTD is rejected, so its entities are never expanded
+		writeFile(MALFORMED_TASK_FILE, header + "<!DOCTYPE tasklist [<!ENTITY secret SYSTEM \"" 
+				+ new File(BACKUP_TASK_FILE).toURI() + "\">]>" + "<tasklist>" 
+				+ String.format(task, "&secret;") + "</tasklist>");
+		assertEquals(new TaskXmlReader(new File(MALFORMED_TASK_FILE)).read(), false);
+		
+		writeFile(MALFORMED_TASK_FILE, header + "<!DOCTYPE tasklist [<!ENTITY name \"Expanded\">]>" 
+				+ "<tasklist>" + String.format(task, "&name;") + "</tasklist>");
+		assertEquals(new TaskXmlReader(new File(MALFORMED_TASK_FILE)).read(), false);
+		
+		// The same task without the entity is read
+		writeFile(MALFORMED_TASK_FILE, header + "<tasklist>" + String.format(task, "Plain") + "</tasklist>");
+		TaskXmlReader reader = new TaskXmlReader(new File(MALFORMED_TASK_FILE));
+		assertEquals(reader.read(), true);
+		assertEquals(reader.getTasks().get(0).getName(), "Plain");
+	}
+
+	@Test
+	public void testParallelParsing() throws IOException {
+		// Several chunks of records, with ids out of order
+		long monday = TimeUtil.getLongTime("Monday: 09/11/15 10:00 GMT+0800");
+		ArrayList<Task> tasks = new ArrayList<>();
+		for (int i = 0; i < PARALLEL_TASK_COUNT; i++) {
+			long endTime = i % 3 == 0 ? 0 : monday + i * 60000L;
+			tasks.add(new Task(i * 7919 % PARALLEL_TASK_COUNT, "Task " + i, 0, endTime, 
+					FLAG_TYPE.values()[i % 2], PRIORITY_TYPE.values()[i % 3]));
+		}
+		assertEquals(new TaskXmlWriter(new File(PARALLEL_TASK_FILE)).write(tasks, null), true);
+		
+		// Every task keeps the place of its record in the file
+		TaskXmlReader reader = new TaskXmlReader(new File(PARALLEL_TASK_FILE));
+		assertEquals(reader.read(), true);
+		assertEquals(reader.getTasks(), tasks);
+		for (int i = 0; i < PARALLEL_TASK_COUNT; i++) {
+			assertEquals(reader.getTasks().get(i).getId(), tasks.get(i).getId());
+		}
+		
+		// An invalid record in a later chunk fails the whole file
+		String content = new String(Files.readAllBytes(Paths.get(PARALLEL_TASK_FILE)), StandardCharsets.UTF_8);
+		String invalidContent = content.replaceFirst("(<title>Task 2500</title>\\s*<startTime>)0", 
+				"$1Not a time");
+		assertNotEquals(invalidContent, content);
+		writeFile(PARALLEL_TASK_FILE, invalidContent);
+		assertEquals(reader.read(), false);
+	}
+
+	@Test
+	public void testQueuedAdd() {
+		fileCopy(BACKUP_TASK_FILE, QUEUED_TASK_FILE);
+		TaskFileHandler queuedFH = new TaskFileHandler();
+		assertEquals(queuedFH.loadTaskFile(QUEUED_TASK_FILE), true);
+		
+		TaskStorageWriter writer = new TaskStorageWriter(queuedFH, TaskStorageWriter.MODE.ASYNC);
+		Task t = new Task(5, "New Task Added for JUnit Testing", 0, 0, FLAG_TYPE.DONE, PRIORITY_TYPE.NORMAL);
+		assertEquals(writer.add(t), true);
+		// Changing the task afterwards must not change what is written
+		t.setId(6);
+		
+		assertEquals(writer.close(), true);
+		assertSameTasks(ADD_TASK_FILE, QUEUED_TASK_FILE);
+	}
+
+	@Test
+	public void testQueuedFailure() {
+		MemoryTaskStore store = new MemoryTaskStore();
+		assertEquals(store.loadTaskFile(QUEUED_TASK_FILE), true);
+		
+		// Deleting a missing task is only found to fail once it is written
+		TaskStorageWriter writer = new TaskStorageWriter(store, TaskStorageWriter.MODE.ASYNC);
+		assertEquals(writer.delete(99), true);
+		assertEquals(writer.flush(), false);
+		assertEquals(writer.pollFailure(), false);
+		
+		// Polling finds the failure without waiting for a flush, and only once
+		assertEquals(writer.delete(99), true);
+		long deadline = System.nanoTime() + FAILURE_POLL_TIMEOUT;
+		boolean isFailed = writer.pollFailure();
+		while (!isFailed && System.nanoTime() - deadline < 0) {
+			Thread.yield();
+			isFailed = writer.pollFailure();
+		}
+		assertEquals(isFailed, true);
+		assertEquals(writer.pollFailure(), false);
+		assertEquals(writer.close(), true);
+	}
+
+	@Test
+	public void testRecoverFromBackup() throws IOException {
+		fileCopy(BACKUP_TASK_FILE, RECOVERED_TASK_FILE);
+		TaskFileHandler savingFH = new TaskFileHandler();
+		assertEquals(savingFH.loadTaskFile(RECOVERED_TASK_FILE), true);
+		
+		// Saving keeps the previous file as a backup
+		Task t = new Task(5, "New Task Added for JUnit Testing", 0, 0, FLAG_TYPE.DONE, PRIORITY_TYPE.NORMAL);
+		assertEquals(savingFH.add(t), true);
+		assertSameTasks(ADD_TASK_FILE, RECOVERED_TASK_FILE);
+		
+		// Simulate a save that was cut off halfway
+		try (FileChannel channel = new FileOutputStream(RECOVERED_TASK_FILE, true).getChannel()) {
+			channel.truncate(TRUNCATED_SIZE);
+		}
+		
+		TaskFileHandler recoveredFH = new TaskFileHandler();
+		assertEquals(recoveredFH.loadTaskFile(RECOVERED_TASK_FILE), true);
+		assertEquals(recoveredFH.retrieveTaskList().size(), 5);
+		assertSameTasks(BACKUP_TASK_FILE, RECOVERED_TASK_FILE);
+	}
+
+	@Test
+	public void testSyncWritesForced() {
+		fileCopy(BACKUP_TASK_FILE, SYNC_TASK_FILE);
+		new File(SYNC_TASK_FILE + JOURNAL_EXTENSION).delete();
+		TaskFileHandler journalFH = new TaskFileHandler(true);
+		assertEquals(journalFH.loadTaskFile(SYNC_TASK_FILE), true);
+		TaskStorageWriter writer = new TaskStorageWriter(journalFH, TaskStorageWriter.MODE.SYNC);
+		
+		// Each change is forced to disk before the call returns
+		Task t = new Task(5, "New Task Added for JUnit Testing", 0, 0, FLAG_TYPE.DONE, PRIORITY_TYPE.NORMAL);
+		assertEquals(writer.add(t), true);
+		assertEquals(journalFH.isSaved(), true);
+		assertEquals(writer.update(new Task(5, "Updated for JUnit Testing", 0, 0, FLAG_TYPE.DONE,
+				PRIORITY_TYPE.HIGH)), true);
+		assertEquals(journalFH.isSaved(), true);
+		assertEquals(writer.delete(4), true);
+		assertEquals(journalFH.isSaved(), true);
+		
+		// A batch is forced once, at its end
+		journalFH.beginBatch();
+		assertEquals(journalFH.delete(5), true);
+		assertEquals(journalFH.isSaved(), false);
+		assertEquals(journalFH.endBatch(), true);
+		assertEquals(journalFH.isSaved(), true);
+	}
 
 	@Test
 	public void testUpdateAndDelete() {
@@ -120,6 +558,84 @@ public class StorageTest {
 		taskFH.delete(4);
 		assertEquals(getCheckSum(DELETE_TASK_FILE), getCheckSum(ORIGINAL_TASK_FILE));
 	}	
+
+	@Test
+	public void testXmlRoundTrip() {
+		// Writing the tasks read from a file gives back the same file
+		TaskXmlReader reader = new TaskXmlReader(new File(BACKUP_TASK_FILE));
+		assertEquals(reader.read(), true);
+		assertEquals(new TaskXmlWriter(new File(ROUND_TRIP_TASK_FILE)).write(reader.getTasks(), null), true);
+		assertSameTasks(BACKUP_TASK_FILE, ROUND_TRIP_TASK_FILE);
+		
+		// Names are escaped, and are read back with every character
+		long start = TimeUtil.getLongTime("Monday: 09/11/15 10:00 GMT+0800");
+		long end = TimeUtil.getLongTime("Monday: 09/11/15 11:30 GMT+0800");
+		ArrayList<Task> tasks = new ArrayList<>();
+		tasks.add(new Task(0, "Tom & Jerry <3 \"quoted\" 'single' ]]>", start, end, FLAG_TYPE.DONE,
+				PRIORITY_TYPE.HIGH));
+		tasks.add(new Task(7, "\u00dcn\u00efc\u00f6d\u00e9 \u65e5\u672c \ud83d\ude00", 0, 0, FLAG_TYPE.NULL,
+				PRIORITY_TYPE.LOW));
+		tasks.add(new Task(9, "  spaced\ttab  ", 0, end, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL));
+		assertEquals(new TaskXmlWriter(new File(ROUND_TRIP_TASK_FILE)).write(tasks, "generation"), true);
+		
+		reader = new TaskXmlReader(new File(ROUND_TRIP_TASK_FILE));
+		assertEquals(reader.read(), true);
+		assertEquals(reader.getGeneration(), "generation");
+		assertEquals(reader.getTasks(), tasks);
+		for (int i = 0; i < tasks.size(); i++) {
+			assertEquals(reader.getTasks().get(i).getId(), tasks.get(i).getId());
+		}
+	}
+	/**
+	 * @return the generation in the header of a journal
+	 */
+	public String getJournalGeneration(Path journalPath) throws IOException {
+		String header = Files.readAllLines(journalPath, StandardCharsets.UTF_8).get(0);
+		return header.split("\t")[1];
+	}
+	
+	public void corruptMappedName(String file) throws IOException {
+		try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.seek(CORRUPT_NAME_OFFSET);
+			out.writeInt(Integer.MAX_VALUE);
+		}
+	}
+	
+	public void writeFile(String file, String content) throws IOException {
+		Files.write(Paths.get(file), content.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Asserts that a task file holds the tasks of another, in the same order
+	 * and with the same ids. The files are read instead of compared byte by
+	 * byte, as the line endings and the time zone of the times written
+	 * depend on the machine.
+	 */
+	public void assertSameTasks(String expectedFile, String actualFile) {
+		TaskXmlReader expectedReader = new TaskXmlReader(new File(expectedFile));
+		TaskXmlReader actualReader = new TaskXmlReader(new File(actualFile));
+		assertEquals(expectedReader.read(), true);
+		assertEquals(actualReader.read(), true);
+		ArrayList<Task> expected = expectedReader.getTasks();
+		ArrayList<Task> actual = actualReader.getTasks();
+		assertEquals(actual, expected);
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(actual.get(i).getId(), expected.get(i).getId());
+		}
+	}
+	
+	/**
+	 * Deletes the task files written by the tests, with the journal, backup,
+	 * snapshot and archive files kept next to them
+	 */
+	public static void deleteTaskFiles(String... fileNames) {
+		for (String fileName : fileNames) {
+			for (String extension : TASK_FILE_EXTENSIONS) {
+				new File(fileName + extension).delete();
+			}
+		}
+	}
+	
 	//@@author A0076510M-reused
 	public String getCheckSum(String file) {
 		
@@ -27,6 +27,7 @@ public class CmdAddTest {
 	private static final String MSG_TASKNAMENOTGIVEN = "Please enter a task name";
 	private static final String MSG_TASKADDED = "Added : %1$s";
 	private static final String MSG_STARTAFTEREND = "Specified start time should be before end time";
+	private static final String MSG_CONFLICTS = " (conflicts with ID: %1$s)";
 
 	// Variable Constants
 	private static final long INVALID_START_TIME = 1448722800000L; // 28Nov15
@@ -57,6 +58,7 @@ public class CmdAddTest {
 		testCmdAdd_taskName_field();
 		testCmdAdd_time_field();
 		testCmdAdd_priority_field();
+		testCmdAdd_conflict();
 	}
 
 	/**
@@ -221,6 +223,59 @@ public class CmdAddTest {
 
 	}
 
+	//@@author A0076510M
+	/**
+	 * Testing of CmdAdd reporting tasks of overlapping time
+	 */
+	public void testCmdAdd_conflict() {
+		// Initialize test variables
+		CommandAction expectedCA;
+		Task expectedTask;
+		List<Task> expectedTaskList;
+
+		/*
+		 * Test 4: Testing conflicts with existing tasks
+		 */
+		ctf.initialize();
+		expectedTaskList = new ArrayList<Task>();
+
+		// Test 4a: no other task
+		_testCmdAdd = new CmdAdd();
+		setParameters(TASK_NAME_1, INVALID_START_TIME + "", VALID_END_TIME + "", null);
+		expectedTask = ctf.createExpectedTask(TASK_NAME_1, INVALID_START_TIME, VALID_END_TIME, PRIORITY_TYPE.NORMAL);
+		expectedTaskList.add(expectedTask);
+		expectedCA = new CommandAction(String.format(MSG_TASKADDED, TASK_NAME_1), true, expectedTaskList);
+		ctf.assertCommandAction(expectedCA, _testCmdAdd.execute());
+
+		// Test 4b: deadline during the first task
+		_testCmdAdd = new CmdAdd();
+		setParameters(TASK_NAME_2, null, VALID_END_TIME - 1 + "", null);
+		expectedTask = ctf.createExpectedTask(TASK_NAME_2, NO_TIME, VALID_END_TIME - 1, PRIORITY_TYPE.NORMAL);
+		expectedTaskList.add(expectedTask);
+		expectedCA = new CommandAction(String.format(MSG_TASKADDED, TASK_NAME_2), true, expectedTaskList);
+		ctf.assertCommandAction(expectedCA, _testCmdAdd.execute());
+
+		// Test 4c: same time as the first task. The deadline of test 4b takes
+		// up no span of time, so it does not conflict either way
+		_testCmdAdd = new CmdAdd();
+		setParameters(TASK_NAME_1, INVALID_START_TIME + "", VALID_END_TIME + "", null);
+		expectedTask = ctf.createExpectedTask(TASK_NAME_1, INVALID_START_TIME, VALID_END_TIME, PRIORITY_TYPE.NORMAL);
+		expectedTaskList.add(expectedTask);
+		expectedCA = new CommandAction(String.format(MSG_TASKADDED, TASK_NAME_1) + String.format(MSG_CONFLICTS, "1"),
+				true, expectedTaskList);
+		ctf.assertCommandAction(expectedCA, _testCmdAdd.execute());
+
+		// Test 4d: starts when the first task ends
+		_testCmdAdd = new CmdAdd();
+		setParameters(TASK_NAME_2, VALID_END_TIME + "", VALID_START_TIME + "", null);
+		expectedTask = ctf.createExpectedTask(TASK_NAME_2, VALID_END_TIME, VALID_START_TIME, PRIORITY_TYPE.NORMAL);
+		expectedTaskList.add(expectedTask);
+		expectedCA = new CommandAction(String.format(MSG_TASKADDED, TASK_NAME_2), true, expectedTaskList);
+		ctf.assertCommandAction(expectedCA, _testCmdAdd.execute());
+
+	}
+
+	//@@author A0125574A
 	/**
 	 * Set parameters for testing
 	 * 
@@ -0,0 +1,176 @@
+//@@author A0076510M
+
+/**
+ * Testing of CmdSearch
+ */
+
+package test.command;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import constants.CmdParameters;
+
+import logic.command.CmdList;
+import logic.command.CmdSearch;
+import logic.command.Command;
+import logic.command.CommandAction;
+
+import taskCollections.Task;
+import taskCollections.Task.FLAG_TYPE;
+import taskCollections.Task.PRIORITY_TYPE;
+import taskCollections.TaskTree;
+
+import parser.ParserConstants;
+
+public class CmdSearchTest {
+
+	/*
+	 * Constants
+	 */
+	// Message constants
+	private static final String MSG_KEYWORD_NOTFOUND = "Specified keyword \"%1$s\" not found, "
+			+ "enter \"list %2$s %3$s %1$s\" to search archived tasks as well";
+	private static final String MSG_TASKFOUND = "Task \"%1$s\" found";
+	private static final String MSG_TOTAL_TASK = "Total tasks in list: [%1$s]";
+
+	// Variable constant
+	private static final String COMMAND_TEST_FILE = "src/test/command/CommandTest.xml";
+	// 28Nov15 15:00
+	private static final long START_TIME = 1448722800000L;
+	// 29Nov15 15:00
+	private static final long END_TIME = 1448780400000L;
+	private static final String KEYWORD = "report";
+	private static final String KEYWORD_ARCHIVED = "draft";
+	private static final String KEYWORD_MISSING = "slides";
+	private static final String TASK_NAME_ARCHIVED = "report draft";
+	private static final String TASK_NAME = "report final";
+
+	/*
+	 * Variables for internal use
+	 */
+	private Command _testCmdSearch;
+	private CommandTestFunctions ctf;
+
+	public CmdSearchTest() {
+		ctf = new CommandTestFunctions();
+	}
+
+	/**
+	 * Run all available test cases for CmdSearch
+	 */
+	public void testCmdSearch() {
+		testCmdSearch_archived_tasks();
+	}
+
+	/**
+	 * Testing of CmdSearch on archived tasks, which are never searched, and
+	 * of the task counts, which leave archived tasks out even once they are
+	 * listed
+	 */
+	public void testCmdSearch_archived_tasks() {
+		// Initialize test variables
+		CommandAction expectedCA;
+		List<Task> expectedTaskList;
+
+		ctf.initialize();
+		TaskTree taskTree = TaskTree.getTaskTree();
+		Task archivedTask = new Task(TASK_NAME_ARCHIVED, START_TIME, END_TIME, FLAG_TYPE.DONE, PRIORITY_TYPE.NORMAL);
+		Task task = new Task(TASK_NAME, START_TIME, END_TIME, FLAG_TYPE.NULL, PRIORITY_TYPE.NORMAL);
+		taskTree.add(archivedTask);
+		taskTree.add(task);
+		assertEquals(1, taskTree.archiveDoneTasks(END_TIME + 1));
+
+		// Reload the task file, which leaves the archived task out
+		TaskTree.newTaskTree(COMMAND_TEST_FILE);
+		Command.init();
+		assertTaskCounts(1, 0, 1);
+
+		/*
+		 * Test 1: Keyword is in an archived task and a task that is not
+		 */
+		expectedTaskList = new ArrayList<Task>();
+		expectedTaskList.add(task);
+		expectedCA = new CommandAction(String.format(MSG_TASKFOUND, TASK_NAME), false, expectedTaskList);
+		ctf.assertCommandAction(expectedCA, search(KEYWORD));
+		assertTaskCounts(1, 0, 1);
+
+		/*
+		 * Test 2: Keyword is only in an archived task
+		 */
+		expectedTaskList = new ArrayList<Task>();
+		expectedCA = new CommandAction(getNotFoundMsg(KEYWORD_ARCHIVED), false, expectedTaskList);
+		ctf.assertCommandAction(expectedCA, search(KEYWORD_ARCHIVED));
+		assertTaskCounts(1, 0, 1);
+
+		/*
+		 * Test 3: Keyword is only in an archived task, listed with all tasks
+		 */
+		expectedTaskList = new ArrayList<Task>();
+		expectedTaskList.add(archivedTask);
+		expectedCA = new CommandAction(String.format(MSG_TOTAL_TASK, 1), false, expectedTaskList);
+		ctf.assertCommandAction(expectedCA, listAll(KEYWORD_ARCHIVED));
+		assertTaskCounts(1, 0, 1);
+
+		// Archived tasks are still not searched once they are listed
+		expectedTaskList = new ArrayList<Task>();
+		expectedCA = new CommandAction(getNotFoundMsg(KEYWORD_ARCHIVED), false, expectedTaskList);
+		ctf.assertCommandAction(expectedCA, search(KEYWORD_ARCHIVED));
+
+		/*
+		 * Test 4: Keyword is in no task
+		 */
+		expectedTaskList = new ArrayList<Task>();
+		expectedCA = new CommandAction(getNotFoundMsg(KEYWORD_MISSING), false, expectedTaskList);
+		ctf.assertCommandAction(expectedCA, search(KEYWORD_MISSING));
+
+		ctf.resetCommandXML();
+	}
+
+	/**
+	 * Assert the task counts shown in the status bar
+	 */
+	private void assertTaskCounts(int total, int done, int overdue) {
+		TaskTree taskTree = TaskTree.getTaskTree();
+		assertEquals(total, taskTree.size());
+		assertEquals(done, taskTree.getFlagCount(FLAG_TYPE.DONE));
+		assertEquals(overdue, taskTree.getOverdueCount());
+	}
+
+	private String getNotFoundMsg(String keyword) {
+		return String.format(MSG_KEYWORD_NOTFOUND, keyword, ParserConstants.TASK_FILTER_ALL,
+				ParserConstants.TASK_SPECIFIER_TASKNAME);
+	}
+
+	/**
+	 * List all tasks, archived tasks included, with given name
+	 *
+	 * @param name
+	 *            name to be listed
+	 *
+	 * @return the CommandAction of the list
+	 */
+	private CommandAction listAll(String name) {
+		Command cmdList = new CmdList();
+		cmdList.setParameter(CmdParameters.PARAM_NAME_LIST_FLAG, CmdParameters.PARAM_VALUE_LIST_ALL);
+		cmdList.setParameter(CmdParameters.PARAM_NAME_TASK_SNAME, name);
+		return cmdList.execute();
+	}
+
+	/**
+	 * Search for given keyword
+	 *
+	 * @param keyword
+	 *            keyword to be searched
+	 *
+	 * @return the CommandAction of the search
+	 */
+	private CommandAction search(String keyword) {
+		_testCmdSearch = new CmdSearch();
+		_testCmdSearch.setParameter(CmdParameters.PARAM_NAME_CMD_SEARCH, keyword);
+		return _testCmdSearch.execute();
+	}
+
+}
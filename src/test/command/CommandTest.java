@@ -7,6 +7,7 @@
 package test.command;
 
 //JUnit
+import org.junit.After;
 import org.junit.Test;
 
 public class CommandTest {
@@ -16,15 +17,22 @@ public class CommandTest {
 	 */
 	CmdAddTest _CmdAddTest;
 	CmdDeleteTest _CmdDeleteTest;
+	CmdSearchTest _CmdSearchTest;
 	CmdUpdateTest _CmdUpdateTest;
 
 	@Test
 	public void testCommands() {
 		testCmdAdd();
 		testCmdDelete();
+		testCmdSearch();
 		testCmdUpdate();
 	}
 
+	@After
+	public void deleteBackup() {
+		new CommandTestFunctions().deleteBackup();
+	}
+
 	/**
 	 * Testing of CmdAdd
 	 */
@@ -41,6 +49,14 @@ public class CommandTest {
 		_CmdDeleteTest.testCmdDelete();
 	}
 
+	/**
+	 * Testing of CmdSearch
+	 */
+	public void testCmdSearch() {
+		_CmdSearchTest = new CmdSearchTest();
+		_CmdSearchTest.testCmdSearch();
+	}
+
 	/**
 	 * Testing of CmdUpdate
 	 */
@@ -10,6 +10,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 
@@ -21,12 +22,15 @@ import taskCollections.TaskTree;
 
 import parser.TimeProcessor;
 
+import storage.TaskArchive;
+
 public class CommandTestFunctions {
 
 	// Variable constants
 	private static final String COMMAND_TEST_FILE = "src/test/command/CommandTest.xml";
 	private static final String DEFAULT_FILE_CONTENT = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
 			+ "\n<tasklist>\n</tasklist>\n";
+	private static final String BACKUP_EXTENSION = ".bak";
 	
 	/*
 	 * Variables for internal use
@@ -77,9 +81,21 @@ public class CommandTestFunctions {
 	}
 
 	/**
-	 * Reset Command.xml in a clean state (without any {@code Task})
+	 * Delete the backup kept whenever Command.xml is replaced
+	 */
+	public void deleteBackup() {
+		new File(COMMAND_TEST_FILE + BACKUP_EXTENSION).delete();
+	}
+
+	/**
+	 * Reset Command.xml in a clean state (without any {@code Task} or
+	 * archived {@code Task})
 	 */
 	public void resetCommandXML() {
+		File archive = new TaskArchive(COMMAND_TEST_FILE).getFile();
+		archive.delete();
+		new File(archive.getPath() + BACKUP_EXTENSION).delete();
+
 		try {
 			PrintWriter pw = new PrintWriter(COMMAND_TEST_FILE);
 			pw.write(DEFAULT_FILE_CONTENT);
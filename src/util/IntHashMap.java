@@ -0,0 +1,182 @@
+//@@author A0076510M
+/**
+ * Provides a hash map from primitive int keys to values, used to look up
+ * tasks by id without boxing the id or scanning a list.
+ *
+ * Entries are kept in open-addressed arrays with linear probing. Removal
+ * shifts the following entries back, so lookups never meet deleted slots.
+ * Null values are not allowed.
+ *
+ * @author Zandercx
+ */
+
+package util;
+
+public class IntHashMap<V> {
+
+	private static final int MIN_CAPACITY = 16;
+	private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+	private int[] _keys;
+	private Object[] _values;
+	private int _size;
+	private int _mask;
+
+	public IntHashMap() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * @param expectedSize
+	 * 			number of entries the map should hold without growing
+	 */
+	public IntHashMap(int expectedSize) {
+		assert expectedSize >= 0;
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Returns the value of a key
+	 * @return
+	 * 			the value if found, null otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int slot = find(key);
+		return slot < 0 ? null : (V) _values[slot];
+	}
+
+	public boolean containsKey(int key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * Maps a key to a value, replacing its previous value
+	 * @return
+	 * 			the previous value if any, null otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		assert value != null;
+
+		int slot = hash(key);
+		while (_values[slot] != null) {
+			if (_keys[slot] == key) {
+				V previous = (V) _values[slot];
+				_values[slot] = value;
+				return previous;
+			}
+			slot = (slot + 1) & _mask;
+		}
+
+		_keys[slot] = key;
+		_values[slot] = value;
+		_size++;
+
+		if (_size * 2 > _values.length) {
+			rehash(_values.length * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes a key and its value
+	 * @return
+	 * 			the removed value if found, null otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		int slot = find(key);
+		if (slot < 0) {
+			return null;
+		}
+
+		V previous = (V) _values[slot];
+		shiftBack(slot);
+		_size--;
+		return previous;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	public void clear() {
+		allocate(MIN_CAPACITY);
+	}
+
+	private int find(int key) {
+		int slot = hash(key);
+		while (_values[slot] != null) {
+			if (_keys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & _mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Empties a slot and moves back the entries after it that would no
+	 * longer be reachable from their home slot.
+	 */
+	private void shiftBack(int empty) {
+		int slot = empty;
+		while (true) {
+			slot = (slot + 1) & _mask;
+			if (_values[slot] == null) {
+				break;
+			}
+			int home = hash(_keys[slot]);
+			// Move the entry if its home is not between the empty slot and itself
+			if (((slot - home) & _mask) >= ((slot - empty) & _mask)) {
+				_keys[empty] = _keys[slot];
+				_values[empty] = _values[slot];
+				empty = slot;
+			}
+		}
+		_values[empty] = null;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = _keys;
+		Object[] oldValues = _values;
+
+		allocate(capacity);
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int slot = hash(oldKeys[i]);
+				while (_values[slot] != null) {
+					slot = (slot + 1) & _mask;
+				}
+				_keys[slot] = oldKeys[i];
+				_values[slot] = oldValues[i];
+				_size++;
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		_keys = new int[capacity];
+		_values = new Object[capacity];
+		_mask = capacity - 1;
+		_size = 0;
+	}
+
+	private int hash(int key) {
+		int h = key * HASH_MULTIPLIER;
+		return (h ^ (h >>> 16)) & _mask;
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
@@ -0,0 +1,191 @@
+//@@author A0076510M
+/**
+ * Provides a hash map from primitive int keys to primitive int values, used
+ * where {@code IntHashMap} would box every value, such as to keep the
+ * position of each task by id.
+ *
+ * Entries are kept in open-addressed arrays with linear probing, as in
+ * {@code IntHashMap}. A key that is absent has the missing value given when
+ * the map is created.
+ *
+ * @author Zandercx
+ */
+
+package util;
+
+public class IntIntHashMap {
+
+	private static final int MIN_CAPACITY = 16;
+	private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+	private int[] _keys;
+	private int[] _values;
+	private boolean[] _isUsed;
+	private int _size;
+	private int _mask;
+	private final int _missingValue;
+
+	/**
+	 * @param missingValue
+	 * 			value returned for a key that is not in the map
+	 */
+	public IntIntHashMap(int missingValue) {
+		this(MIN_CAPACITY, missingValue);
+	}
+
+	/**
+	 * @param expectedSize
+	 * 			number of entries the map should hold without growing
+	 * @param missingValue
+	 * 			value returned for a key that is not in the map
+	 */
+	public IntIntHashMap(int expectedSize, int missingValue) {
+		assert expectedSize >= 0;
+		_missingValue = missingValue;
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Returns the value of a key
+	 * @return
+	 * 			the value if found, the missing value otherwise
+	 */
+	public int get(int key) {
+		int slot = find(key);
+		return slot < 0 ? _missingValue : _values[slot];
+	}
+
+	public boolean containsKey(int key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * Maps a key to a value, replacing its previous value
+	 * @return
+	 * 			the previous value if any, the missing value otherwise
+	 */
+	public int put(int key, int value) {
+		int slot = hash(key);
+		while (_isUsed[slot]) {
+			if (_keys[slot] == key) {
+				int previous = _values[slot];
+				_values[slot] = value;
+				return previous;
+			}
+			slot = (slot + 1) & _mask;
+		}
+
+		_keys[slot] = key;
+		_values[slot] = value;
+		_isUsed[slot] = true;
+		_size++;
+
+		if (_size * 2 > _keys.length) {
+			rehash(_keys.length * 2);
+		}
+		return _missingValue;
+	}
+
+	/**
+	 * Removes a key and its value
+	 * @return
+	 * 			the removed value if found, the missing value otherwise
+	 */
+	public int remove(int key) {
+		int slot = find(key);
+		if (slot < 0) {
+			return _missingValue;
+		}
+
+		int previous = _values[slot];
+		shiftBack(slot);
+		_size--;
+		return previous;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	public void clear() {
+		allocate(MIN_CAPACITY);
+	}
+
+	private int find(int key) {
+		int slot = hash(key);
+		while (_isUsed[slot]) {
+			if (_keys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & _mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Empties a slot and moves back the entries after it that would no
+	 * longer be reachable from their home slot.
+	 */
+	private void shiftBack(int empty) {
+		int slot = empty;
+		while (true) {
+			slot = (slot + 1) & _mask;
+			if (!_isUsed[slot]) {
+				break;
+			}
+			int home = hash(_keys[slot]);
+			// Move the entry if its home is not between the empty slot and itself
+			if (((slot - home) & _mask) >= ((slot - empty) & _mask)) {
+				_keys[empty] = _keys[slot];
+				_values[empty] = _values[slot];
+				empty = slot;
+			}
+		}
+		_isUsed[empty] = false;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = _keys;
+		int[] oldValues = _values;
+		boolean[] oldIsUsed = _isUsed;
+
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldIsUsed[i]) {
+				int slot = hash(oldKeys[i]);
+				while (_isUsed[slot]) {
+					slot = (slot + 1) & _mask;
+				}
+				_keys[slot] = oldKeys[i];
+				_values[slot] = oldValues[i];
+				_isUsed[slot] = true;
+				_size++;
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		_keys = new int[capacity];
+		_values = new int[capacity];
+		_isUsed = new boolean[capacity];
+		_mask = capacity - 1;
+		_size = 0;
+	}
+
+	private int hash(int key) {
+		int h = key * HASH_MULTIPLIER;
+		return (h ^ (h >>> 16)) & _mask;
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
@@ -14,7 +14,9 @@ import java.util.concurrent.TimeUnit;
 
 public class TimeUtil {
 
-	private static SimpleDateFormat _df1 = new SimpleDateFormat("EEEE: dd/MM/yy HH:mm 'GMT'Z");
+	// One per thread, as tasks are loaded and saved on several threads
+	private static ThreadLocal<SimpleDateFormat> _df1 = ThreadLocal
+			.withInitial(() -> new SimpleDateFormat("EEEE: dd/MM/yy HH:mm 'GMT'Z"));
 	private static SimpleDateFormat _uidf = new SimpleDateFormat("EEEE, dd MMM yy");
 	private static Calendar now = Calendar.getInstance();
 	private static Calendar temp = Calendar.getInstance();
@@ -89,8 +91,7 @@ public class TimeUtil {
 		}
 
 		Date date = new Date(time);
-		String dateText = _df1.format(date);
-		return dateText;
+		return _df1.get().format(date);
 	}
 
 
@@ -106,7 +107,7 @@ public class TimeUtil {
 		}
 
 		try {
-			Date date = (Date) _df1.parse(sDate);
+			Date date = (Date) _df1.get().parse(sDate);
 			return date.getTime();
 		} catch (ParseException e) {
 			return -1;